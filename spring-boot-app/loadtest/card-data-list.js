@@ -0,0 +1,29 @@
+// k6 load test for GET /api/card-data.
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=400 -e DURATION=60s loadtest/card-data-list.js
+// QUERY selects the request shape, e.g. QUERY="limit=100" or QUERY="cardType=CREDIT".
+import http from 'k6/http';
+import { check } from 'k6';
+
+const baseUrl = __ENV.BASE_URL || 'http://localhost:8080';
+const query = __ENV.QUERY || 'limit=100';
+
+export const options = {
+  scenarios: {
+    // Bursty arrivals: ramp well past the platform-thread pool size and back.
+    burst: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '10s', target: Number(__ENV.VUS || 400) },
+        { duration: __ENV.DURATION || '60s', target: Number(__ENV.VUS || 400) },
+        { duration: '10s', target: 0 },
+      ],
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+  const res = http.get(`${baseUrl}/api/card-data?${query}`);
+  check(res, { 'status is 200': (r) => r.status === 200 });
+}
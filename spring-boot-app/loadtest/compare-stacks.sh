@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Compares the servlet stack (JdbcTemplate + Tomcat) with the reactive profile (R2DBC + Netty):
+#  1. k6 throughput run of loadtest/card-data-list.js (QUERY defaults to the full NDJSON-able list)
+#  2. SLOW_CLIENTS concurrent NDJSON readers, each throttled to SLOW_RATE by curl, while the
+#     live JVM thread count is sampled from the actuator
+# Needs k6, jq, curl and a reachable database (ENT_DB_* variables as for a normal run; the reactive
+# profile derives its R2DBC URL from the same variables, or set ENT_R2DBC_URL).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PORT=${PORT:-8080}
+SLOW_CLIENTS=${SLOW_CLIENTS:-1000}
+SLOW_RATE=${SLOW_RATE:-20k}
+# Raw throughput is measured: per-client admission control would turn a single-host k6 run into 429s.
+ENT_CARD_DATA_ADMISSION_ENABLED=${ENT_CARD_DATA_ADMISSION_ENABLED:-false}
+export PORT ENT_CARD_DATA_ADMISSION_ENABLED
+
+mvn -q -Preactive -DskipTests package
+JAR=$(ls target/spring-boot-app-*.jar | grep -v original | head -n 1)
+BASE="http://localhost:$PORT"
+
+peak_threads() {
+  local peak=0 now
+  while kill -0 "$1" 2>/dev/null; do
+    now=$(curl -sf "$BASE/actuator/metrics/jvm.threads.live" | jq '.measurements[0].value | floor' || echo 0)
+    (( now > peak )) && peak=$now
+    sleep 1
+  done
+  echo "$peak"
+}
+
+run_mode() {
+  local mode=$1 profiles=$2
+  SPRING_PROFILES_ACTIVE=$profiles java -jar "$JAR" > "target/loadtest-$mode.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" RETURN
+  until curl -sf "$BASE/actuator/health" > /dev/null; do sleep 1; done
+
+  k6 run --quiet -e BASE_URL="$BASE" -e QUERY="${QUERY:-cardType=CREDIT}" \
+    --summary-export "target/loadtest-$mode.json" loadtest/card-data-list.js
+
+  local start=$SECONDS
+  seq "$SLOW_CLIENTS" | xargs -P "$SLOW_CLIENTS" -I{} \
+    curl -s -o /dev/null -w '%{http_code}\n' --limit-rate "$SLOW_RATE" \
+      -H 'Accept: application/x-ndjson' "$BASE/api/card-data" > "target/loadtest-$mode-slow.txt" &
+  local readers=$!
+  local threads
+  threads=$(peak_threads "$readers")
+  wait "$readers" || true
+  echo "$mode slow readers: $(grep -c '^200$' "target/loadtest-$mode-slow.txt")/$SLOW_CLIENTS ok" \
+    "in $((SECONDS - start))s, peak live threads $threads" >> target/loadtest-stacks.txt
+}
+
+: > target/loadtest-stacks.txt
+run_mode servlet default
+run_mode reactive reactive
+
+for mode in servlet reactive; do
+  jq -r --arg mode "$mode" \
+    '"\($mode): \(.metrics.http_reqs.rate | floor) req/s, p99 \(.metrics.http_req_duration["p(99)"]) ms, failed \(.metrics.http_req_failed.value)"' \
+    "target/loadtest-$mode.json"
+done
+cat target/loadtest-stacks.txt
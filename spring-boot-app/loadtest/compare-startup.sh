@@ -0,0 +1,70 @@
+#!/usr/bin/env bash
+# Starts the application as the plain jar, as the AOT + CDS build (-Pcds) and, when native-image is
+# on the PATH, as the native executable (-Pnative), and prints for each: time from launch to the
+# first HTTP response, the startup time Spring reports, and the latency of the first and the tenth
+# card-data request. Needs a reachable database (ENT_DB_* variables as for a normal run).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PORT=${PORT:-8080}
+# One client sends all requests; admission control is not what is being measured.
+ENT_CARD_DATA_ADMISSION_ENABLED=${ENT_CARD_DATA_ADMISSION_ENABLED:-false}
+export PORT ENT_CARD_DATA_ADMISSION_ENABLED
+# AOT builds fix the bean set at build time, so the same switch has to reach them there.
+AOT_ARGS="-Dspring-boot.aot.jvmArguments=-Dapp.card-data.admission.enabled=$ENT_CARD_DATA_ADMISSION_ENABLED"
+URL="http://localhost:$PORT"
+REQUEST=${REQUEST:-"$URL/api/card-data?limit=100"}
+RESULTS=target/startup-comparison.txt
+
+now_ms() {
+  date +%s%3N
+}
+
+millis() {
+  awk -v s="$1" 'BEGIN { printf "%.1f", s * 1000 }'
+}
+
+run_mode() {
+  local mode=$1
+  shift
+  local log="target/startup-$mode.log"
+  local start
+  start=$(now_ms)
+  "$@" > "$log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null; wait $pid 2>/dev/null || true" RETURN
+  # /actuator/info answers without touching the database, so this is the time to accept traffic.
+  until curl -sf "$URL/actuator/info" > /dev/null; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "$mode: exited during startup, see $log" >&2
+      return 1
+    fi
+    sleep 0.05
+  done
+  local ready=$(( $(now_ms) - start ))
+  local first tenth
+  first=$(curl -sf -o /dev/null -w '%{time_total}' "$REQUEST")
+  for _ in $(seq 2 10); do
+    tenth=$(curl -sf -o /dev/null -w '%{time_total}' "$REQUEST")
+  done
+  local reported
+  reported=$(grep -o 'Started EntitlementApiApplication in [0-9.]*' "$log" | grep -o '[0-9.]*$' || echo '?')
+  printf '%-7s ready %6d ms  (Spring: %ss)  first request %8s ms  10th request %8s ms\n' \
+    "$mode" "$ready" "$reported" "$(millis "$first")" "$(millis "$tenth")" | tee -a "$RESULTS"
+}
+
+: > "$RESULTS"
+# Builds run in turn on the same target directory, so each mode is measured right after its build.
+mvn -q -DskipTests clean package
+JAR=$(ls target/spring-boot-app-*.jar | grep -v original | head -n 1)
+run_mode jvm java -jar "$JAR"
+
+mvn -q -Pcds -DskipTests "$AOT_ARGS" package
+run_mode aot-cds java -XX:SharedArchiveFile=target/spring-boot-app.jsa -Dspring.aot.enabled=true -jar "$JAR"
+
+if command -v native-image > /dev/null; then
+  mvn -q -Pnative -DskipTests "$AOT_ARGS" package
+  run_mode native target/spring-boot-app
+else
+  echo "native: skipped, native-image is not on the PATH" | tee -a "$RESULTS"
+fi
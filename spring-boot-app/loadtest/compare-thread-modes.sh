@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Runs loadtest/card-data-list.js against the app in platform-thread mode and in the
+# virtual-threads profile, then prints requests/s and p99 latency for both.
+# Needs Java 21, k6 and a reachable database (ENT_DB_* variables as for a normal run).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PORT=${PORT:-8080}
+# Raw throughput is measured: per-client admission control would turn a single-host k6 run into 429s.
+ENT_CARD_DATA_ADMISSION_ENABLED=${ENT_CARD_DATA_ADMISSION_ENABLED:-false}
+export PORT ENT_CARD_DATA_ADMISSION_ENABLED
+
+mvn -q -Pjava21 -DskipTests package
+JAR=$(ls target/spring-boot-app-*.jar | grep -v original | head -n 1)
+
+run_mode() {
+  local mode=$1 profiles=$2
+  SPRING_PROFILES_ACTIVE=$profiles java -jar "$JAR" > "target/loadtest-$mode.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" RETURN
+  until curl -sf "http://localhost:$PORT/api/card-data?limit=1" > /dev/null; do sleep 1; done
+  k6 run --quiet -e BASE_URL="http://localhost:$PORT" --summary-export "target/loadtest-$mode.json" \
+    loadtest/card-data-list.js
+}
+
+run_mode platform default
+run_mode virtual virtual-threads
+
+for mode in platform virtual; do
+  jq -r --arg mode "$mode" \
+    '"\($mode): \(.metrics.http_reqs.rate | floor) req/s, p99 \(.metrics.http_req_duration["p(99)"]) ms, failed \(.metrics.http_req_failed.value)"' \
+    "target/loadtest-$mode.json"
+done
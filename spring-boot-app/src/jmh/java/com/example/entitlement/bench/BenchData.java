@@ -0,0 +1,93 @@
+package com.example.entitlement.bench;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.repository.CardDataRepository;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Synthetic card rows and embedded databases shared by the benchmarks.
+ */
+final class BenchData {
+
+    static final String[] BRANDS = {"VISA", "MASTERCARD", "AMEX", "DISCOVER"};
+    static final String[] TYPES = {"CREDIT", "DEBIT", "PREPAID"};
+
+    private BenchData() {
+    }
+
+    static CardData card(int id) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        cd.setClientId(1_000 + id % 5_000);
+        cd.setCardBrand(BRANDS[id % BRANDS.length]);
+        cd.setCardType(TYPES[id % TYPES.length]);
+        cd.setCardNumber(String.valueOf(4_000_000_000_000_000L + id));
+        cd.setExpires(LocalDate.of(2025 + id % 8, 1 + id % 12, 28));
+        cd.setCvv(String.valueOf(100 + id % 900));
+        cd.setHasChip(id % 10 != 0);
+        cd.setNumCardsIssued(1 + id % 3);
+        cd.setCreditLimit(BigDecimal.valueOf(50_000L + (id % 2_000) * 2_500L, 2));
+        cd.setAcctOpenDate(LocalDate.of(2005 + id % 18, 1 + id % 12, 1 + id % 28));
+        cd.setYearPinLastChanged(2010 + id % 14);
+        cd.setCardOnDarkWeb(id % 97 == 0);
+        return cd;
+    }
+
+    static List<CardData> cards(int firstId, int count) {
+        List<CardData> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(card(firstId + i));
+        }
+        return rows;
+    }
+
+    /**
+     * A fresh in-memory H2 database with the test schema applied. {@code mode} selects an H2
+     * compatibility mode, e.g. {@code PostgreSQL} as a stand-in for a local Postgres server.
+     */
+    static DataSource h2(String mode) {
+        String url = "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"
+                + (mode == null ? "" : ";MODE=" + mode);
+        DataSource ds = new DriverManagerDataSource(url, "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(ds);
+        return ds;
+    }
+
+    /**
+     * A database for the write/query benchmarks: {@code h2}, {@code h2-postgres} (H2 in PostgreSQL
+     * mode) or {@code postgres}, which connects to {@code -Dbench.postgres.url} (user/password from
+     * {@code bench.postgres.user}/{@code bench.postgres.password}) and expects the schema to exist.
+     */
+    static DataSource database(String target) {
+        return switch (target) {
+            case "h2" -> h2(null);
+            case "h2-postgres" -> h2("PostgreSQL");
+            case "postgres" -> new DriverManagerDataSource(
+                    System.getProperty("bench.postgres.url", "jdbc:postgresql://localhost:5432/entitlement"),
+                    System.getProperty("bench.postgres.user", "postgres"),
+                    System.getProperty("bench.postgres.password", "postgres"));
+            default -> throw new IllegalArgumentException("Unknown benchmark database: " + target);
+        };
+    }
+
+    static CardDataRepository seed(DataSource ds, int rows) {
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.update("DELETE FROM dbo.card_data");
+        CardDataRepository repository = new CardDataRepository(jdbc, "dbo", 500, new CompositeMeterRegistry());
+        for (int first = 0; first < rows; first += 10_000) {
+            repository.batchInsert(cards(first, Math.min(10_000, rows - first)));
+        }
+        return repository;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.entitlement.bench;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.repository.CardDataRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput (rows/s) of one chunk written per transaction, comparing single-row inserts,
+ * JDBC batching and the COPY path. Both default databases are H2, where the COPY path falls back to
+ * batching; only {@code -p database=postgres} (a real server, see {@link BenchData#database(String)})
+ * measures COPY.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardDataBulkInsertBenchmark {
+
+    static final int CHUNK = 1_000;
+
+    @Param({"h2", "h2-postgres"})
+    public String database;
+
+    private CardDataRepository repository;
+    private TransactionTemplate transactions;
+    private JdbcTemplate jdbc;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DataSource ds = BenchData.database(database);
+        jdbc = new JdbcTemplate(ds);
+        repository = new CardDataRepository(jdbc, "dbo", 500, new CompositeMeterRegistry());
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(ds));
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbc.update("DELETE FROM dbo.card_data");
+        nextId = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public Integer singleRowInserts() {
+        List<CardData> chunk = nextChunk();
+        return transactions.execute(status -> {
+            int inserted = 0;
+            for (CardData cd : chunk) {
+                inserted += repository.insert(cd);
+            }
+            return inserted;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public Integer batchInsert() {
+        List<CardData> chunk = nextChunk();
+        return transactions.execute(status -> repository.batchInsert(chunk));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public Integer copyInsert() {
+        List<CardData> chunk = nextChunk();
+        return transactions.execute(status -> repository.copyInsert(chunk));
+    }
+
+    private List<CardData> nextChunk() {
+        List<CardData> chunk = BenchData.cards(nextId, CHUNK);
+        nextId += CHUNK;
+        return chunk;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.entitlement.bench;
+
+import com.example.entitlement.columnar.CardDataColumns;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.repository.CardDataRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link CardDataColumns} replica against the same queries through the repository on an
+ * embedded H2 database, which itself keeps the table in memory. The setup prints the replica's
+ * footprint next to the heap held by the same rows as {@link CardData} objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CardDataColumnsBenchmark {
+
+    private static final CardDataFilter BY_CLIENT = new CardDataFilter(null, null, 1_042, null, null, null, null, null);
+    private static final CardDataFilter NARROW = new CardDataFilter("VISA", "DEBIT", null, null, null, false,
+            new BigDecimal("1000.00"), new BigDecimal("20000.00"));
+    private static final Set<CardDataField> PAGE_FIELDS =
+            EnumSet.of(CardDataField.ID, CardDataField.CLIENT_ID, CardDataField.CREDIT_LIMIT);
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private CardDataRepository repository;
+    private CardDataColumns columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = BenchData.seed(BenchData.h2(null), rows);
+        long before = usedHeap();
+        List<CardData> objects = BenchData.cards(1, rows);
+        long objectBytes = usedHeap() - before;
+        columns = new CardDataColumns(rows);
+        objects.forEach(columns::put);
+        System.out.printf("%n%d rows: columnar %,d bytes, CardData objects ~%,d bytes%n",
+                rows, columns.bytes(), objectBytes);
+    }
+
+    @Benchmark
+    public List<CardData> columnarByType() {
+        return columns.query(CardDataFilter.byCardType("DEBIT"), 0, Integer.MAX_VALUE, CardDataField.ALL);
+    }
+
+    @Benchmark
+    public List<CardData> jdbcByType() {
+        return repository.findByCardType("DEBIT");
+    }
+
+    @Benchmark
+    public List<CardData> columnarByClient() {
+        return columns.query(BY_CLIENT, 0, 100, CardDataField.ALL);
+    }
+
+    @Benchmark
+    public List<CardData> jdbcByClient() {
+        return repository.findPage(BY_CLIENT, 0, 100, CardDataField.ALL);
+    }
+
+    @Benchmark
+    public List<CardData> columnarFilteredPage() {
+        return columns.query(NARROW, 0, 100, PAGE_FIELDS);
+    }
+
+    @Benchmark
+    public List<CardData> jdbcFilteredPage() {
+        return repository.findPage(NARROW, 0, 100, PAGE_FIELDS);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
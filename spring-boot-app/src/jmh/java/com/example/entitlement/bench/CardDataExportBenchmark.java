@@ -0,0 +1,89 @@
+package com.example.entitlement.bench;
+
+import com.example.entitlement.model.CardDataExport;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.service.CardDataExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.util.FileSystemUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows/s of a full CSV export by partition count, with as many export threads as partitions, so
+ * each partition has its own connection and file. Exports go to a temporary directory that is
+ * emptied after every iteration. {@code database=postgres} targets a real server, see
+ * {@link BenchData#database(String)}; it is reseeded with {@link #ROWS} rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CardDataExportBenchmark {
+
+    static final int ROWS = 200_000;
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"1", "2", "4", "8"})
+    public int partitions;
+
+    private CardDataExportService service;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        DataSource ds = BenchData.database(database);
+        CardDataRepository repository = BenchData.seed(ds, ROWS);
+        directory = Files.createTempDirectory("card-data-export-bench");
+        service = new CardDataExportService(repository, new DataSourceTransactionManager(ds), new ObjectMapper(),
+                directory.toString(), false, partitions, partitions, partitions);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clean() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+        Files.createDirectories(directory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.destroy();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long export() throws InterruptedException {
+        String id = service.start(partitions, false).id();
+        CardDataExport status;
+        while ((status = service.status(id).orElseThrow()).state() == CardDataExport.State.RUNNING) {
+            Thread.sleep(1);
+        }
+        if (status.state() != CardDataExport.State.COMPLETED) {
+            throw new IllegalStateException("Export failed: " + status.errors());
+        }
+        return status.bytesWritten();
+    }
+}
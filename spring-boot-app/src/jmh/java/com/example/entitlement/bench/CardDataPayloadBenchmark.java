@@ -0,0 +1,111 @@
+package com.example.entitlement.bench;
+
+import com.example.entitlement.codec.CardDataProtobuf;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of a {@code List<CardData>} response body in each negotiated format: JSON,
+ * Smile and CBOR through the Boot-configured Jackson mapper, and length-delimited protobuf through
+ * {@link CardDataProtobuf}. Payload sizes are printed once per trial, since JMH only reports time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CardDataPayloadBenchmark {
+
+    @Param({"json", "smile", "cbor", "protobuf"})
+    public String format;
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private List<CardData> cards;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cards = BenchData.cards(0, rows);
+        JsonFactory factory = switch (format) {
+            case "json", "protobuf" -> new JsonFactory();
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> throw new IllegalArgumentException(format);
+        };
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().factory(factory).build();
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, CardData.class));
+        reader = mapper.readerFor(mapper.getTypeFactory().constructCollectionType(List.class, CardData.class));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        encodeTo(bytes);
+        payload = bytes.toByteArray();
+        System.out.printf("%n%s, %d rows: %d bytes (%.1f bytes/row)%n",
+                format, rows, payload.length, (double) payload.length / rows);
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        CardDataJsonBenchmark.CountingSink sink = new CardDataJsonBenchmark.CountingSink();
+        encodeTo(sink);
+        return sink.bytes;
+    }
+
+    @Benchmark
+    public List<CardData> decode() throws IOException {
+        if (!format.equals("protobuf")) {
+            return reader.readValue(payload);
+        }
+        List<CardData> decoded = new ArrayList<>(rows);
+        CodedInputStream in = CodedInputStream.newInstance(payload);
+        CardData cd;
+        while ((cd = CardDataProtobuf.readDelimited(in)) != null) {
+            decoded.add(cd);
+        }
+        return decoded;
+    }
+
+    private void encodeTo(OutputStream sink) throws IOException {
+        if (!format.equals("protobuf")) {
+            writer.writeValue(sink, cards);
+            return;
+        }
+        CodedOutputStream out = CodedOutputStream.newInstance(sink, 8192);
+        for (CardData cd : cards) {
+            CardDataProtobuf.writeDelimited(cd, CardDataField.ALL, out);
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.entitlement.bench;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.repository.CardDataRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository queries against an embedded H2 database created from {@code schema.sql} and seeded
+ * with synthetic rows; covers SQL execution, driver decoding and row mapping together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CardDataRepositoryBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private CardDataRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = BenchData.seed(BenchData.h2(null), rows);
+    }
+
+    @Benchmark
+    public List<CardData> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public List<CardData> findByCardType() {
+        return repository.findByCardType("DEBIT");
+    }
+}
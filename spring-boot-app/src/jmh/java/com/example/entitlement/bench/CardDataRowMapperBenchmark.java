@@ -0,0 +1,94 @@
+package com.example.entitlement.bench;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.repository.CardDataRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link CardDataRowMapper#mapRow} per row over an in-memory result set, so the numbers
+ * reflect mapping alone and not driver I/O. {@code mapRowByName} is the original by-name mapper for
+ * comparison. Run with {@code -prof gc} to compare allocations per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardDataRowMapperBenchmark {
+
+    static final int ROWS = 10_000;
+
+    private SyntheticResultSet resultSet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        resultSet = new SyntheticResultSet();
+        resultSet.setAutoClose(false);
+        resultSet.addColumn("id", Types.INTEGER, 10, 0);
+        resultSet.addColumn("client_id", Types.INTEGER, 10, 0);
+        resultSet.addColumn("card_brand", Types.VARCHAR, 50, 0);
+        resultSet.addColumn("card_type", Types.VARCHAR, 50, 0);
+        resultSet.addColumn("card_number", Types.VARCHAR, 20, 0);
+        resultSet.addColumn("expires", Types.DATE, 10, 0);
+        resultSet.addColumn("cvv", Types.VARCHAR, 4, 0);
+        resultSet.addColumn("has_chip", Types.BOOLEAN, 1, 0);
+        resultSet.addColumn("num_cards_issued", Types.INTEGER, 10, 0);
+        resultSet.addColumn("credit_limit", Types.NUMERIC, 12, 2);
+        resultSet.addColumn("acct_open_date", Types.DATE, 10, 0);
+        resultSet.addColumn("year_pin_last_changed", Types.INTEGER, 10, 0);
+        resultSet.addColumn("card_on_dark_web", Types.BOOLEAN, 1, 0);
+        for (int i = 0; i < ROWS; i++) {
+            CardData cd = BenchData.card(i);
+            resultSet.addRow(cd.getId(), cd.getClientId(), cd.getCardBrand(), cd.getCardType(),
+                    cd.getCardNumber(), cd.getExpires(), cd.getCvv(), cd.getHasChip(),
+                    cd.getNumCardsIssued(), cd.getCreditLimit(), cd.getAcctOpenDate(),
+                    cd.getYearPinLastChanged(), cd.getCardOnDarkWeb());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapRow(Blackhole bh) throws SQLException {
+        mapAll(new CardDataRowMapper(), bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapRowProjected(Blackhole bh) throws SQLException {
+        mapAll(new CardDataRowMapper(EnumSet.of(CardDataField.ID, CardDataField.CLIENT_ID, CardDataField.CARD_TYPE)), bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapRowByName(Blackhole bh) throws SQLException {
+        mapAll(new LegacyCardDataRowMapper(), bh);
+    }
+
+    private void mapAll(RowMapper<CardData> mapper, Blackhole bh) throws SQLException {
+        resultSet.beforeFirst();
+        int rowNum = 0;
+        while (resultSet.next()) {
+            bh.consume(mapper.mapRow(resultSet, rowNum++));
+        }
+    }
+}
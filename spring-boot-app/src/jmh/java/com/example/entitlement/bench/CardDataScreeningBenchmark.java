@@ -0,0 +1,94 @@
+package com.example.entitlement.bench;
+
+import com.example.entitlement.model.CardDataScreenResult;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.service.CardDataChangeFeed;
+import com.example.entitlement.service.CardDataChangeRelay;
+import com.example.entitlement.service.CardDataScreeningService;
+import com.example.entitlement.service.CardDataVersion;
+import com.example.entitlement.service.CardNumberIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numbers screened per second against a 100k-card table on H2, with the {@link CardNumberIndex}
+ * ruling out most of them and with every number looked up in the database. One in a thousand
+ * screened numbers is on file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CardDataScreeningBenchmark {
+
+    static final int NUMBERS = 100_000;
+    static final int ROWS = 100_000;
+
+    @Param({"true", "false"})
+    public boolean filter;
+
+    private final List<String> numbers = new ArrayList<>(NUMBERS);
+    private CardNumberIndex index;
+    private CardDataScreeningService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DataSource ds = BenchData.h2(null);
+        CardDataRepository repository = BenchData.seed(ds, ROWS);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        CardDataChangeFeed changes = new CardDataChangeFeed(10_000, beans.getBeanProvider(CardDataChangeRelay.class));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(ds);
+        index = new CardNumberIndex(repository, changes, transactionManager, ROWS, 0.01, Duration.ofHours(1),
+                beans.getBeanProvider(MeterRegistry.class));
+        if (filter) {
+            index.start();
+            while (!index.isReady()) {
+                Thread.onSpinWait();
+            }
+            beans.addBean("cardNumberIndex", index);
+        }
+        service = new CardDataScreeningService(repository, new CardDataVersion(), changes, transactionManager,
+                beans.getBeanProvider(CardNumberIndex.class), 1000);
+        for (int i = 0; i < NUMBERS; i++) {
+            // BenchData.card(id) numbers are 4000000000000000 + id.
+            long number = i % 1000 == 0 ? 4_000_000_000_000_000L + i % ROWS : 5_000_000_000_000_000L + i;
+            numbers.add(String.valueOf(number));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (index.isRunning()) {
+            index.stop();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUMBERS)
+    public CardDataScreenResult screen() {
+        return service.screen(numbers.iterator());
+    }
+}
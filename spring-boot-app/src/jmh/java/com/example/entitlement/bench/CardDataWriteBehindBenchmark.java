@@ -0,0 +1,89 @@
+package com.example.entitlement.bench;
+
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.service.CardDataChangeFeed;
+import com.example.entitlement.service.CardDataChangeRelay;
+import com.example.entitlement.service.CardDataVersion;
+import com.example.entitlement.service.CardDataWriteBehind;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent single-card creates (rows/s across 16 threads): one auto-committed insert per row
+ * against {@link CardDataWriteBehind} batching them into shared commits. An in-memory H2 database
+ * has no log flush to amortize, so the gap there is smaller than on a durable server; use
+ * {@code -p database=postgres} as in {@link CardDataBulkInsertBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class CardDataWriteBehindBenchmark {
+
+    @Param({"h2"})
+    public String database;
+
+    private final AtomicInteger nextId = new AtomicInteger();
+    private JdbcTemplate jdbc;
+    private CardDataRepository repository;
+    private CardDataWriteBehind writer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DataSource ds = BenchData.database(database);
+        jdbc = new JdbcTemplate(ds);
+        repository = new CardDataRepository(jdbc, "dbo", 500, new CompositeMeterRegistry());
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        writer = new CardDataWriteBehind(repository, new CardDataVersion(),
+                new CardDataChangeFeed(10_000, beans.getBeanProvider(CardDataChangeRelay.class)),
+                new DataSourceTransactionManager(ds), 10_000, 500, Duration.ofMillis(5),
+                beans.getBeanProvider(MeterRegistry.class));
+        writer.start();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbc.update("DELETE FROM dbo.card_data");
+        nextId.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        writer.stop();
+    }
+
+    @Benchmark
+    public int directInsert() {
+        return repository.insert(BenchData.card(nextId.getAndIncrement()));
+    }
+
+    @Benchmark
+    public int writeBehind() {
+        return writer.submit(BenchData.card(nextId.getAndIncrement())).join();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.entitlement.bench;
+
+import org.h2.tools.SimpleResultSet;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * An in-memory result set that keeps dates as {@link LocalDate}, like a driver decoding them
+ * straight from the wire: {@code getObject(i, LocalDate.class)} returns the value as is, while
+ * {@code getDate(i)} has to build a {@link Date} on every call.
+ */
+final class SyntheticResultSet extends SimpleResultSet {
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        Object value = getObject(columnIndex);
+        return value == null ? null : Date.valueOf((LocalDate) value);
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        throw new SQLException("Unsupported conversion to " + type.getName());
+    }
+}
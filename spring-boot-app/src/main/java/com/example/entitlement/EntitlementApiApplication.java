@@ -1,11 +1,20 @@
 package com.example.entitlement;
 
+import com.example.entitlement.config.CardDataRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(CardDataRuntimeHints.class)
 public class EntitlementApiApplication {
     public static void main(String[] args) {
-        SpringApplication.run(EntitlementApiApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(EntitlementApiApplication.class, args);
+        // Training run for the CDS archive (-Pcds): start completely, then exit so the JVM writes the archive.
+        // Read from the environment rather than a conditional bean, which AOT would fix at build time.
+        if (context.getEnvironment().getProperty("app.startup.exit-on-ready", Boolean.class, false)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 }
@@ -0,0 +1,197 @@
+package com.example.entitlement.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for {@code /api/card-data}: each client (the authenticated principal, else the
+ * remote address) draws from a {@link Budget#SCAN} bucket for reads whose cost grows with the table
+ * and a {@link Budget#POINT} bucket for everything else. Lists answered from a cache or from memory,
+ * and conditional polls, are point reads. Scans also need a bulkhead permit. Refusals answer 429
+ * with {@code Retry-After}.
+ */
+public class CardDataAdmissionFilter extends OncePerRequestFilter {
+
+    static final String BASE_PATH = "/api/card-data";
+    private static final String NDJSON = "application/x-ndjson";
+
+    public enum Budget {
+        SCAN, POINT
+    }
+
+    private enum Outcome {
+        ADMITTED, RATE_LIMITED, SHED
+    }
+
+    private final Map<Budget, TokenBucketRateLimiter> limiters;
+    private final Semaphore scanPermits;
+    private final int maxConcurrentScans;
+    private final long shedRetryAfterSeconds;
+    private final boolean snapshotLists;
+    private final boolean columnarLists;
+    private final boolean conditionalGets;
+    private final Map<Budget, Map<Outcome, Counter>> decisions = new EnumMap<>(Budget.class);
+
+    public CardDataAdmissionFilter(TokenBucketRateLimiter scanLimiter,
+                                   TokenBucketRateLimiter pointLimiter,
+                                   int maxConcurrentScans,
+                                   Duration shedRetryAfter,
+                                   boolean snapshotLists,
+                                   boolean columnarLists,
+                                   boolean conditionalGets,
+                                   MeterRegistry registry) {
+        this.limiters = new EnumMap<>(Map.of(Budget.SCAN, scanLimiter, Budget.POINT, pointLimiter));
+        this.scanPermits = new Semaphore(maxConcurrentScans);
+        this.maxConcurrentScans = maxConcurrentScans;
+        this.shedRetryAfterSeconds = Math.max(1, shedRetryAfter.toSeconds());
+        this.snapshotLists = snapshotLists;
+        this.columnarLists = columnarLists;
+        this.conditionalGets = conditionalGets;
+        for (Budget budget : Budget.values()) {
+            Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                outcomes.put(outcome, Counter.builder("card_data.admission.requests")
+                        .tag("budget", budget.name().toLowerCase(Locale.ROOT))
+                        .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                        .register(registry));
+            }
+            decisions.put(budget, outcomes);
+        }
+        registry.gauge("card_data.admission.scans.active", scanPermits,
+                permits -> maxConcurrentScans - permits.availablePermits());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Budget budget = classify(request);
+        if (budget == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long waitNanos = limiters.get(budget).tryAcquire(clientId(request));
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            reject(response, budget, Outcome.RATE_LIMITED, retryAfterSeconds,
+                    "Rate limit exceeded for " + budget.name().toLowerCase(Locale.ROOT) + " requests");
+            return;
+        }
+        if (budget == Budget.POINT) {
+            decisions.get(budget).get(Outcome.ADMITTED).increment();
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!scanPermits.tryAcquire()) {
+            reject(response, budget, Outcome.SHED, shedRetryAfterSeconds,
+                    "Too many concurrent scans (limit " + maxConcurrentScans + ")");
+            return;
+        }
+        decisions.get(budget).get(Outcome.ADMITTED).increment();
+        boolean releaseLater = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Streamed responses hold their connection until the body is written, not until the handler returns.
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+                releaseLater = true;
+            }
+        } finally {
+            if (!releaseLater) {
+                scanPermits.release();
+            }
+        }
+    }
+
+    // Null when the request is not admission-controlled.
+    Budget classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals(BASE_PATH + "/changes")) {
+            return null;
+        }
+        // Screening and bulk inserts hold a connection for as long as the input streams in.
+        if (path.equals(BASE_PATH + "/screen") || path.equals(BASE_PATH + "/bulk")) {
+            return Budget.SCAN;
+        }
+        if (path.startsWith(BASE_PATH + "/exports") && HttpMethod.POST.matches(request.getMethod())) {
+            return Budget.SCAN;
+        }
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return Budget.POINT;
+        }
+        if (path.equals(BASE_PATH + "/stats")) {
+            return Budget.SCAN;
+        }
+        if (!path.equals(BASE_PATH)) {
+            return Budget.POINT;
+        }
+        // The NDJSON stream ignores ids and paging.
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.contains(NDJSON)) {
+            return Budget.SCAN;
+        }
+        boolean bounded = request.getParameter("ids") != null || request.getParameter("afterId") != null
+                || request.getParameter("limit") != null;
+        // A poll with If-None-Match mostly ends in a 304 without a query.
+        boolean poll = conditionalGets && request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        if (bounded || columnarLists || poll) {
+            return Budget.POINT;
+        }
+        boolean plain = request.getParameterMap().keySet().stream().allMatch("cardType"::equals);
+        String cardType = request.getParameter("cardType");
+        boolean byType = cardType != null && !cardType.isBlank();
+        // By-type lists are cached; the snapshot also holds the unfiltered one.
+        return plain && (byType || snapshotLists) ? Budget.POINT : Budget.SCAN;
+    }
+
+    // Never a header the client sets itself: each new value would get a fresh bucket.
+    private static String clientId(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, Budget budget, Outcome outcome, long retryAfterSeconds,
+                        String message) throws IOException {
+        decisions.get(budget).get(outcome).increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), message);
+    }
+
+    private final class ReleaseOnComplete implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            scanPermits.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.entitlement.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * One token bucket per key, refilled at {@code permitsPerSecond} up to {@code burst} tokens.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the instant at which it will be full again
+ * (the GCRA formulation of a token bucket), so taking a token is one compare-and-set with no lock
+ * and no refill bookkeeping. Idle buckets are full by definition and are dropped once they have
+ * been idle for a full refill; at most {@code maxKeys} are kept, and an evicted key simply starts
+ * over with a full bucket.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier nanoClock;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst, long maxKeys) {
+        this(permitsPerSecond, burst, maxKeys, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, long maxKeys, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstNanos = intervalNanos * burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(burstNanos, 1_000_000_000L)))
+                .build();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token from {@code key}'s bucket. Returns 0 if one was available, otherwise the
+     * nanoseconds until the next token; a refused call takes nothing.
+     */
+    public long tryAcquire(String key) {
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.entitlement.codec;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataView;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Hand-written protobuf codec for {@link CardData}, matching {@code src/main/proto/card_data.proto}.
+ * Field numbers are {@link CardDataField} ordinals plus one.
+ */
+public final class CardDataProtobuf {
+
+    private CardDataProtobuf() {
+    }
+
+    public static int serializedSize(CardData cd, Set<CardDataField> fields) {
+        int size = 0;
+        for (CardDataField field : fields) {
+            Object value = field.read(cd);
+            if (value != null) {
+                size += fieldSize(field, value);
+            }
+        }
+        return size;
+    }
+
+    public static void write(CardData cd, Set<CardDataField> fields, CodedOutputStream out) throws IOException {
+        for (CardDataField field : fields) {
+            Object value = field.read(cd);
+            if (value != null) {
+                writeField(field, value, out);
+            }
+        }
+    }
+
+    public static void writeDelimited(CardData cd, Set<CardDataField> fields, CodedOutputStream out) throws IOException {
+        out.writeUInt32NoTag(serializedSize(cd, fields));
+        write(cd, fields, out);
+    }
+
+    /**
+     * Writes every {@link CardData} or {@link CardDataView} of {@code rows} as a length-delimited message.
+     */
+    public static void writeDelimited(Iterable<?> rows, CodedOutputStream out) throws IOException {
+        for (Object row : rows) {
+            if (row instanceof CardDataView view) {
+                writeDelimited(view.card(), view.fields(), out);
+            } else if (row instanceof CardData cd) {
+                writeDelimited(cd, CardDataField.ALL, out);
+            } else {
+                throw new IllegalArgumentException("Cannot encode " + row.getClass().getName() + " as protobuf");
+            }
+        }
+    }
+
+    public static CardData read(CodedInputStream in) throws IOException {
+        CardData cd = new CardData();
+        CardDataField[] fields = CardDataField.values();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            int number = WireFormat.getTagFieldNumber(tag);
+            if (number < 1 || number > fields.length) {
+                in.skipField(tag);
+                continue;
+            }
+            switch (fields[number - 1]) {
+                case ID -> cd.setId(in.readInt32());
+                case CLIENT_ID -> cd.setClientId(in.readInt32());
+                case CARD_BRAND -> cd.setCardBrand(in.readString());
+                case CARD_TYPE -> cd.setCardType(in.readString());
+                case CARD_NUMBER -> cd.setCardNumber(in.readString());
+                case EXPIRES -> cd.setExpires(LocalDate.ofEpochDay(in.readInt32()));
+                case CVV -> cd.setCvv(in.readString());
+                case HAS_CHIP -> cd.setHasChip(in.readBool());
+                case NUM_CARDS_ISSUED -> cd.setNumCardsIssued(in.readInt32());
+                case CREDIT_LIMIT -> cd.setCreditLimit(decimal(in.readString()));
+                case ACCT_OPEN_DATE -> cd.setAcctOpenDate(LocalDate.ofEpochDay(in.readInt32()));
+                case YEAR_PIN_LAST_CHANGED -> cd.setYearPinLastChanged(in.readInt32());
+                case CARD_ON_DARK_WEB -> cd.setCardOnDarkWeb(in.readBool());
+                case VERSION -> cd.setVersion(in.readInt64());
+            }
+        }
+        return cd;
+    }
+
+    // Null at the end of the stream.
+    public static CardData readDelimited(CodedInputStream in) throws IOException {
+        if (in.isAtEnd()) {
+            return null;
+        }
+        int limit = in.pushLimit(in.readRawVarint32());
+        CardData cd = read(in);
+        in.popLimit(limit);
+        return cd;
+    }
+
+    private static int fieldSize(CardDataField field, Object value) {
+        int number = field.ordinal() + 1;
+        return switch (field) {
+            case ID, CLIENT_ID, NUM_CARDS_ISSUED, YEAR_PIN_LAST_CHANGED ->
+                    CodedOutputStream.computeInt32Size(number, (Integer) value);
+            case CARD_BRAND, CARD_TYPE, CARD_NUMBER, CVV ->
+                    CodedOutputStream.computeStringSize(number, (String) value);
+            case EXPIRES, ACCT_OPEN_DATE ->
+                    CodedOutputStream.computeInt32Size(number, Math.toIntExact(((LocalDate) value).toEpochDay()));
+            case HAS_CHIP, CARD_ON_DARK_WEB -> CodedOutputStream.computeBoolSize(number, (Boolean) value);
+            case CREDIT_LIMIT -> CodedOutputStream.computeStringSize(number, ((BigDecimal) value).toPlainString());
+            case VERSION -> CodedOutputStream.computeInt64Size(number, (Long) value);
+        };
+    }
+
+    private static void writeField(CardDataField field, Object value, CodedOutputStream out) throws IOException {
+        int number = field.ordinal() + 1;
+        switch (field) {
+            case ID, CLIENT_ID, NUM_CARDS_ISSUED, YEAR_PIN_LAST_CHANGED -> out.writeInt32(number, (Integer) value);
+            case CARD_BRAND, CARD_TYPE, CARD_NUMBER, CVV -> out.writeString(number, (String) value);
+            case EXPIRES, ACCT_OPEN_DATE -> out.writeInt32(number, Math.toIntExact(((LocalDate) value).toEpochDay()));
+            case HAS_CHIP, CARD_ON_DARK_WEB -> out.writeBool(number, (Boolean) value);
+            case CREDIT_LIMIT -> out.writeString(number, ((BigDecimal) value).toPlainString());
+            case VERSION -> out.writeInt64(number, (Long) value);
+        }
+    }
+
+    private static BigDecimal decimal(String value) throws InvalidProtocolBufferException {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidProtocolBufferException("credit_limit is not a decimal: " + value);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.entitlement.codec;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataView;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Writes {@link CardData} and {@link CardDataView} bodies as {@code application/x-protobuf}, and
+ * reads a single {@link CardData}. A single card is one plain message; a list is a sequence of
+ * length-delimited messages encoded straight into the response, without building the payload first.
+ * <p>
+ * Bodies of any other type (stats, bulk results, errors) are not claimed, so those endpoints answer
+ * a protobuf-only {@code Accept} with 406.
+ */
+public class CardDataProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType PROTOBUF = MediaType.parseMediaType(PROTOBUF_VALUE);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    public CardDataProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return isCard(clazz) || Iterable.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return type == CardData.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (isCard(clazz)) {
+            return true;
+        }
+        if (!Iterable.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        // List<CardData>, List<CardDataView> or List<?> as declared by the list endpoints.
+        Class<?> element = ResolvableType.forType(type != null ? type : clazz).as(Iterable.class).resolveGeneric(0);
+        return element == null || element == Object.class || isCard(element);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return readInternal(CardData.class, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        try {
+            return CardDataProtobuf.read(CodedInputStream.newInstance(inputMessage.getBody()));
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf CardData: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object body, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        CodedOutputStream out = CodedOutputStream.newInstance(outputMessage.getBody(), BUFFER_SIZE);
+        if (body instanceof Iterable<?> rows) {
+            try {
+                CardDataProtobuf.writeDelimited(rows, out);
+            } catch (IllegalArgumentException e) {
+                throw new HttpMessageNotWritableException(e.getMessage(), e);
+            }
+        } else if (body instanceof CardDataView view) {
+            CardDataProtobuf.write(view.card(), view.fields(), out);
+        } else {
+            CardDataProtobuf.write((CardData) body, CardDataField.ALL, out);
+        }
+        out.flush();
+    }
+
+    private static boolean isCard(Class<?> clazz) {
+        return CardData.class.isAssignableFrom(clazz) || CardDataView.class == clazz;
+    }
+}
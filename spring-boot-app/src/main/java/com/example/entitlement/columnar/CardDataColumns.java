@@ -0,0 +1,466 @@
+package com.example.entitlement.columnar;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column-oriented copy of {@code card_data}: one primitive array per column instead of one
+ * {@link CardData} object per row, with brand, type and client indexes. Not thread-safe.
+ */
+public final class CardDataColumns {
+
+    private static final CardDataField[] FIELDS = CardDataField.values();
+    private static final int NULL_CODE = -1;
+    private static final int ANY_CODE = -2;
+    private static final int END = IntIntHashMap.ABSENT;
+    private static final int CREDIT_LIMIT_SCALE = 2;
+
+    private final IntIntHashMap slotById;
+    private final IntIntHashMap firstSlotByClient;
+    private final BitSet live = new BitSet();
+    private final BitSet[] nulls = new BitSet[FIELDS.length];
+    private final Dictionary brands = new Dictionary();
+    private final Dictionary types = new Dictionary();
+    private final List<BitSet> slotsByBrand = new ArrayList<>();
+    private final List<BitSet> slotsByType = new ArrayList<>();
+    private final BitSet hasChip = new BitSet();
+    private final BitSet cardOnDarkWeb = new BitSet();
+    private final DigitColumn cardNumber = new DigitColumn();
+    private final DigitColumn cvv = new DigitColumn();
+
+    private int[] id;
+    private int[] clientId;
+    private int[] nextSlotOfClient;
+    private int[] brand;
+    private int[] type;
+    private int[] expires;
+    private int[] numCardsIssued;
+    private long[] creditLimit;
+    private int[] acctOpenDate;
+    private int[] yearPinLastChanged;
+    private long[] version;
+    private int slots;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    public CardDataColumns(int expectedRows) {
+        int capacity = Math.max(16, expectedRows);
+        slotById = new IntIntHashMap(capacity);
+        firstSlotByClient = new IntIntHashMap(Math.max(16, capacity / 4));
+        for (int i = 0; i < nulls.length; i++) {
+            nulls[i] = new BitSet();
+        }
+        resize(capacity);
+    }
+
+    public int size() {
+        return slotById.size();
+    }
+
+    // A missing version counts as 1, the version of a freshly inserted row.
+    public void put(CardData cd) {
+        if (cd.getId() == null) {
+            throw new IllegalArgumentException("card_data rows need an id");
+        }
+        int slot = slotById.get(cd.getId());
+        if (slot == IntIntHashMap.ABSENT) {
+            slot = allocate();
+            slotById.put(cd.getId(), slot);
+            live.set(slot);
+        } else {
+            unindex(slot);
+        }
+        write(slot, cd);
+        index(slot);
+    }
+
+    public boolean remove(int key) {
+        int slot = slotById.get(key);
+        if (slot == IntIntHashMap.ABSENT) {
+            return false;
+        }
+        unindex(slot);
+        slotById.remove(key);
+        live.clear(slot);
+        cardNumber.set(slot, null);
+        cvv.set(slot, null);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    /**
+     * Like {@link com.example.entitlement.repository.CardDataRepository#findPage}, with only
+     * {@code fields} set.
+     */
+    public List<CardData> query(CardDataFilter filter, int afterId, int limit, Set<CardDataField> fields) {
+        Criteria criteria = criteria(filter, afterId);
+        if (criteria == null) {
+            return new ArrayList<>();
+        }
+        long[] matches = new long[64];
+        int count = 0;
+        if (filter.clientId() != null) {
+            for (int slot = firstSlotByClient.get(filter.clientId()); slot != END; slot = nextSlotOfClient[slot]) {
+                if (matches(slot, criteria)) {
+                    matches = add(matches, count++, slot);
+                }
+            }
+        } else {
+            BitSet candidates = criteria.type() != ANY_CODE ? slotsByType.get(criteria.type())
+                    : criteria.brand() != ANY_CODE ? slotsByBrand.get(criteria.brand()) : live;
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                if (matches(slot, criteria)) {
+                    matches = add(matches, count++, slot);
+                }
+            }
+        }
+        Arrays.sort(matches, 0, count);
+        int n = Math.min(count, limit);
+        boolean[] wanted = new boolean[FIELDS.length];
+        fields.forEach(field -> wanted[field.ordinal()] = true);
+        List<CardData> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            rows.add(read((int) (matches[i] & 0xFFFFFFFFL), wanted));
+        }
+        return rows;
+    }
+
+    public long bytes() {
+        long total = (long) id.length * (Integer.BYTES * 9 + Long.BYTES * 2);
+        total += slotById.bytes() + firstSlotByClient.bytes() + cardNumber.bytes() + cvv.bytes();
+        total += bits(live) + bits(hasChip) + bits(cardOnDarkWeb);
+        for (BitSet bitSet : nulls) {
+            total += bits(bitSet);
+        }
+        for (BitSet bitSet : slotsByBrand) {
+            total += bits(bitSet);
+        }
+        for (BitSet bitSet : slotsByType) {
+            total += bits(bitSet);
+        }
+        return total;
+    }
+
+    private static long bits(BitSet bitSet) {
+        return bitSet.size() / Byte.SIZE;
+    }
+
+    // Id in the high 32 bits, slot in the low ones, so sorting the packed values sorts by id.
+    private long[] add(long[] matches, int index, int slot) {
+        long[] target = index < matches.length ? matches : Arrays.copyOf(matches, matches.length * 2);
+        target[index] = (long) id[slot] << 32 | slot;
+        return target;
+    }
+
+    private boolean matches(int slot, Criteria c) {
+        if (id[slot] <= c.afterId()) {
+            return false;
+        }
+        if (c.brand() != ANY_CODE && brand[slot] != c.brand()) {
+            return false;
+        }
+        if (c.type() != ANY_CODE && type[slot] != c.type()) {
+            return false;
+        }
+        if (c.clientId() != null && (isNull(CardDataField.CLIENT_ID, slot) || clientId[slot] != c.clientId())) {
+            return false;
+        }
+        if (c.expires() && (isNull(CardDataField.EXPIRES, slot)
+                || expires[slot] < c.expiresFrom() || expires[slot] > c.expiresTo())) {
+            return false;
+        }
+        if (c.cardOnDarkWeb() != null && (isNull(CardDataField.CARD_ON_DARK_WEB, slot)
+                || cardOnDarkWeb.get(slot) != c.cardOnDarkWeb())) {
+            return false;
+        }
+        return !c.creditLimit() || !isNull(CardDataField.CREDIT_LIMIT, slot)
+                && creditLimit[slot] >= c.minCreditLimit() && creditLimit[slot] <= c.maxCreditLimit();
+    }
+
+    private Criteria criteria(CardDataFilter filter, int afterId) {
+        int brandCode = ANY_CODE;
+        if (filter.cardBrand() != null && (brandCode = brands.find(filter.cardBrand())) == NULL_CODE) {
+            return null;
+        }
+        int typeCode = ANY_CODE;
+        if (filter.cardType() != null && (typeCode = types.find(filter.cardType())) == NULL_CODE) {
+            return null;
+        }
+        boolean byExpires = filter.expiresFrom() != null || filter.expiresTo() != null;
+        boolean byLimit = filter.minCreditLimit() != null || filter.maxCreditLimit() != null;
+        return new Criteria(afterId, brandCode, typeCode, filter.clientId(),
+                byExpires,
+                filter.expiresFrom() == null ? Integer.MIN_VALUE : bound(filter.expiresFrom()),
+                filter.expiresTo() == null ? Integer.MAX_VALUE : bound(filter.expiresTo()),
+                filter.cardOnDarkWeb(),
+                byLimit,
+                filter.minCreditLimit() == null ? Long.MIN_VALUE : hundredths(filter.minCreditLimit(), RoundingMode.CEILING),
+                filter.maxCreditLimit() == null ? Long.MAX_VALUE : hundredths(filter.maxCreditLimit(), RoundingMode.FLOOR));
+    }
+
+    private record Criteria(int afterId, int brand, int type, Integer clientId,
+                            boolean expires, int expiresFrom, int expiresTo,
+                            Boolean cardOnDarkWeb,
+                            boolean creditLimit, long minCreditLimit, long maxCreditLimit) {
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slots == id.length) {
+            resize(id.length + (id.length >> 1));
+        }
+        return slots++;
+    }
+
+    private void resize(int capacity) {
+        id = id == null ? new int[capacity] : Arrays.copyOf(id, capacity);
+        clientId = grow(clientId, capacity);
+        nextSlotOfClient = grow(nextSlotOfClient, capacity);
+        brand = grow(brand, capacity);
+        type = grow(type, capacity);
+        expires = grow(expires, capacity);
+        numCardsIssued = grow(numCardsIssued, capacity);
+        creditLimit = creditLimit == null ? new long[capacity] : Arrays.copyOf(creditLimit, capacity);
+        acctOpenDate = grow(acctOpenDate, capacity);
+        yearPinLastChanged = grow(yearPinLastChanged, capacity);
+        version = version == null ? new long[capacity] : Arrays.copyOf(version, capacity);
+        cardNumber.resize(capacity);
+        cvv.resize(capacity);
+    }
+
+    private static int[] grow(int[] column, int capacity) {
+        return column == null ? new int[capacity] : Arrays.copyOf(column, capacity);
+    }
+
+    private void write(int slot, CardData cd) {
+        id[slot] = cd.getId();
+        setInt(clientId, CardDataField.CLIENT_ID, slot, cd.getClientId());
+        brand[slot] = brands.code(cd.getCardBrand());
+        type[slot] = types.code(cd.getCardType());
+        cardNumber.set(slot, cd.getCardNumber());
+        setInt(expires, CardDataField.EXPIRES, slot, cd.getExpires() == null ? null : day(cd.getExpires()));
+        cvv.set(slot, cd.getCvv());
+        setBoolean(hasChip, CardDataField.HAS_CHIP, slot, cd.getHasChip());
+        setInt(numCardsIssued, CardDataField.NUM_CARDS_ISSUED, slot, cd.getNumCardsIssued());
+        nulls[CardDataField.CREDIT_LIMIT.ordinal()].set(slot, cd.getCreditLimit() == null);
+        // NUMERIC(12, 2): the database rounds the same way on write.
+        creditLimit[slot] = cd.getCreditLimit() == null ? 0 : hundredths(cd.getCreditLimit(), RoundingMode.HALF_UP);
+        setInt(acctOpenDate, CardDataField.ACCT_OPEN_DATE, slot, cd.getAcctOpenDate() == null ? null : day(cd.getAcctOpenDate()));
+        setInt(yearPinLastChanged, CardDataField.YEAR_PIN_LAST_CHANGED, slot, cd.getYearPinLastChanged());
+        setBoolean(cardOnDarkWeb, CardDataField.CARD_ON_DARK_WEB, slot, cd.getCardOnDarkWeb());
+        version[slot] = cd.getVersion() == null ? 1 : cd.getVersion();
+    }
+
+    private CardData read(int slot, boolean[] wanted) {
+        CardData cd = new CardData();
+        if (wanted[CardDataField.ID.ordinal()]) cd.setId(id[slot]);
+        if (wanted[CardDataField.CLIENT_ID.ordinal()]) cd.setClientId(getInt(clientId, CardDataField.CLIENT_ID, slot));
+        if (wanted[CardDataField.CARD_BRAND.ordinal()]) cd.setCardBrand(brands.value(brand[slot]));
+        if (wanted[CardDataField.CARD_TYPE.ordinal()]) cd.setCardType(types.value(type[slot]));
+        if (wanted[CardDataField.CARD_NUMBER.ordinal()]) cd.setCardNumber(cardNumber.get(slot));
+        if (wanted[CardDataField.EXPIRES.ordinal()]) cd.setExpires(getDate(expires, CardDataField.EXPIRES, slot));
+        if (wanted[CardDataField.CVV.ordinal()]) cd.setCvv(cvv.get(slot));
+        if (wanted[CardDataField.HAS_CHIP.ordinal()]) cd.setHasChip(getBoolean(hasChip, CardDataField.HAS_CHIP, slot));
+        if (wanted[CardDataField.NUM_CARDS_ISSUED.ordinal()]) cd.setNumCardsIssued(getInt(numCardsIssued, CardDataField.NUM_CARDS_ISSUED, slot));
+        if (wanted[CardDataField.CREDIT_LIMIT.ordinal()] && !isNull(CardDataField.CREDIT_LIMIT, slot)) {
+            cd.setCreditLimit(BigDecimal.valueOf(creditLimit[slot], CREDIT_LIMIT_SCALE));
+        }
+        if (wanted[CardDataField.ACCT_OPEN_DATE.ordinal()]) cd.setAcctOpenDate(getDate(acctOpenDate, CardDataField.ACCT_OPEN_DATE, slot));
+        if (wanted[CardDataField.YEAR_PIN_LAST_CHANGED.ordinal()]) cd.setYearPinLastChanged(getInt(yearPinLastChanged, CardDataField.YEAR_PIN_LAST_CHANGED, slot));
+        if (wanted[CardDataField.CARD_ON_DARK_WEB.ordinal()]) cd.setCardOnDarkWeb(getBoolean(cardOnDarkWeb, CardDataField.CARD_ON_DARK_WEB, slot));
+        if (wanted[CardDataField.VERSION.ordinal()]) cd.setVersion(version[slot]);
+        return cd;
+    }
+
+    private void index(int slot) {
+        if (brand[slot] != NULL_CODE) {
+            bitSet(slotsByBrand, brand[slot]).set(slot);
+        }
+        if (type[slot] != NULL_CODE) {
+            bitSet(slotsByType, type[slot]).set(slot);
+        }
+        if (!isNull(CardDataField.CLIENT_ID, slot)) {
+            nextSlotOfClient[slot] = firstSlotByClient.get(clientId[slot]);
+            firstSlotByClient.put(clientId[slot], slot);
+        }
+    }
+
+    private void unindex(int slot) {
+        if (brand[slot] != NULL_CODE) {
+            slotsByBrand.get(brand[slot]).clear(slot);
+        }
+        if (type[slot] != NULL_CODE) {
+            slotsByType.get(type[slot]).clear(slot);
+        }
+        if (!isNull(CardDataField.CLIENT_ID, slot)) {
+            int client = clientId[slot];
+            int first = firstSlotByClient.get(client);
+            if (first == slot) {
+                if (nextSlotOfClient[slot] == END) {
+                    firstSlotByClient.remove(client);
+                } else {
+                    firstSlotByClient.put(client, nextSlotOfClient[slot]);
+                }
+            } else {
+                int previous = first;
+                while (nextSlotOfClient[previous] != slot) {
+                    previous = nextSlotOfClient[previous];
+                }
+                nextSlotOfClient[previous] = nextSlotOfClient[slot];
+            }
+        }
+    }
+
+    private static BitSet bitSet(List<BitSet> byCode, int code) {
+        while (byCode.size() <= code) {
+            byCode.add(new BitSet());
+        }
+        return byCode.get(code);
+    }
+
+    private boolean isNull(CardDataField field, int slot) {
+        return nulls[field.ordinal()].get(slot);
+    }
+
+    private void setInt(int[] column, CardDataField field, int slot, Integer value) {
+        nulls[field.ordinal()].set(slot, value == null);
+        column[slot] = value == null ? 0 : value;
+    }
+
+    private Integer getInt(int[] column, CardDataField field, int slot) {
+        return isNull(field, slot) ? null : column[slot];
+    }
+
+    private LocalDate getDate(int[] column, CardDataField field, int slot) {
+        return isNull(field, slot) ? null : LocalDate.ofEpochDay(column[slot]);
+    }
+
+    private void setBoolean(BitSet column, CardDataField field, int slot, Boolean value) {
+        nulls[field.ordinal()].set(slot, value == null);
+        column.set(slot, Boolean.TRUE.equals(value));
+    }
+
+    private Boolean getBoolean(BitSet column, CardDataField field, int slot) {
+        return isNull(field, slot) ? null : column.get(slot);
+    }
+
+    private static int day(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    private static int bound(LocalDate date) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+
+    private static long hundredths(BigDecimal value, RoundingMode rounding) {
+        BigInteger scaled = value.setScale(CREDIT_LIMIT_SCALE, rounding).unscaledValue();
+        if (scaled.bitLength() >= Long.SIZE) {
+            return scaled.signum() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return scaled.longValue();
+    }
+
+    // Codes are never reused, so the dictionary only grows.
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        int find(String value) {
+            return codes.getOrDefault(value, NULL_CODE);
+        }
+
+        String value(int code) {
+            return code == NULL_CODE ? null : values.get(code);
+        }
+    }
+
+    // Up to 18 digits as value plus length, which keeps leading zeros; anything else in a map.
+    private static final class DigitColumn {
+
+        private static final byte NULL = -1;
+        private static final byte OTHER = -2;
+        private static final int MAX_DIGITS = 18;
+
+        private long[] digits = new long[0];
+        private byte[] lengths = new byte[0];
+        private final Map<Integer, String> others = new HashMap<>();
+
+        void resize(int capacity) {
+            digits = Arrays.copyOf(digits, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        void set(int slot, String value) {
+            if (lengths[slot] == OTHER) {
+                others.remove(slot);
+            }
+            if (value == null) {
+                lengths[slot] = NULL;
+            } else if (isDigits(value)) {
+                digits[slot] = Long.parseLong(value);
+                lengths[slot] = (byte) value.length();
+            } else {
+                lengths[slot] = OTHER;
+                others.put(slot, value);
+            }
+        }
+
+        String get(int slot) {
+            byte length = lengths[slot];
+            if (length == NULL) {
+                return null;
+            }
+            if (length == OTHER) {
+                return others.get(slot);
+            }
+            String value = Long.toString(digits[slot]);
+            return value.length() == length ? value : "0".repeat(length - value.length()) + value;
+        }
+
+        long bytes() {
+            return (long) digits.length * (Long.BYTES + 1) + others.size() * 64L;
+        }
+
+        private static boolean isDigits(String value) {
+            if (value.isEmpty() || value.length() > MAX_DIGITS) {
+                return false;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.entitlement.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code int -> int} map with linear probing, for indexes over millions of rows
+ * without a boxed entry per row. Values must not be negative: -1 means "absent".
+ */
+final class IntIntHashMap {
+
+    static final int ABSENT = -1;
+
+    private int[] keys;
+    private int[] values;
+    // values[i] == ABSENT marks a free slot, so every key, including 0, can be stored.
+    private int size;
+    private int mask;
+
+    IntIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    int get(int key) {
+        for (int i = index(key); ; i = (i + 1) & mask) {
+            if (values[i] == ABSENT) {
+                return ABSENT;
+            }
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+    }
+
+    void put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("negative value " + value);
+        }
+        for (int i = index(key); ; i = (i + 1) & mask) {
+            if (values[i] == ABSENT) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 4 > keys.length * 3) {
+                    rehash(keys.length << 1);
+                }
+                return;
+            }
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+    }
+
+    void remove(int key) {
+        int i = index(key);
+        while (values[i] != ABSENT && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == ABSENT) {
+            return;
+        }
+        values[i] = ABSENT;
+        size--;
+        // Backward-shift deletion: move later entries of the probe run into the gap so lookups
+        // never stop early, instead of leaving tombstones behind.
+        for (int gap = i, j = (i + 1) & mask; values[j] != ABSENT; j = (j + 1) & mask) {
+            int home = index(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                values[j] = ABSENT;
+                gap = j;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long bytes() {
+        return (long) keys.length * Integer.BYTES * 2;
+    }
+
+    private int index(int key) {
+        // Fibonacci hashing spreads sequential ids over the table.
+        return (key * 0x9E3779B9 >>> 16 ^ key * 0x9E3779B9) & mask;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != ABSENT) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, ABSENT);
+        mask = capacity - 1;
+    }
+}
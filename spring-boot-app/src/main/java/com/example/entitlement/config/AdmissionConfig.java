@@ -0,0 +1,49 @@
+package com.example.entitlement.config;
+
+import com.example.entitlement.admission.CardDataAdmissionFilter;
+import com.example.entitlement.admission.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Registers {@link CardDataAdmissionFilter} in front of the card data API. Rates are per client
+ * and per instance; {@code max-concurrent-scans} should stay well below the Hikari pool size so
+ * point reads and writes always find a connection.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "app.card-data.admission", name = "enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<CardDataAdmissionFilter> cardDataAdmissionFilter(
+            @Value("${app.card-data.admission.scan.permits-per-second:2}") double scanRate,
+            @Value("${app.card-data.admission.scan.burst:5}") int scanBurst,
+            @Value("${app.card-data.admission.point.permits-per-second:200}") double pointRate,
+            @Value("${app.card-data.admission.point.burst:400}") int pointBurst,
+            @Value("${app.card-data.admission.max-clients:100000}") long maxClients,
+            @Value("${app.card-data.admission.max-concurrent-scans:4}") int maxConcurrentScans,
+            @Value("${app.card-data.admission.shed-retry-after:1s}") Duration shedRetryAfter,
+            @Value("${app.card-data.snapshot.enabled:false}") boolean snapshotLists,
+            @Value("${app.card-data.columnar.enabled:false}") boolean columnarLists,
+            @Value("${app.card-data.conditional-get.enabled:false}") boolean conditionalGets,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        CardDataAdmissionFilter filter = new CardDataAdmissionFilter(
+                new TokenBucketRateLimiter(scanRate, scanBurst, maxClients),
+                new TokenBucketRateLimiter(pointRate, pointBurst, maxClients),
+                maxConcurrentScans, shedRetryAfter, snapshotLists, columnarLists, conditionalGets,
+                meterRegistry.getIfAvailable(CompositeMeterRegistry::new));
+        FilterRegistrationBean<CardDataAdmissionFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/card-data", "/api/card-data/*");
+        return registration;
+    }
+}
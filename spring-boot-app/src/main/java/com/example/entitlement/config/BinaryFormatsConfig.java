@@ -0,0 +1,50 @@
+package com.example.entitlement.config;
+
+import com.example.entitlement.codec.CardDataProtobufHttpMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Compact binary response formats, chosen by {@code Accept}: Smile ({@code application/x-jackson-smile})
+ * and CBOR ({@code application/cbor}) for every JSON body, protobuf ({@code application/x-protobuf})
+ * for card bodies.
+ * <p>
+ * Spring MVC already registers Smile and CBOR converters when the formats are on the classpath, but
+ * with plain mappers; they are replaced in place by ones built from Boot's
+ * {@link Jackson2ObjectMapperBuilder}, so {@code spring.jackson.*} settings apply to all three
+ * Jackson formats. Protobuf goes last so that {@code Accept: *}{@code /*} keeps getting JSON.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BinaryFormatsConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+    public BinaryFormatsConfig(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        this.builders = builders;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> {
+            if (converter instanceof MappingJackson2SmileHttpMessageConverter) {
+                return new MappingJackson2SmileHttpMessageConverter(builders.getObject().factory(new SmileFactory()).build());
+            }
+            if (converter instanceof MappingJackson2CborHttpMessageConverter) {
+                return new MappingJackson2CborHttpMessageConverter(builders.getObject().factory(new CBORFactory()).build());
+            }
+            return converter;
+        });
+        converters.add(new CardDataProtobufHttpMessageConverter());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.entitlement.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Bounded Caffeine caches for card lookups. Each cache is sized and expired independently: there
+ * are few card types but many ids. Stats are recorded so hit, miss and eviction counts can be read
+ * back through {@code /api/cache/stats}.
+ */
+@Configuration
+@EnableCaching
+@ConditionalOnProperty(prefix = "app.card-data.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheConfig {
+
+    public static final String CARD_DATA_BY_TYPE = "cardDataByType";
+    public static final String CARD_DATA_BY_ID = "cardDataById";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${app.card-data.cache.by-type-spec:maximumSize=64,expireAfterWrite=30s}") String byTypeSpec,
+                                     @Value("${app.card-data.cache.by-id-spec:maximumSize=100000,expireAfterWrite=5m}") String byIdSpec) {
+        SimpleCacheManager manager = new SimpleCacheManager();
+        manager.setCaches(List.of(
+                new CaffeineCache(CARD_DATA_BY_TYPE, Caffeine.from(byTypeSpec).recordStats().build()),
+                new CaffeineCache(CARD_DATA_BY_ID, Caffeine.from(byIdSpec).recordStats().build())));
+        return manager;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.entitlement.config;
+
+import com.example.entitlement.model.BulkDeleteResult;
+import com.example.entitlement.model.BulkInsertResult;
+import com.example.entitlement.model.BulkUpsertResult;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataArchiveStatus;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CardDataExport;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.model.CardDataIds;
+import com.example.entitlement.model.CardDataScreenResult;
+import com.example.entitlement.model.CardDataStats;
+import com.example.entitlement.model.CardDataView;
+import com.example.entitlement.model.CreditLimitUpdate;
+import com.example.entitlement.repository.CardDataRowMapper;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Reflection the application needs beyond what Spring AOT infers from the bean definitions, for
+ * the native image (and checked against in tests so it does not drift).
+ * <ul>
+ *     <li>Jackson binding of the API models, including those only written through the
+ *     {@code ObjectMapper} directly (snapshot, NDJSON streaming, change feed) where no controller
+ *     signature mentions them.</li>
+ *     <li>{@link CardDataRowMapper} and the {@link CardDataField} enum it maps through, so the
+ *     mapper can also be created reflectively in the image.</li>
+ *     <li>The Java 21 executor factory {@link VirtualThreadsConfig} looks up reflectively.</li>
+ * </ul>
+ */
+public class CardDataRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] BOUND_TYPES = {
+            CardData.class, CardDataFilter.class, CardDataIds.class, CardDataStats.class, CardDataView.class,
+            CardDataChange.class, CardDataExport.class, BulkDeleteResult.class, BulkInsertResult.class,
+            BulkUpsertResult.class, CardDataScreenResult.class, CardDataArchiveStatus.class, CreditLimitUpdate.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), BOUND_TYPES);
+        hints.reflection().registerType(CardDataRowMapper.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(CardDataField.class,
+                MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+        hints.reflection().registerType(TypeReference.of(Executors.class), type ->
+                type.withMethod("newVirtualThreadPerTaskExecutor", List.of(), ExecutableMode.INVOKE));
+    }
+}
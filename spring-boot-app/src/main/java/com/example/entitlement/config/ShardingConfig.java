@@ -0,0 +1,113 @@
+package com.example.entitlement.config;
+
+import com.example.entitlement.repository.ShardedCardDataRepository;
+import com.example.entitlement.sharding.CardDataShardRebalancer;
+import com.example.entitlement.sharding.ConsistentHashRing;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads {@code card_data} over the application's database ({@code shard-0}) plus one database per
+ * {@code app.card-data.shards.urls} entry ({@code shard-1}, {@code shard-2}, ...), each with the
+ * same schema, through a {@link ShardedCardDataRepository} that replaces the plain repository.
+ * Shard pools take the {@code spring.datasource.hikari.*} settings and, unless
+ * {@code app.card-data.shards.username}/{@code password} are set, the primary's driver and
+ * credentials.
+ * <p>
+ * Shard names, and so the ring, follow the order of the URLs: new shards are appended, and a
+ * {@link CardDataShardRebalancer} run (at start-up with {@code rebalance-on-start}) then moves
+ * the clients the new shard took over.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.card-data.shards", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardingConfig.class);
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public ShardedCardDataRepository shardedCardDataRepository(
+            DataSource dataSource,
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("${app.card-data.shards.urls}") List<String> urls,
+            @Value("${app.card-data.shards.username:}") String username,
+            @Value("${app.card-data.shards.password:}") String password,
+            @Value("${app.card-data.shards.virtual-nodes:256}") int virtualNodes,
+            @Value("${app.card-data.shards.merge-buffer:1000}") int mergeBuffer,
+            @Value("${app.card-data.shards.migrating:false}") boolean migrating,
+            @Value("${app.card-data.schema:dbo}") String schema,
+            @Value("${app.card-data.fetch-size:500}") int fetchSize,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable(CompositeMeterRegistry::new);
+        List<DataSource> dataSources = new ArrayList<>(urls.size() + 1);
+        List<String> names = new ArrayList<>(urls.size() + 1);
+        dataSources.add(dataSource);
+        names.add("shard-0");
+        for (String url : urls) {
+            String name = "shard-" + dataSources.size();
+            HikariDataSource shard = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(username.isEmpty() ? properties.determineUsername() : username)
+                    .password(password.isEmpty() ? properties.determinePassword() : password)
+                    .build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+            shard.setPoolName("card-data-" + name);
+            shard.setMetricRegistry(registry);
+            dataSources.add(shard);
+            names.add(name);
+        }
+        ShardedCardDataRepository repository = new ShardedCardDataRepository(dataSources,
+                new ConsistentHashRing(names, virtualNodes), schema, fetchSize, mergeBuffer, registry);
+        repository.setMigrating(migrating);
+        return repository;
+    }
+
+    @Bean
+    public CardDataShardRebalancer cardDataShardRebalancer(
+            ShardedCardDataRepository repository,
+            @Value("${app.card-data.shards.rebalance.batch-size:1000}") int batchSize,
+            @Value("${app.card-data.shards.rebalance.max-passes:3}") int maxPasses,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new CardDataShardRebalancer(repository, batchSize, maxPasses,
+                meterRegistry.getIfAvailable(CompositeMeterRegistry::new));
+    }
+
+    // In the background, so the application serves requests (from either shard) while cards move.
+    @Bean
+    @ConditionalOnProperty(prefix = "app.card-data.shards", name = "rebalance-on-start", havingValue = "true")
+    public ApplicationRunner cardDataShardRebalanceOnStart(CardDataShardRebalancer rebalancer) {
+        return args -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    log.info("Shard rebalance finished: {}", rebalancer.rebalance());
+                } catch (RuntimeException e) {
+                    log.error("Shard rebalance failed; run it again to finish moving cards", e);
+                }
+            }, "card-data-rebalance");
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.entitlement.config;
+
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs Tomcat request processing and MVC async work (streamed responses) on virtual threads,
+ * one per task, instead of the bounded platform-thread pools. Blocking JDBC calls then park a
+ * cheap virtual thread rather than holding a pool thread; the Hikari pool becomes the effective
+ * concurrency limit and is sized in {@code application-virtual-threads.yml}.
+ * <p>
+ * Requires Java 21. The executor is looked up reflectively so the application still compiles
+ * for Java 17; activating the profile on an older runtime fails at startup.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("virtual-threads")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return handler -> handler.setExecutor(executor);
+    }
+
+    // Replaces the auto-configured pool used for StreamingResponseBody and other async requests.
+    @Bean(name = "applicationTaskExecutor")
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (JavaVersion.getJavaVersion().isOlderThan(JavaVersion.TWENTY_ONE)) {
+            throw new IllegalStateException("The virtual-threads profile requires Java 21 or newer, running on "
+                    + JavaVersion.getJavaVersion());
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual thread executor is not available", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.entitlement.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheStatsController {
+
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    public CacheStatsController(ObjectProvider<CacheManager> cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Stats> stats() {
+        Map<String, Stats> result = new TreeMap<>();
+        CacheManager cacheManager = this.cacheManager.getIfAvailable();
+        if (cacheManager == null) {
+            return result;
+        }
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                CacheStats stats = cache.getNativeCache().stats();
+                result.put(name, new Stats(cache.getNativeCache().estimatedSize(), stats.hitCount(),
+                        stats.missCount(), stats.evictionCount(), stats.hitRate()));
+            }
+        }
+        return result;
+    }
+
+    public record Stats(long size, long hits, long misses, long evictions, double hitRate) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.CardDataArchiveStatus;
+import com.example.entitlement.service.CardDataArchiver;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Progress of the {@link CardDataArchiver}, and pausing it, e.g. during a traffic peak.
+ */
+@RestController
+@RequestMapping("/api/card-data/archive")
+@ConditionalOnProperty(prefix = "app.card-data.archive", name = "enabled", havingValue = "true")
+public class CardDataArchiveController {
+
+    private final CardDataArchiver archiver;
+
+    public CardDataArchiveController(CardDataArchiver archiver) {
+        this.archiver = archiver;
+    }
+
+    @GetMapping
+    public CardDataArchiveStatus status() {
+        return archiver.status();
+    }
+
+    @PostMapping("/pause")
+    public CardDataArchiveStatus pause() {
+        archiver.pause();
+        return archiver.status();
+    }
+
+    @PostMapping("/resume")
+    public CardDataArchiveStatus resume() {
+        archiver.resume();
+        return archiver.status();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.service.CardDataChangeFeed;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent events for {@code card_data} mutations, so downstream caches can apply deltas instead
+ * of polling the list.
+ */
+@RestController
+@RequestMapping("/api/card-data")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CardDataChangeController {
+
+    static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private static final int BATCH_SIZE = 256;
+
+    private final CardDataChangeFeed feed;
+    private final Executor executor;
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public CardDataChangeController(CardDataChangeFeed feed,
+                                    @Qualifier("applicationTaskExecutor") Executor executor,
+                                    @Value("${app.card-data.changes.timeout:10m}") Duration timeout,
+                                    @Value("${app.card-data.changes.max-subscribers:256}") int maxSubscribers) {
+        this.feed = feed;
+        this.executor = executor;
+        this.timeoutMillis = timeout.toMillis();
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * Streams every change after {@code since} or {@code Last-Event-ID}, or from now. When that
+     * position is no longer retained the only event is {@code reset}: reload, then resubscribe.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestParam(name = "since", required = false) Long since,
+                              @RequestHeader(name = LAST_EVENT_ID, required = false) Long lastEventId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many change feed subscribers");
+        }
+        long from = since != null ? since : lastEventId != null ? lastEventId : feed.latest();
+        Subscription subscription = new Subscription(new SseEmitter(timeoutMillis), from);
+        Runnable unsubscribe = feed.subscribe(subscription::signal);
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                unsubscribe.run();
+                subscribers.decrementAndGet();
+            }
+        };
+        subscription.emitter.onCompletion(release);
+        subscription.emitter.onError(e -> release.run());
+        subscription.signal();
+        return subscription.emitter;
+    }
+
+    // Drains of one subscriber never overlap: whoever takes pending from zero runs the loop.
+    private final class Subscription {
+
+        private final SseEmitter emitter;
+        private final AtomicInteger pending = new AtomicInteger();
+        private long cursor;
+        private boolean started;
+        private volatile boolean done;
+
+        Subscription(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        void signal() {
+            if (!done && pending.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                try {
+                    emit();
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away or the emitter completed; the container finishes the request.
+                    done = true;
+                    return;
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0 || done) {
+                    return;
+                }
+            }
+        }
+
+        private void emit() throws IOException {
+            while (!done) {
+                List<CardDataChange> changes = feed.after(cursor, BATCH_SIZE);
+                if (changes == null) {
+                    done = true;
+                    emitter.send(SseEmitter.event().name("reset").data(String.valueOf(feed.latest())));
+                    emitter.complete();
+                    return;
+                }
+                Set<ResponseBodyEmitter.DataWithMediaType> batch = new LinkedHashSet<>();
+                if (!started) {
+                    started = true;
+                    batch.addAll(SseEmitter.event().id(String.valueOf(cursor)).name("ready").data(String.valueOf(cursor)).build());
+                }
+                for (CardDataChange change : changes) {
+                    batch.addAll(SseEmitter.event()
+                            .id(String.valueOf(change.seq()))
+                            .name(change.type().name().toLowerCase(Locale.ROOT))
+                            .data(change, MediaType.APPLICATION_JSON)
+                            .build());
+                }
+                if (!batch.isEmpty()) {
+                    emitter.send(batch);
+                }
+                if (changes.isEmpty()) {
+                    return;
+                }
+                cursor = changes.get(changes.size() - 1).seq();
+            }
+        }
+    }
+}
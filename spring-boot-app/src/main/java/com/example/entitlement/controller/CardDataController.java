@@ -1,8 +1,31 @@
 package com.example.entitlement.controller;
 
+import com.example.entitlement.codec.CardDataProtobuf;
+import com.example.entitlement.codec.CardDataProtobufHttpMessageConverter;
+import com.example.entitlement.model.BulkDeleteResult;
+import com.example.entitlement.model.BulkInsertResult;
 import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.model.CardDataIds;
+import com.example.entitlement.model.CardDataStats;
+import com.example.entitlement.model.CardDataView;
+import com.example.entitlement.service.CardDataBulkService;
 import com.example.entitlement.service.CardDataService;
+import com.example.entitlement.service.CardDataSnapshot;
+import com.example.entitlement.service.CardDataVersion;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,33 +35,399 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/card-data")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CardDataController {
 
+    static final String NDJSON = "application/x-ndjson";
+    static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
+
+    private static final int PROTOBUF_BUFFER_SIZE = 8192;
+
     private final CardDataService service;
+    private final CardDataBulkService bulkService;
+    private final CardDataVersion version;
+    private final ObjectProvider<CardDataSnapshot> snapshot;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter ndjsonWriter;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int maxIds;
+    private final boolean conditionalGets;
 
-    public CardDataController(CardDataService service) {
+    public CardDataController(CardDataService service,
+                              CardDataBulkService bulkService,
+                              CardDataVersion version,
+                              ObjectProvider<CardDataSnapshot> snapshot,
+                              ObjectMapper objectMapper,
+                              @Value("${app.card-data.page.default-limit:100}") int defaultLimit,
+                              @Value("${app.card-data.page.max-limit:1000}") int maxLimit,
+                              @Value("${app.card-data.ids.max-size:5000}") int maxIds,
+                              @Value("${app.card-data.conditional-get.enabled:false}") boolean conditionalGets) {
         this.service = service;
+        this.bulkService = bulkService;
+        this.version = version;
+        this.snapshot = snapshot;
+        this.objectMapper = objectMapper;
+        this.ndjsonWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.maxIds = maxIds;
+        this.conditionalGets = conditionalGets;
     }
 
+    /**
+     * Lists cards matching the {@link CardDataFilter} query parameters. Only the plain by-type list
+     * is served from cache; any other filter or projection is pushed down to SQL. With
+     * {@code app.card-data.conditional-get.enabled} responses carry an ETag and Last-Modified, and a
+     * matching {@code If-None-Match} gets a 304 without a query.
+     * With {@code app.card-data.snapshot.enabled} the plain and by-type JSON lists are written from
+     * the current {@link CardDataSnapshot}, gzipped when the client accepts it.
+     */
     @GetMapping
-    public List<CardData> list(@RequestParam(name = "cardType", required = false) String cardType) {
-        return service.list(cardType);
+    public ResponseEntity<?> list(CardDataFilter filter,
+                                  @RequestParam(name = "ids", required = false) List<Integer> ids,
+                                  @RequestParam(name = "afterId", required = false) Integer afterId,
+                                  @RequestParam(name = "limit", required = false) Integer limit,
+                                  @RequestParam(name = "fields", required = false) String fields,
+                                  WebRequest request) {
+        CardDataSnapshot snapshots = snapshot.getIfAvailable();
+        if (snapshots != null && ids == null && afterId == null && limit == null
+                && (fields == null || fields.isBlank()) && filter.isCardTypeOnly() && prefersJson(request)) {
+            CardDataVersion.Snapshot current = version.current();
+            CardDataSnapshot.Entry entry = snapshots.get(filter.cardType(), current.version());
+            if (entry != null) {
+                return fromSnapshot(entry, current, request);
+            }
+        }
+        return rows(filter, ids, afterId, limit, fields, request);
+    }
+
+    private ResponseEntity<List<?>> rows(CardDataFilter filter, List<Integer> ids, Integer afterId, Integer limit,
+                                         String fields, WebRequest request) {
+        Set<CardDataField> selected = parseFields(fields);
+        if (ids != null && (!filter.isEmpty() || afterId != null || limit != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids cannot be combined with filters or paging");
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        if (ids != null) {
+            return ResponseEntity.ok(lookup(ids, selected));
+        }
+        if (afterId == null && limit == null) {
+            List<CardData> rows = selected == null && filter.isCardTypeOnly()
+                    ? service.list(filter.cardType())
+                    : service.list(filter, selected == null ? CardDataField.ALL : selected);
+            return ResponseEntity.ok(render(rows, selected));
+        }
+        int pageSize = limit == null ? defaultLimit : limit;
+        if (pageSize < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        pageSize = Math.min(pageSize, maxLimit);
+        List<CardData> page = service.page(filter, afterId == null ? Integer.MIN_VALUE : afterId, pageSize,
+                selected == null ? CardDataField.ALL : selected);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            ok.header(NEXT_AFTER_ID_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return ok.body(render(page, selected));
+    }
+
+    @GetMapping(produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> stream(CardDataFilter filter,
+                                                        @RequestParam(name = "fields", required = false) String fields) {
+        Set<CardDataField> selected = parseFields(fields);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.setRootValueSeparator(null);
+                service.stream(filter, selected == null ? CardDataField.ALL : selected, row -> {
+                    try {
+                        ndjsonWriter.writeValue(gen, selected == null ? row : new CardDataView(row, selected));
+                        gen.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().header("Content-Type", NDJSON).body(body);
+    }
+
+    /**
+     * Protobuf form of the list: length-delimited {@code CardData} messages (see
+     * {@code card_data.proto}). Without {@code ids} or paging the rows are encoded straight from the
+     * JDBC cursor like the NDJSON stream; otherwise the response is what {@link #list} would return,
+     * including the cursor header and conditional GET handling.
+     */
+    @GetMapping(produces = CardDataProtobufHttpMessageConverter.PROTOBUF_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProtobuf(CardDataFilter filter,
+                                                                @RequestParam(name = "ids", required = false) List<Integer> ids,
+                                                                @RequestParam(name = "afterId", required = false) Integer afterId,
+                                                                @RequestParam(name = "limit", required = false) Integer limit,
+                                                                @RequestParam(name = "fields", required = false) String fields,
+                                                                WebRequest request) {
+        if (ids != null || afterId != null || limit != null) {
+            ResponseEntity<List<?>> rows = rows(filter, ids, afterId, limit, fields, request);
+            if (rows == null) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .headers(rows.getHeaders())
+                    .contentType(CardDataProtobufHttpMessageConverter.PROTOBUF)
+                    .body(out -> {
+                        CodedOutputStream coded = CodedOutputStream.newInstance(out, PROTOBUF_BUFFER_SIZE);
+                        CardDataProtobuf.writeDelimited(rows.getBody(), coded);
+                        coded.flush();
+                    });
+        }
+        Set<CardDataField> selected = parseFields(fields);
+        Set<CardDataField> encoded = selected == null ? CardDataField.ALL : selected;
+        StreamingResponseBody body = out -> {
+            CodedOutputStream coded = CodedOutputStream.newInstance(out, PROTOBUF_BUFFER_SIZE);
+            service.stream(filter, encoded, row -> {
+                try {
+                    CardDataProtobuf.writeDelimited(row, encoded, coded);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            coded.flush();
+        };
+        return ResponseEntity.ok().contentType(CardDataProtobufHttpMessageConverter.PROTOBUF).body(body);
     }
 
+    /**
+     * Count, sum and average of {@code credit_limit} over the cards matching the filter, grouped by
+     * the comma-separated {@code groupBy} columns (one overall bucket without it).
+     */
+    @GetMapping("/stats")
+    public List<CardDataStats> stats(CardDataFilter filter,
+                                     @RequestParam(name = "groupBy", required = false) String groupBy,
+                                     WebRequest request) {
+        Set<CardDataField> groups = EnumSet.noneOf(CardDataField.class);
+        if (groupBy != null && !groupBy.isBlank()) {
+            try {
+                groups = CardDataField.parseGroupBy(groupBy);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        return service.stats(filter, groups);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(@PathVariable int id,
+                                 @RequestParam(name = "fields", required = false) String fields) {
+        Set<CardDataField> selected = parseFields(fields);
+        return ResponseEntity.of(service.findById(id).map(cd -> selected == null ? cd : new CardDataView(cd, selected)));
+    }
+
+    /**
+     * Same as {@code GET ?ids=} for id lists too long for a URL.
+     */
+    @PostMapping("/lookup")
+    public List<?> lookup(@RequestBody CardDataIds body,
+                          @RequestParam(name = "fields", required = false) String fields) {
+        return lookup(body.ids(), parseFields(fields));
+    }
+
+    /**
+     * Deletes every id in one JDBC batch and reports, per id and in request order, whether a row was deleted.
+     */
+    @PostMapping("/bulk-delete")
+    public BulkDeleteResult bulkDelete(@RequestBody CardDataIds body) {
+        return service.deleteByIds(checkIds(body.ids()));
+    }
+
+    /**
+     * Inserts one card. With {@code app.card-data.write-behind.enabled} the row is group-committed
+     * with other concurrent creates and the response waits for that commit; when the write queue is
+     * full the request gets 503 with {@code Retry-After} instead of waiting.
+     */
     @PostMapping
     public ResponseEntity<CardData> create(@RequestBody CardData cardData) {
-        int rows = service.create(cardData);
+        int rows;
+        try {
+            rows = service.create(cardData);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
         if (rows == 1) {
             return ResponseEntity.status(HttpStatus.CREATED).body(cardData);
         }
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
     }
 
+    /**
+     * Accepts a JSON array or an NDJSON stream of cards. The body is parsed incrementally and
+     * written chunk by chunk, so the request is never held in memory as a whole.
+     */
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ResponseEntity<BulkInsertResult> bulkCreate(InputStream body,
+                                                       @RequestParam(name = "chunkSize", required = false) Integer chunkSize)
+            throws IOException {
+        try (MappingIterator<CardData> rows = objectMapper.readerFor(CardData.class).readValues(body)) {
+            BulkInsertResult result = bulkService.ingest(rows, chunkSize);
+            HttpStatus status = result.failedRows() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+            return ResponseEntity.status(status).body(result);
+        }
+    }
+
+    private List<?> lookup(List<Integer> ids, Set<CardDataField> selected) {
+        List<CardData> rows = service.findByIds(checkIds(ids), selected == null ? CardDataField.ALL : selected);
+        return render(rows, selected);
+    }
+
+    private List<Integer> checkIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty() || ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must be a non-empty list of integers");
+        }
+        if (ids.size() > maxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "at most " + maxIds + " ids per request");
+        }
+        return ids;
+    }
+
+    /**
+     * Sets the validators for the current data version and reports whether the client's copy is
+     * still current. The version is read before the query runs and bumped only after a write
+     * commits, so on the primary a racing write can only make the tag older than the body. A
+     * replica can return an older body under a newer tag; reads are kept on the primary for
+     * {@code app.datasource.replicas.read-your-writes} after each write to cover replica lag.
+     * Writes through other instances only reach the version through the change relay, so
+     * validators are opt-in.
+     */
+    private boolean notModified(WebRequest request) {
+        if (!conditionalGets) {
+            return false;
+        }
+        CardDataVersion.Snapshot snapshot = version.current();
+        return request.checkNotModified(version.etag(snapshot, variant(request)),
+                snapshot.lastModified().toEpochMilli());
+    }
+
+    /**
+     * Writes the pre-serialized list as-is. The gzip form is a different byte sequence, so it gets
+     * its own strong ETag; Tomcat leaves responses that already carry a Content-Encoding alone.
+     */
+    private ResponseEntity<byte[]> fromSnapshot(CardDataSnapshot.Entry entry, CardDataVersion.Snapshot at,
+                                                WebRequest request) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String variant = variant(request) + (gzip ? ";gzip" : "");
+        if (conditionalGets && request.checkNotModified(version.etag(at, variant), at.lastModified().toEpochMilli())) {
+            return null;
+        }
+        byte[] body = gzip ? entry.gzip() : entry.json();
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            ok.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return ok.body(body);
+    }
+
+    // Whether content negotiation would pick JSON: no Accept, or JSON among the most preferred types.
+    private static boolean prefersJson(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        double best = types.stream().mapToDouble(MediaType::getQualityValue).max().orElse(0);
+        return best > 0 && types.stream()
+                .filter(type -> type.getQualityValue() == best)
+                .findFirst()
+                .filter(type -> type.isCompatibleWith(MediaType.APPLICATION_JSON))
+                .isPresent();
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!name.equals("gzip") && !name.equals("x-gzip") && !name.equals("*")) {
+                continue;
+            }
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (q > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Path, sorted query parameters and Accept: everything the representation depends on besides the data.
+    private static String variant(WebRequest request) {
+        StringBuilder variant = new StringBuilder(request.getDescription(false));
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) ->
+                variant.append('&').append(name).append('=').append(String.join(",", values)));
+        return variant.append(';').append(request.getHeader(HttpHeaders.ACCEPT)).toString();
+    }
+
+    private static Set<CardDataField> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        try {
+            return CardDataField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static List<?> render(List<CardData> rows, Set<CardDataField> fields) {
+        if (fields == null) {
+            return rows;
+        }
+        List<CardDataView> views = new ArrayList<>(rows.size());
+        for (CardData row : rows) {
+            views.add(new CardDataView(row, fields));
+        }
+        return views;
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable int id) {
         boolean deleted = service.deleteById(id);
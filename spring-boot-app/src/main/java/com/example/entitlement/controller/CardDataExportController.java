@@ -0,0 +1,70 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.CardDataExport;
+import com.example.entitlement.service.CardDataExportService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Starts, monitors and resumes {@link CardDataExportService} exports. Exports run in the
+ * background; the files are written to the export directory on the server, not returned here.
+ */
+@RestController
+@RequestMapping("/api/card-data/exports")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CardDataExportController {
+
+    private final CardDataExportService service;
+
+    public CardDataExportController(CardDataExportService service) {
+        this.service = service;
+    }
+
+    @PostMapping
+    public ResponseEntity<CardDataExport> start(@RequestParam(name = "partitions", required = false) Integer partitions,
+                                                @RequestParam(name = "mask", defaultValue = "true") boolean mask,
+                                                @RequestParam(name = "format", defaultValue = CardDataExportService.FORMAT) String format) {
+        if (!CardDataExportService.FORMAT.equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        if (partitions != null && partitions < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "partitions must be positive");
+        }
+        CardDataExport export;
+        try {
+            export = service.start(partitions, mask);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, e.getMessage());
+        }
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(export.id()).toUri())
+                .body(export);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CardDataExport> status(@PathVariable String id) {
+        return ResponseEntity.of(service.status(id));
+    }
+
+    /**
+     * Rewrites the partitions of a failed or interrupted export that have no file yet.
+     */
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<CardDataExport> resume(@PathVariable String id) {
+        try {
+            return service.resume(id).map(export -> ResponseEntity.accepted().body(export))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.CardDataScreenResult;
+import com.example.entitlement.service.CardDataScreeningService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Dark-web screening through {@link CardDataScreeningService}. The body is read incrementally, so
+ * millions of numbers can be sent in one request without it being held in memory.
+ */
+@RestController
+@RequestMapping("/api/card-data")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CardDataScreeningController {
+
+    private final CardDataScreeningService service;
+    private final ObjectMapper objectMapper;
+
+    public CardDataScreeningController(CardDataScreeningService service, ObjectMapper objectMapper) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Screens card numbers given one per line and flags the matching cards {@code card_on_dark_web}.
+     * Blank lines are skipped. Answers 400 with the partial result when the body breaks off.
+     */
+    @PostMapping(path = "/screen", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<CardDataScreenResult> screenLines(InputStream body) throws IOException {
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.US_ASCII))) {
+            return respond(service.screen(new LineIterator(lines)));
+        }
+    }
+
+    /**
+     * The same for a JSON array or an NDJSON stream of strings.
+     */
+    @PostMapping(path = "/screen", consumes = {MediaType.APPLICATION_JSON_VALUE, CardDataController.NDJSON})
+    public ResponseEntity<CardDataScreenResult> screenJson(InputStream body) throws IOException {
+        try (MappingIterator<String> numbers = objectMapper.readerFor(String.class).readValues(body)) {
+            return respond(service.screen(numbers));
+        }
+    }
+
+    private static ResponseEntity<CardDataScreenResult> respond(CardDataScreenResult result) {
+        return ResponseEntity.status(result.error() == null ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(result);
+    }
+
+    // Non-blank lines; read errors surface as UncheckedIOException from hasNext().
+    private static final class LineIterator implements Iterator<String> {
+
+        private final BufferedReader reader;
+        private String next;
+
+        LineIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        return false;
+                    }
+                    if (!line.isBlank()) {
+                        next = line;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String line = next;
+            next = null;
+            return line;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.BulkUpsertResult;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CreditLimitUpdate;
+import com.example.entitlement.service.CardDataUpsertService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Retry-safe writes through {@link CardDataUpsertService}. Every endpoint takes an optional
+ * {@code Idempotency-Key} header; repeating a request with the same key does not write again.
+ */
+@RestController
+@RequestMapping("/api/card-data")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CardDataUpsertController {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
+    private final CardDataUpsertService service;
+    private final int maxRows;
+
+    public CardDataUpsertController(CardDataUpsertService service,
+                                    @Value("${app.card-data.ids.max-size:5000}") int maxRows) {
+        this.service = service;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Creates or replaces card {@code id}. With {@code If-Match} only an existing row at that
+     * version is updated, otherwise 412.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<CardData> put(@PathVariable int id,
+                                        @RequestBody CardData cardData,
+                                        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                        @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (cardData.getId() != null && cardData.getId() != id) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id in the body does not match the path");
+        }
+        cardData.setId(id);
+        boolean anyVersion = ifMatch != null && ifMatch.trim().equals("*");
+        Long expected = ifMatch == null ? cardData.getVersion() : anyVersion ? null : parseVersion(ifMatch);
+        BulkUpsertResult.Outcome outcome = write(() ->
+                service.upsert(cardData, expected, anyVersion, checkKey(idempotencyKey)));
+        switch (outcome.status()) {
+            case CONFLICT -> throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "card " + id + " is at version " + outcome.version());
+            case NOT_FOUND -> throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "card " + id + " does not exist");
+            default -> {
+            }
+        }
+        cardData.setVersion(outcome.version());
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .status(outcome.status() == BulkUpsertResult.Status.CREATED ? HttpStatus.CREATED : HttpStatus.OK)
+                .eTag(String.valueOf(outcome.version()));
+        if (outcome.status() == BulkUpsertResult.Status.REPLAYED) {
+            response.header(REPLAYED_HEADER, "true");
+        }
+        return response.body(cardData);
+    }
+
+    @PostMapping("/bulk-upsert")
+    public ResponseEntity<BulkUpsertResult> bulkUpsert(@RequestBody List<CardData> rows,
+                                                       @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        checkRows(rows, CardData::getId);
+        return respond(write(() -> service.upsertAll(rows, checkKey(idempotencyKey))));
+    }
+
+    @PostMapping("/bulk-credit-limit")
+    public ResponseEntity<BulkUpsertResult> bulkCreditLimit(@RequestBody List<CreditLimitUpdate> updates,
+                                                            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        checkRows(updates, CreditLimitUpdate::id);
+        for (CreditLimitUpdate update : updates) {
+            if (update.creditLimit() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "creditLimit is required for card " + update.id());
+            }
+        }
+        return respond(write(() -> service.updateCreditLimits(updates, checkKey(idempotencyKey))));
+    }
+
+    private ResponseEntity<BulkUpsertResult> respond(BulkUpsertResult result) {
+        boolean complete = result.outcomes().stream().allMatch(outcome ->
+                outcome.applied() || outcome.status() == BulkUpsertResult.Status.REPLAYED);
+        return ResponseEntity.status(complete ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(result);
+    }
+
+    // A row the table rejects (e.g. no client_id), or a batch spanning shards, is refused as a whole.
+    private static <T> T write(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (DataIntegrityViolationException | InvalidDataAccessApiUsageException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+    }
+
+    private <T> void checkRows(List<T> rows, Function<T, Integer> id) {
+        if (rows == null || rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "body must be a non-empty array");
+        }
+        if (rows.size() > maxRows) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "at most " + maxRows + " rows per request");
+        }
+        Set<Integer> seen = new HashSet<>(rows.size() * 2);
+        for (T row : rows) {
+            Integer rowId = row == null ? null : id.apply(row);
+            if (rowId == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "every row needs an id");
+            }
+            if (!seen.add(rowId)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id " + rowId + " appears more than once");
+            }
+        }
+    }
+
+    private static String checkKey(String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        String key = idempotencyKey.trim();
+        if (key.isEmpty() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY_HEADER + " must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        return key;
+    }
+
+    // Accepts the ETag as sent back by clients: "3", W/"3" or a bare 3.
+    private static long parseVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must be a card version, e.g. \"3\"");
+        }
+    }
+}
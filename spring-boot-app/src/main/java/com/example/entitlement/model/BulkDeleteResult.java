@@ -0,0 +1,23 @@
+package com.example.entitlement.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public record BulkDeleteResult(int requestedIds, int deletedRows, List<Outcome> outcomes) {
+
+    public record Outcome(int id, boolean deleted) {
+    }
+
+    /**
+     * Pairs {@code ids} with the per-id row counts of the delete batch, index by index.
+     */
+    public static BulkDeleteResult of(List<Integer> ids, int[] counts) {
+        List<Outcome> outcomes = new ArrayList<>(ids.size());
+        int deleted = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            outcomes.add(new Outcome(ids.get(i), counts[i] > 0));
+            deleted += counts[i];
+        }
+        return new BulkDeleteResult(ids.size(), deleted, List.copyOf(outcomes));
+    }
+}
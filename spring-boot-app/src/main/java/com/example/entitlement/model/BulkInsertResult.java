@@ -0,0 +1,24 @@
+package com.example.entitlement.model;
+
+import java.util.List;
+
+public record BulkInsertResult(int receivedRows, int insertedRows, int failedRows, List<Chunk> chunks) {
+
+    public record Chunk(int index, int offset, int rows, int inserted, String error) {
+        public boolean succeeded() {
+            return error == null;
+        }
+    }
+
+    public static BulkInsertResult of(List<Chunk> chunks) {
+        int received = 0;
+        int inserted = 0;
+        int failed = 0;
+        for (Chunk chunk : chunks) {
+            received += chunk.rows();
+            inserted += chunk.inserted();
+            failed += chunk.succeeded() ? 0 : chunk.rows();
+        }
+        return new BulkInsertResult(received, inserted, failed, List.copyOf(chunks));
+    }
+}
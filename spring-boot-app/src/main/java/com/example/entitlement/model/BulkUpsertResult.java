@@ -0,0 +1,35 @@
+package com.example.entitlement.model;
+
+import java.util.List;
+
+public record BulkUpsertResult(int requestedRows, int appliedRows, List<Outcome> outcomes) {
+
+    /**
+     * What happened to one row: {@code version} is the row's version after the request, or its
+     * current version when the request was not applied (null when there is no such row).
+     */
+    public record Outcome(int id, Status status, Long version) {
+        public boolean applied() {
+            return status == Status.CREATED || status == Status.UPDATED;
+        }
+    }
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        /** Already written by an earlier request with the same idempotency key; nothing changed. */
+        REPLAYED,
+        /** The expected version did not match the row's. */
+        CONFLICT,
+        /** An update with an expected version for a row that does not exist. */
+        NOT_FOUND
+    }
+
+    public static BulkUpsertResult of(List<Outcome> outcomes) {
+        int applied = 0;
+        for (Outcome outcome : outcomes) {
+            applied += outcome.applied() ? 1 : 0;
+        }
+        return new BulkUpsertResult(outcomes.size(), applied, List.copyOf(outcomes));
+    }
+}
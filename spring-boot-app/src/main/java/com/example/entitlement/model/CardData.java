@@ -17,6 +17,7 @@ public class CardData {
     private LocalDate acctOpenDate;
     private Integer yearPinLastChanged;
     private Boolean cardOnDarkWeb;
+    private Long version;
 
     public Integer getId() { return id; }
     public void setId(Integer id) { this.id = id; }
@@ -56,4 +57,7 @@ public class CardData {
 
     public Boolean getCardOnDarkWeb() { return cardOnDarkWeb; }
     public void setCardOnDarkWeb(Boolean cardOnDarkWeb) { this.cardOnDarkWeb = cardOnDarkWeb; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,13 @@
+package com.example.entitlement.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Where the expired-card archiver stands. While a sweep is under way, {@code expiredBefore} is its
+ * cut-off and it has worked through the ids up to {@code cursor} of those up to {@code upToId};
+ * all three are null between sweeps. {@code archived} counts the cards moved since start-up.
+ */
+public record CardDataArchiveStatus(boolean paused, LocalDate expiredBefore, Integer cursor, Integer upToId,
+                                    long archived, Instant lastSweepFinished) {
+}
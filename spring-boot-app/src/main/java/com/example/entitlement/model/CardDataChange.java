@@ -0,0 +1,32 @@
+package com.example.entitlement.model;
+
+import java.time.Instant;
+
+/**
+ * One mutation of {@code card_data} on the change feed: the inserted row for {@link Type#CREATED},
+ * the row as written for {@link Type#UPDATED} (an upsert that may also have inserted it), only the
+ * id for {@link Type#DELETED}. {@code seq} is assigned when the change enters an
+ * instance's feed (0 before that) and is only meaningful on that instance.
+ */
+public record CardDataChange(long seq, Type type, Integer id, CardData card, Instant at) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static CardDataChange created(CardData card) {
+        return new CardDataChange(0, Type.CREATED, card.getId(), card, Instant.now());
+    }
+
+    public static CardDataChange updated(CardData card) {
+        return new CardDataChange(0, Type.UPDATED, card.getId(), card, Instant.now());
+    }
+
+    public static CardDataChange deleted(int id) {
+        return new CardDataChange(0, Type.DELETED, id, null, Instant.now());
+    }
+
+    public CardDataChange withSeq(long seq) {
+        return new CardDataChange(seq, type, id, card, at);
+    }
+}
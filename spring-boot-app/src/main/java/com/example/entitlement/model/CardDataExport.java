@@ -0,0 +1,27 @@
+package com.example.entitlement.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of a partitioned {@code card_data} export. {@code rowsWritten} and {@code bytesWritten}
+ * cover the partitions written by this process; {@code partitionsDone} also counts those finished
+ * before a restart. A {@link State#FAILED} export has partitions missing and can be resumed.
+ */
+public record CardDataExport(String id,
+                             State state,
+                             String format,
+                             boolean masked,
+                             int partitions,
+                             int partitionsDone,
+                             int partitionsFailed,
+                             long rowsWritten,
+                             long bytesWritten,
+                             Instant startedAt,
+                             Instant finishedAt,
+                             List<String> errors) {
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.entitlement.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The columns of {@code card_data} with their {@link CardData} property names, in table order.
+ * This is also the whitelist for {@code ?fields=} projections.
+ */
+public enum CardDataField {
+    ID("id", "id", CardData::getId),
+    CLIENT_ID("client_id", "clientId", CardData::getClientId),
+    CARD_BRAND("card_brand", "cardBrand", CardData::getCardBrand),
+    CARD_TYPE("card_type", "cardType", CardData::getCardType),
+    CARD_NUMBER("card_number", "cardNumber", CardData::getCardNumber),
+    EXPIRES("expires", "expires", CardData::getExpires),
+    CVV("cvv", "cvv", CardData::getCvv),
+    HAS_CHIP("has_chip", "hasChip", CardData::getHasChip),
+    NUM_CARDS_ISSUED("num_cards_issued", "numCardsIssued", CardData::getNumCardsIssued),
+    CREDIT_LIMIT("credit_limit", "creditLimit", CardData::getCreditLimit),
+    ACCT_OPEN_DATE("acct_open_date", "acctOpenDate", CardData::getAcctOpenDate),
+    YEAR_PIN_LAST_CHANGED("year_pin_last_changed", "yearPinLastChanged", CardData::getYearPinLastChanged),
+    CARD_ON_DARK_WEB("card_on_dark_web", "cardOnDarkWeb", CardData::getCardOnDarkWeb),
+    VERSION("version", "version", CardData::getVersion);
+
+    public static final Set<CardDataField> ALL = Collections.unmodifiableSet(EnumSet.allOf(CardDataField.class));
+
+    /**
+     * Low-cardinality, non-sensitive columns that {@code /stats} may GROUP BY.
+     */
+    public static final Set<CardDataField> GROUPABLE = Collections.unmodifiableSet(EnumSet.of(
+            CLIENT_ID, CARD_BRAND, CARD_TYPE, HAS_CHIP, NUM_CARDS_ISSUED, YEAR_PIN_LAST_CHANGED, CARD_ON_DARK_WEB));
+
+    private final String column;
+    private final String property;
+    private final Function<CardData, Object> getter;
+
+    CardDataField(String column, String property, Function<CardData, Object> getter) {
+        this.column = column;
+        this.property = property;
+        this.getter = getter;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public Object read(CardData cd) {
+        return getter.apply(cd);
+    }
+
+    /**
+     * Parses a comma-separated list of column ({@code client_id}) or property ({@code clientId})
+     * names, case-insensitively.
+     *
+     * @throws IllegalArgumentException for an empty list or a name outside the whitelist
+     */
+    public static Set<CardDataField> parse(String csv) {
+        EnumSet<CardDataField> fields = EnumSet.noneOf(CardDataField.class);
+        for (String raw : csv.split(",")) {
+            String name = raw.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            fields.add(byName(name));
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("fields must name at least one field");
+        }
+        return fields;
+    }
+
+    /**
+     * Parses a {@code groupBy} list like {@link #parse(String)}, restricted to {@link #GROUPABLE}.
+     *
+     * @throws IllegalArgumentException for an empty list or a field that cannot be grouped by
+     */
+    public static Set<CardDataField> parseGroupBy(String csv) {
+        Set<CardDataField> fields = parse(csv);
+        for (CardDataField field : fields) {
+            if (!GROUPABLE.contains(field)) {
+                throw new IllegalArgumentException("Cannot group by: " + field.column);
+            }
+        }
+        return fields;
+    }
+
+    private static CardDataField byName(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (CardDataField field : values()) {
+            if (field.column.equals(lower) || field.property.equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + name);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.entitlement.model;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Row filter for {@code card_data} queries. Every criterion is optional and they are ANDed;
+ * ranges are inclusive. Bound from query parameters of the same names, with blank strings
+ * treated as absent.
+ */
+public record CardDataFilter(String cardBrand,
+                             String cardType,
+                             Integer clientId,
+                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiresFrom,
+                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiresTo,
+                             Boolean cardOnDarkWeb,
+                             BigDecimal minCreditLimit,
+                             BigDecimal maxCreditLimit) {
+
+    public static final CardDataFilter NONE = new CardDataFilter(null, null, null, null, null, null, null, null);
+
+    public CardDataFilter {
+        cardBrand = blankToNull(cardBrand);
+        cardType = blankToNull(cardType);
+    }
+
+    public static CardDataFilter byCardType(String cardType) {
+        return new CardDataFilter(null, cardType, null, null, null, null, null, null);
+    }
+
+    public boolean isEmpty() {
+        return equals(NONE);
+    }
+
+    /**
+     * True when at most {@code cardType} is set, i.e. the filter is one the cached by-type list can answer.
+     */
+    public boolean isCardTypeOnly() {
+        return equals(byCardType(cardType));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
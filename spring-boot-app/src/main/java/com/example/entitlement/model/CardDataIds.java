@@ -0,0 +1,9 @@
+package com.example.entitlement.model;
+
+import java.util.List;
+
+/**
+ * Request body of the by-id batch endpoints: {@code {"ids": [1, 2, 3]}}.
+ */
+public record CardDataIds(List<Integer> ids) {
+}
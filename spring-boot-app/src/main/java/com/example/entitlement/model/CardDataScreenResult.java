@@ -0,0 +1,13 @@
+package com.example.entitlement.model;
+
+import java.util.List;
+
+/**
+ * Outcome of screening a batch of card numbers: how many were read, how many were malformed, how
+ * many the filter could not rule out (and were checked in the database), which cards matched and
+ * how many of those were newly flagged {@code card_on_dark_web}. {@code error} is set when the
+ * input could not be read to the end; everything before that point was screened.
+ */
+public record CardDataScreenResult(long screened, long invalid, long candidates, int matched, int flagged,
+                                   List<Integer> matchedIds, String error) {
+}
@@ -0,0 +1,13 @@
+package com.example.entitlement.model;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * One GROUP BY bucket: the grouping values keyed by property name (empty when ungrouped),
+ * the row count and the sum and average of {@code credit_limit} over the bucket. The
+ * aggregates ignore NULL limits and are null when the bucket has none.
+ */
+public record CardDataStats(Map<String, Object> group, long count, BigDecimal creditLimitSum,
+                            BigDecimal creditLimitAvg) {
+}
@@ -0,0 +1,28 @@
+package com.example.entitlement.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * A card rendered with only the selected fields, in {@link CardDataField} order. Values are written
+ * through the provider so dates and decimals follow the application's Jackson configuration.
+ */
+@JsonSerialize(using = CardDataView.Serializer.class)
+public record CardDataView(CardData card, Set<CardDataField> fields) {
+
+    static final class Serializer extends JsonSerializer<CardDataView> {
+        @Override
+        public void serialize(CardDataView view, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            for (CardDataField field : view.fields()) {
+                provider.defaultSerializeField(field.property(), field.read(view.card()), gen);
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.entitlement.model;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a batch {@code credit_limit} update. With a {@code version}, the row is only updated
+ * while it is still at that version.
+ */
+public record CreditLimitUpdate(Integer id, BigDecimal creditLimit, Long version) {
+}
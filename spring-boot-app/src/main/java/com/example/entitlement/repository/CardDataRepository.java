@@ -1,47 +1,418 @@
 package com.example.entitlement.repository;
 
 import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.model.CardDataStats;
+import com.example.entitlement.model.CreditLimitUpdate;
+import com.example.entitlement.routing.DataSourceRoute;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
 
 @Repository
 public class CardDataRepository {
 
+    static final int CREDIT_LIMIT_SCALE = 2;
+
+    // Expected version (any when null), then idempotency key (no check when null); each bound twice.
+    private static final String UPDATE_CONDITIONS = " AND (CAST(? AS BIGINT) IS NULL OR version = ?)" +
+            " AND (CAST(? AS VARCHAR(64)) IS NULL OR idempotency_key IS DISTINCT FROM ?)";
+
+    // card_number as screening compares it; idx_card_data_card_number_digits is on this expression.
+    private static final String CARD_NUMBER_DIGITS = "REPLACE(REPLACE(card_number, ' ', ''), '-', '')";
+
     private final JdbcTemplate jdbcTemplate;
     private final String schema;
-    private final CardDataRowMapper rowMapper = new CardDataRowMapper();
+    private final int fetchSize;
+    private final CardDataRepositoryMetrics metrics;
+    private volatile Boolean postgres;
 
+    // Without a registry (e.g. in @JdbcTest slices) meters go to an empty composite, i.e. nowhere.
+    @Autowired
     public CardDataRepository(JdbcTemplate jdbcTemplate,
-                              @Value("${app.card-data.schema:dbo}") String schema) {
+                              @Value("${app.card-data.schema:dbo}") String schema,
+                              @Value("${app.card-data.fetch-size:500}") int fetchSize,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this(jdbcTemplate, schema, fetchSize, meterRegistry.getIfAvailable(CompositeMeterRegistry::new));
+    }
+
+    public CardDataRepository(JdbcTemplate jdbcTemplate, String schema, int fetchSize, MeterRegistry meterRegistry) {
         this.jdbcTemplate = jdbcTemplate;
         this.schema = schema;
+        this.fetchSize = fetchSize;
+        this.metrics = new CardDataRepositoryMetrics(meterRegistry);
     }
 
     private String baseSelect() {
         return "SELECT id, client_id, card_brand, card_type, card_number, expires, cvv, has_chip, " +
-                "num_cards_issued, credit_limit, acct_open_date, year_pin_last_changed, card_on_dark_web " +
+                "num_cards_issued, credit_limit, acct_open_date, year_pin_last_changed, card_on_dark_web, version " +
                 "FROM " + schema + ".card_data";
     }
 
+    /**
+     * SELECT of only the given columns; the full column list when {@code fields} is
+     * {@link CardDataField#ALL}.
+     */
+    private String baseSelect(Set<CardDataField> fields) {
+        if (fields.size() == CardDataField.ALL.size()) {
+            return baseSelect();
+        }
+        StringJoiner columns = new StringJoiner(", ", "SELECT ", " FROM " + schema + ".card_data");
+        for (CardDataField field : fields) {
+            columns.add(field.column());
+        }
+        return columns.toString();
+    }
+
+    // Keyset paging and cursors need the id even when the caller did not ask for it.
+    static Set<CardDataField> withId(Set<CardDataField> fields) {
+        if (fields.contains(CardDataField.ID)) {
+            return fields;
+        }
+        EnumSet<CardDataField> withId = EnumSet.copyOf(fields);
+        withId.add(CardDataField.ID);
+        return withId;
+    }
+
     public List<CardData> findAll() {
-        String sql = baseSelect();
-        return jdbcTemplate.query(sql, rowMapper);
+        return findAll(CardDataField.ALL);
+    }
+
+    public List<CardData> findAll(Set<CardDataField> fields) {
+        String sql = baseSelect(fields);
+        return DataSourceRoute.replica(() -> metrics.query("findAll", fields, mapper -> jdbcTemplate.query(sql, mapper)));
     }
 
     public List<CardData> findByCardType(String cardType) {
-        String sql = baseSelect() + " WHERE card_type = ?";
-        return jdbcTemplate.query(sql, rowMapper, cardType);
+        return findByCardType(cardType, CardDataField.ALL);
+    }
+
+    public List<CardData> findByCardType(String cardType, Set<CardDataField> fields) {
+        String sql = baseSelect(fields) + " WHERE card_type = ?";
+        return DataSourceRoute.replica(() -> metrics.query("findByCardType", fields,
+                mapper -> jdbcTemplate.query(sql, mapper, cardType)));
+    }
+
+    public Optional<CardData> findById(int id) {
+        return findById(id, CardDataField.ALL);
+    }
+
+    public Optional<CardData> findById(int id, Set<CardDataField> fields) {
+        String sql = baseSelect(fields) + " WHERE id = ?";
+        return DataSourceRoute.replica(() -> metrics.query("findById", fields, mapper -> jdbcTemplate.query(sql, mapper, id)))
+                .stream().findFirst();
+    }
+
+    public List<CardData> findMatching(CardDataFilter filter, Set<CardDataField> fields) {
+        Where where = where(filter);
+        String sql = baseSelect(fields) + where.sql();
+        return DataSourceRoute.replica(() -> metrics.query("findMatching", fields,
+                mapper -> jdbcTemplate.query(sql, mapper, where.args())));
+    }
+
+    /**
+     * Rows whose id is in {@code ids}, in one statement: {@code id = ANY(?)} with an array parameter
+     * on PostgreSQL (one plan regardless of the number of ids), an IN list elsewhere. Rows come back
+     * in the order of {@code ids}; ids without a row are skipped and duplicates are returned once.
+     */
+    public List<CardData> findByIds(List<Integer> ids, Set<CardDataField> fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Set<CardDataField> selected = withId(fields);
+        List<CardData> rows;
+        if (isPostgres()) {
+            String sql = baseSelect(selected) + " WHERE id = ANY(?)";
+            rows = DataSourceRoute.replica(() -> metrics.query("findByIds", selected, mapper -> jdbcTemplate.query(sql,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", ids.toArray())), mapper)));
+        } else {
+            StringJoiner in = new StringJoiner(", ", " WHERE id IN (", ")");
+            ids.forEach(id -> in.add("?"));
+            String sql = baseSelect(selected) + in;
+            rows = DataSourceRoute.replica(() -> metrics.query(
+                    "findByIds", selected, mapper -> jdbcTemplate.query(sql, mapper, ids.toArray())));
+        }
+        Map<Integer, CardData> byId = new HashMap<>(rows.size() * 2);
+        for (CardData row : rows) {
+            byId.put(row.getId(), row);
+        }
+        List<CardData> ordered = new ArrayList<>(rows.size());
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            CardData row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Rows whose {@code card_number}, without spaces and dashes, is one of the digit-only
+     * {@code numbers}, in one statement: {@code = ANY(?)} on PostgreSQL, an IN list elsewhere.
+     * Served by an index on that expression. Rows come back in no particular order.
+     */
+    public List<CardData> findByCardNumbers(List<String> numbers, Set<CardDataField> fields) {
+        if (numbers.isEmpty()) {
+            return List.of();
+        }
+        if (isPostgres()) {
+            String sql = baseSelect(fields) + " WHERE " + CARD_NUMBER_DIGITS + " = ANY(?)";
+            return DataSourceRoute.replica(() -> metrics.query("findByCardNumbers", fields, mapper -> jdbcTemplate.query(sql,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", numbers.toArray())), mapper)));
+        }
+        StringJoiner in = new StringJoiner(", ", " WHERE " + CARD_NUMBER_DIGITS + " IN (", ")");
+        numbers.forEach(number -> in.add("?"));
+        String sql = baseSelect(fields) + in;
+        return DataSourceRoute.replica(() -> metrics.query(
+                "findByCardNumbers", fields, mapper -> jdbcTemplate.query(sql, mapper, numbers.toArray())));
+    }
+
+    /**
+     * Keyset page ordered by id: returns at most {@code limit} rows with {@code id > afterId}.
+     * Unlike OFFSET paging the cost of a page does not grow with its position in the table.
+     */
+    public List<CardData> findPage(CardDataFilter filter, int afterId, int limit, Set<CardDataField> fields) {
+        Set<CardDataField> selected = withId(fields);
+        Where where = where(filter).and("id > ?", afterId);
+        String sql = baseSelect(selected) + where.sql() + " ORDER BY id LIMIT ?";
+        Object[] args = where.args(limit);
+        return DataSourceRoute.replica(() -> metrics.query(
+                "findPage", selected, mapper -> jdbcTemplate.query(sql, mapper, args)));
+    }
+
+    /**
+     * Streams rows in id order to {@code consumer} without collecting them. The statement is
+     * forward-only with a fetch size, so the PostgreSQL driver reads through a server-side cursor;
+     * that only happens inside a transaction (auto-commit off), which callers must provide.
+     */
+    public void streamAll(CardDataFilter filter, Set<CardDataField> fields, Consumer<CardData> consumer) {
+        Where where = where(filter);
+        String sql = baseSelect(fields) + where.sql() + " ORDER BY id";
+        Object[] args = where.args();
+        DataSourceRoute.replica(() -> metrics.stream("streamAll", fields, consumer, (rowMapper, sink) -> {
+            int[] rowNum = {0};
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                new ArgumentPreparedStatementSetter(args).setValues(ps);
+                return ps;
+            }, (ResultSet rs) -> {
+                sink.accept(rowMapper.mapRow(rs, rowNum[0]++));
+            });
+        }));
+    }
+
+    /**
+     * Streams the rows with {@code afterId < id <= upToId} in id order, like {@link #streamAll};
+     * ranges of the primary key let several readers split one table between them.
+     */
+    public void streamIdRange(long afterId, long upToId, Consumer<CardData> consumer) {
+        String sql = baseSelect() + " WHERE id > ? AND id <= ? ORDER BY id";
+        DataSourceRoute.replica(() -> metrics.stream("streamIdRange", CardDataField.ALL, consumer, (rowMapper, sink) -> {
+            int[] rowNum = {0};
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setLong(1, afterId);
+                ps.setLong(2, upToId);
+                return ps;
+            }, (ResultSet rs) -> {
+                sink.accept(rowMapper.mapRow(rs, rowNum[0]++));
+            });
+        }));
+    }
+
+    /**
+     * Smallest and largest id in the table, or empty when it has no rows.
+     */
+    public Optional<IdRange> idRange() {
+        String sql = "SELECT MIN(id), MAX(id) FROM " + schema + ".card_data";
+        return DataSourceRoute.replica(() -> jdbcTemplate.query(sql, rs -> {
+            rs.next();
+            int first = rs.getInt(1);
+            return rs.wasNull() ? Optional.<IdRange>empty() : Optional.of(new IdRange(first, rs.getInt(2)));
+        }));
+    }
+
+    public record IdRange(int first, int last) {
+    }
+
+    /**
+     * Smallest and largest id of the cards that expired before {@code expiredBefore}, or empty when
+     * there are none. Served by {@code idx_card_data_expires}; read from the primary, since the
+     * archiver deletes what it finds.
+     */
+    public Optional<IdRange> expiredIdRange(LocalDate expiredBefore) {
+        String sql = "SELECT MIN(id), MAX(id) FROM " + schema + ".card_data WHERE expires < ?";
+        return DataSourceRoute.primary(() -> jdbcTemplate.query(sql, rs -> {
+            rs.next();
+            int first = rs.getInt(1);
+            return rs.wasNull() ? Optional.<IdRange>empty() : Optional.of(new IdRange(first, rs.getInt(2)));
+        }, toSqlDate(expiredBefore)));
+    }
+
+    /**
+     * Moves the cards with {@code afterId < id <= upToId} that expired before {@code expiredBefore}
+     * to {@code card_data_archive} and returns their ids. On PostgreSQL this is one statement, a
+     * {@code DELETE ... RETURNING} feeding the insert, that skips rows other transactions have
+     * locked rather than waiting for them. Elsewhere the deleted rows are read back from a delta
+     * table and inserted in one batch, so the caller must provide the transaction.
+     */
+    public List<Integer> archiveExpired(LocalDate expiredBefore, int afterId, int upToId) {
+        String columns = insertColumns() + ", version";
+        Object[] args = {afterId, upToId, toSqlDate(expiredBefore)};
+        if (isPostgres()) {
+            String sql = "WITH moved AS (DELETE FROM " + schema + ".card_data WHERE id IN (" +
+                    "SELECT id FROM " + schema + ".card_data WHERE id > ? AND id <= ? AND expires < ? " +
+                    "FOR UPDATE SKIP LOCKED) RETURNING " + columns + ") " +
+                    "INSERT INTO " + schema + ".card_data_archive (" + columns + ") " +
+                    "SELECT " + columns + " FROM moved RETURNING id";
+            List<Integer> ids = new ArrayList<>();
+            metrics.update("archiveExpired", () -> {
+                ids.addAll(jdbcTemplate.queryForList(sql, Integer.class, args));
+                return ids.size();
+            });
+            return ids;
+        }
+        String delete = "SELECT " + columns + " FROM OLD TABLE (DELETE FROM " + schema + ".card_data " +
+                "WHERE id > ? AND id <= ? AND expires < ?)";
+        String insert = "INSERT INTO " + schema + ".card_data_archive (" + columns + ") " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Integer> ids = new ArrayList<>();
+        metrics.update("archiveExpired", () -> {
+            List<CardData> rows = jdbcTemplate.query(delete, new CardDataRowMapper(CardDataField.ALL), args);
+            List<Integer> all = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                all.add(i);
+                ids.add(rows.get(i).getId());
+            }
+            return batch(insert, all, new int[rows.size()], (ps, i) -> {
+                CardData cd = rows.get(i);
+                ps.setObject(1, cd.getId(), Types.INTEGER);
+                setColumns(ps, 2, cd);
+                ps.setLong(14, cd.getVersion());
+            });
+        });
+        return ids;
+    }
+
+    /**
+     * {@code COUNT(*)}, {@code SUM(credit_limit)} and {@code AVG(credit_limit)} over the rows matching
+     * {@code filter}, one bucket per distinct combination of {@code groupBy} columns (a single bucket
+     * when it is empty), ordered by the grouping columns. {@code groupBy} must be a subset of
+     * {@link CardDataField#GROUPABLE}; the column names come from the enum, never from the caller.
+     */
+    public List<CardDataStats> stats(CardDataFilter filter, Set<CardDataField> groupBy) {
+        StringJoiner columns = new StringJoiner(", ");
+        for (CardDataField field : groupBy) {
+            columns.add(field.column());
+        }
+        String grouping = columns.toString();
+        Where where = where(filter);
+        String sql = "SELECT " + (groupBy.isEmpty() ? "" : grouping + ", ") +
+                "COUNT(*), SUM(credit_limit), AVG(credit_limit) FROM " + schema + ".card_data" + where.sql() +
+                (groupBy.isEmpty() ? "" : " GROUP BY " + grouping + " ORDER BY " + grouping);
+        return DataSourceRoute.replica(() -> metrics.aggregate("stats", () -> jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Map<String, Object> group = new LinkedHashMap<>();
+            int i = 1;
+            for (CardDataField field : groupBy) {
+                group.put(field.property(), rs.getObject(i++));
+            }
+            long count = rs.getLong(i++);
+            BigDecimal sum = rs.getBigDecimal(i++);
+            BigDecimal avg = rs.getBigDecimal(i);
+            return new CardDataStats(group, count, sum,
+                    avg == null ? null : avg.setScale(CREDIT_LIMIT_SCALE, RoundingMode.HALF_UP));
+        }, where.args())));
+    }
+
+    /**
+     * What {@link #stats} is computed from: per bucket {@code COUNT(*)}, {@code SUM(credit_limit)}
+     * and {@code COUNT(credit_limit)}, unordered, so buckets from several databases can be added up.
+     */
+    List<StatsPart> statsParts(CardDataFilter filter, Set<CardDataField> groupBy) {
+        StringJoiner columns = new StringJoiner(", ");
+        for (CardDataField field : groupBy) {
+            columns.add(field.column());
+        }
+        String grouping = columns.toString();
+        Where where = where(filter);
+        String sql = "SELECT " + (groupBy.isEmpty() ? "" : grouping + ", ") +
+                "COUNT(*), SUM(credit_limit), COUNT(credit_limit) FROM " + schema + ".card_data" + where.sql() +
+                (groupBy.isEmpty() ? "" : " GROUP BY " + grouping);
+        return DataSourceRoute.replica(() -> metrics.aggregate("statsParts", () -> jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Map<String, Object> group = new LinkedHashMap<>();
+            int i = 1;
+            for (CardDataField field : groupBy) {
+                group.put(field.property(), rs.getObject(i++));
+            }
+            return new StatsPart(group, rs.getLong(i), rs.getBigDecimal(i + 1), rs.getLong(i + 2));
+        }, where.args())));
+    }
+
+    record StatsPart(Map<String, Object> group, long count, BigDecimal creditLimitSum, long creditLimits) {
+    }
+
+    private static Where where(CardDataFilter filter) {
+        return new Where()
+                .and("card_brand = ?", filter.cardBrand())
+                .and("card_type = ?", filter.cardType())
+                .and("client_id = ?", filter.clientId())
+                .and("expires >= ?", toSqlDate(filter.expiresFrom()))
+                .and("expires <= ?", toSqlDate(filter.expiresTo()))
+                .and("card_on_dark_web = ?", filter.cardOnDarkWeb())
+                .and("credit_limit >= ?", filter.minCreditLimit())
+                .and("credit_limit <= ?", filter.maxCreditLimit());
+    }
+
+    private String insertColumns() {
+        return "id, client_id, card_brand, card_type, card_number, expires, cvv, has_chip, " +
+                "num_cards_issued, credit_limit, acct_open_date, year_pin_last_changed, card_on_dark_web";
     }
 
     public int insert(CardData cd) {
-        String sql = "INSERT INTO " + schema + ".card_data (" +
-                "id, client_id, card_brand, card_type, card_number, expires, cvv, has_chip, " +
-                "num_cards_issued, credit_limit, acct_open_date, year_pin_last_changed, card_on_dark_web) " +
+        String sql = "INSERT INTO " + schema + ".card_data (" + insertColumns() + ") " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        return jdbcTemplate.update(
+        return metrics.update("insert", () -> jdbcTemplate.update(
                 sql,
                 cd.getId(),
                 cd.getClientId(),
@@ -56,15 +427,428 @@ public class CardDataRepository {
                 toSqlDate(cd.getAcctOpenDate()),
                 cd.getYearPinLastChanged(),
                 cd.getCardOnDarkWeb()
-        );
+        ));
+    }
+
+    /**
+     * Inserts {@code rows} with a single JDBC batch and returns the number of rows written.
+     */
+    public int batchInsert(List<CardData> rows) {
+        return metrics.update("batchInsert", () -> doBatchInsert(rows));
+    }
+
+    private int doBatchInsert(List<CardData> rows) {
+        String sql = "INSERT INTO " + schema + ".card_data (" + insertColumns() + ") " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        int[] counts = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                CardData cd = rows.get(i);
+                ps.setObject(1, cd.getId(), Types.INTEGER);
+                setColumns(ps, 2, cd);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        int inserted = 0;
+        for (int count : counts) {
+            // SUCCESS_NO_INFO (-2) still means the row was written.
+            inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return inserted;
+    }
+
+    /**
+     * Inserts {@code rows} through PostgreSQL {@code COPY ... FROM STDIN} when the underlying
+     * connection is a PostgreSQL one, falling back to {@link #batchInsert(List)} otherwise.
+     */
+    public int copyInsert(List<CardData> rows) {
+        return metrics.update("copyInsert", () -> doCopyInsert(rows));
+    }
+
+    private int doCopyInsert(List<CardData> rows) {
+        Integer copied = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            if (!con.isWrapperFor(PGConnection.class)) {
+                return null;
+            }
+            String sql = "COPY " + schema + ".card_data (" + insertColumns() + ") FROM STDIN WITH (FORMAT csv)";
+            PGCopyOutputStream copy = new PGCopyOutputStream(con.unwrap(PGConnection.class), sql);
+            try {
+                Writer out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8));
+                for (CardData cd : rows) {
+                    CopyCsv.writeRow(out, cd);
+                }
+                out.flush();
+                copy.endCopy();
+            } catch (IOException | RuntimeException e) {
+                // Closing the stream would end the COPY and keep the rows sent so far.
+                cancel(copy, e);
+                if (e instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new SQLException("COPY into " + schema + ".card_data failed", e);
+            }
+            return rows.size();
+        });
+        return copied != null ? copied : doBatchInsert(rows);
+    }
+
+    private static void cancel(PGCopyOutputStream copy, Exception cause) {
+        if (copy.isActive()) {
+            try {
+                copy.cancelCopy();
+            } catch (SQLException e) {
+                cause.addSuppressed(e);
+            }
+        }
     }
 
     public int deleteById(int id) {
         String sql = "DELETE FROM " + schema + ".card_data WHERE id = ?";
-        return jdbcTemplate.update(sql, id);
+        return metrics.update("deleteById", () -> jdbcTemplate.update(sql, id));
+    }
+
+    /**
+     * Deletes each of {@code ids} with a single JDBC batch and returns the affected row count per id,
+     * in the order given.
+     */
+    public int[] deleteByIds(List<Integer> ids) {
+        String sql = "DELETE FROM " + schema + ".card_data WHERE id = ?";
+        int[] counts = new int[ids.size()];
+        metrics.update("deleteByIds", () -> {
+            int[] raw = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setInt(1, ids.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return ids.size();
+                }
+            });
+            int deleted = 0;
+            for (int i = 0; i < raw.length; i++) {
+                // SUCCESS_NO_INFO (-2): the driver ran the statement without reporting a count.
+                counts[i] = raw[i] == Statement.SUCCESS_NO_INFO ? 1 : raw[i];
+                deleted += counts[i];
+            }
+            return deleted;
+        });
+        return counts;
+    }
+
+    /**
+     * Inserts {@code rows} as they are, keeping each row's {@code version} (1 when it has none), in
+     * one JDBC batch. For copying rows between databases; the idempotency key is not carried over.
+     */
+    public int insertCopies(List<CardData> rows) {
+        String sql = "INSERT INTO " + schema + ".card_data (" + insertColumns() + ", version) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Integer> all = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            all.add(i);
+        }
+        return metrics.update("insertCopies", () -> batch(sql, all, new int[rows.size()], (ps, i) -> {
+            CardData cd = rows.get(i);
+            ps.setObject(1, cd.getId(), Types.INTEGER);
+            setColumns(ps, 2, cd);
+            ps.setLong(14, cd.getVersion() == null ? 1 : cd.getVersion());
+        }));
+    }
+
+    /**
+     * Deletes each of {@code rows} only while it is still at the row's {@code version}, in one JDBC
+     * batch, and returns the affected row count per row. A row written since it was read is kept.
+     */
+    public int[] deleteUnchanged(List<CardData> rows) {
+        String sql = "DELETE FROM " + schema + ".card_data WHERE id = ? AND version = ?";
+        List<Integer> all = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            all.add(i);
+        }
+        int[] counts = new int[rows.size()];
+        metrics.update("deleteUnchanged", () -> batch(sql, all, counts, (ps, i) -> {
+            ps.setObject(1, rows.get(i).getId(), Types.INTEGER);
+            ps.setLong(2, rows.get(i).getVersion() == null ? 1 : rows.get(i).getVersion());
+        }));
+        return counts;
+    }
+
+    /**
+     * Inserts {@code cd}, or overwrites the row with its id, in one statement: {@code INSERT ...
+     * ON CONFLICT (id) DO UPDATE} on PostgreSQL, {@code MERGE} elsewhere. Returns the row's new
+     * version (1 for an insert), or empty when the row was already last written with
+     * {@code idempotencyKey} and was left alone.
+     */
+    public OptionalLong upsert(CardData cd, String idempotencyKey) {
+        String sql = returning(upsertSql(), "version");
+        return writeReturningVersion("upsert", sql, ps -> {
+            ps.setObject(1, cd.getId(), Types.INTEGER);
+            setColumns(ps, 2, cd);
+            ps.setString(14, idempotencyKey);
+        });
+    }
+
+    /**
+     * Overwrites the row with the id of {@code cd} if it is still at {@code expectedVersion} (any
+     * version when null) and was not last written with {@code idempotencyKey}. Returns the new
+     * version, or empty when nothing was updated.
+     */
+    public OptionalLong update(CardData cd, Long expectedVersion, String idempotencyKey) {
+        String sql = returning(updateSql(), "version");
+        return writeReturningVersion("update", sql, ps -> bindUpdate(ps, cd, expectedVersion, idempotencyKey));
+    }
+
+    /**
+     * Writes {@code rows} with one JDBC batch per kind of statement and returns the affected row
+     * count per row, in the order given. Rows without a version are upserted as by
+     * {@link #upsert}; rows with one are updated as by {@link #update} with that version expected.
+     */
+    public int[] batchUpsert(List<CardData> rows, String idempotencyKey) {
+        List<Integer> upserts = new ArrayList<>();
+        List<Integer> updates = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            (rows.get(i).getVersion() == null ? upserts : updates).add(i);
+        }
+        int[] counts = new int[rows.size()];
+        metrics.update("batchUpsert", () -> {
+            int written = batch(upsertSql(), upserts, counts, (ps, i) -> {
+                CardData cd = rows.get(i);
+                ps.setObject(1, cd.getId(), Types.INTEGER);
+                setColumns(ps, 2, cd);
+                ps.setString(14, idempotencyKey);
+            });
+            return written + batch(updateSql(), updates, counts,
+                    (ps, i) -> bindUpdate(ps, rows.get(i), rows.get(i).getVersion(), idempotencyKey));
+        });
+        return counts;
+    }
+
+    /**
+     * Sets {@code credit_limit} of each row in one JDBC batch, under the same version and
+     * idempotency rules as {@link #update}, and returns the affected row count per update.
+     */
+    public int[] batchUpdateCreditLimits(List<CreditLimitUpdate> updates, String idempotencyKey) {
+        String sql = "UPDATE " + schema + ".card_data SET credit_limit = ?, version = version + 1, idempotency_key = ? " +
+                "WHERE id = ?" + UPDATE_CONDITIONS;
+        List<Integer> all = new ArrayList<>(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            all.add(i);
+        }
+        int[] counts = new int[updates.size()];
+        metrics.update("batchUpdateCreditLimits", () -> batch(sql, all, counts, (ps, i) -> {
+            CreditLimitUpdate update = updates.get(i);
+            ps.setBigDecimal(1, update.creditLimit());
+            ps.setString(2, idempotencyKey);
+            ps.setObject(3, update.id(), Types.INTEGER);
+            bindConditions(ps, 4, update.version(), idempotencyKey);
+        }));
+        return counts;
+    }
+
+    /**
+     * Sets {@code card_on_dark_web} on each of {@code ids} in one JDBC batch and returns the affected
+     * row count per id, in the order given. Rows already flagged are left alone (count 0); flagged
+     * rows get a new version and no idempotency key, like any other unkeyed write.
+     */
+    public int[] markOnDarkWeb(List<Integer> ids) {
+        String sql = "UPDATE " + schema + ".card_data SET card_on_dark_web = TRUE, version = version + 1, " +
+                "idempotency_key = NULL WHERE id = ? AND card_on_dark_web IS NOT TRUE";
+        List<Integer> all = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            all.add(i);
+        }
+        int[] counts = new int[ids.size()];
+        metrics.update("markOnDarkWeb", () -> batch(sql, all, counts, (ps, i) -> ps.setInt(1, ids.get(i))));
+        return counts;
+    }
+
+    /**
+     * Version and last idempotency key of each of {@code ids} that exists. Read from the primary:
+     * callers compare it with a write they just made.
+     */
+    public Map<Integer, RowVersion> findVersions(List<Integer> ids) {
+        String select = "SELECT id, version, idempotency_key FROM " + schema + ".card_data";
+        RowMapper<Map.Entry<Integer, RowVersion>> mapper = (rs, rowNum) ->
+                Map.entry(rs.getInt(1), new RowVersion(rs.getLong(2), rs.getString(3)));
+        List<Map.Entry<Integer, RowVersion>> rows;
+        if (ids.isEmpty()) {
+            rows = List.of();
+        } else if (isPostgres()) {
+            rows = DataSourceRoute.primary(() -> jdbcTemplate.query(select + " WHERE id = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", ids.toArray())), mapper));
+        } else {
+            StringJoiner in = new StringJoiner(", ", " WHERE id IN (", ")");
+            ids.forEach(id -> in.add("?"));
+            rows = DataSourceRoute.primary(() -> jdbcTemplate.query(select + in, mapper, ids.toArray()));
+        }
+        Map<Integer, RowVersion> versions = new HashMap<>(rows.size() * 2);
+        rows.forEach(row -> versions.put(row.getKey(), row.getValue()));
+        return versions;
+    }
+
+    public record RowVersion(long version, String idempotencyKey) {
     }
 
-    private java.sql.Date toSqlDate(java.time.LocalDate date) {
+    // Replaying the request that last wrote a row changes nothing, so a retry can never bump its version twice.
+    private String upsertSql() {
+        String[] columns = insertColumns().split(", ");
+        boolean postgres = isPostgres();
+        String source = postgres ? "EXCLUDED" : "s";
+        StringJoiner set = new StringJoiner(", ");
+        for (int i = 1; i < columns.length; i++) {
+            set.add(columns[i] + " = " + source + "." + columns[i]);
+        }
+        set.add("version = t.version + 1").add("idempotency_key = " + source + ".idempotency_key");
+        String fresh = "(" + source + ".idempotency_key IS NULL OR t.idempotency_key IS DISTINCT FROM " +
+                source + ".idempotency_key)";
+        if (postgres) {
+            return "INSERT INTO " + schema + ".card_data AS t (" + insertColumns() + ", version, idempotency_key) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1, ?) " +
+                    "ON CONFLICT (id) DO UPDATE SET " + set + " WHERE " + fresh;
+        }
+        StringJoiner values = new StringJoiner(", ");
+        for (String column : columns) {
+            values.add("s." + column);
+        }
+        return "MERGE INTO " + schema + ".card_data t " +
+                "USING (VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS VARCHAR(64)))) " +
+                "s (" + insertColumns() + ", idempotency_key) ON t.id = s.id " +
+                "WHEN MATCHED AND " + fresh + " THEN UPDATE SET " + set + " " +
+                "WHEN NOT MATCHED THEN INSERT (" + insertColumns() + ", version, idempotency_key) " +
+                "VALUES (" + values + ", 1, s.idempotency_key)";
+    }
+
+    private String updateSql() {
+        String[] columns = insertColumns().split(", ");
+        StringJoiner set = new StringJoiner(", ");
+        for (int i = 1; i < columns.length; i++) {
+            set.add(columns[i] + " = ?");
+        }
+        return "UPDATE " + schema + ".card_data SET " + set + ", version = version + 1, idempotency_key = ? " +
+                "WHERE id = ?" + UPDATE_CONDITIONS;
+    }
+
+    private static void bindUpdate(PreparedStatement ps, CardData cd, Long expectedVersion, String idempotencyKey)
+            throws SQLException {
+        setColumns(ps, 1, cd);
+        ps.setString(13, idempotencyKey);
+        ps.setObject(14, cd.getId(), Types.INTEGER);
+        bindConditions(ps, 15, expectedVersion, idempotencyKey);
+    }
+
+    private static void bindConditions(PreparedStatement ps, int first, Long expectedVersion, String idempotencyKey)
+            throws SQLException {
+        ps.setObject(first, expectedVersion, Types.BIGINT);
+        ps.setObject(first + 1, expectedVersion, Types.BIGINT);
+        ps.setString(first + 2, idempotencyKey);
+        ps.setString(first + 3, idempotencyKey);
+    }
+
+    // H2 has no RETURNING, but reads the same thing from a data change delta table.
+    private String returning(String sql, String column) {
+        return isPostgres() ? sql + " RETURNING " + column : "SELECT " + column + " FROM FINAL TABLE (" + sql + ")";
+    }
+
+    private OptionalLong writeReturningVersion(String method, String sql, PreparedStatementSetter setter) {
+        OptionalLong[] version = {OptionalLong.empty()};
+        metrics.update(method, () -> {
+            version[0] = jdbcTemplate.query(sql, setter,
+                    rs -> rs.next() ? OptionalLong.of(rs.getLong(1)) : OptionalLong.empty());
+            return version[0].isPresent() ? 1 : 0;
+        });
+        return version[0];
+    }
+
+    // Runs the rows at the given indices as one batch and stores their counts at the same indices.
+    private int batch(String sql, List<Integer> indices, int[] counts, IndexedSetter setter) {
+        if (indices.isEmpty()) {
+            return 0;
+        }
+        int[] raw = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setter.setValues(ps, indices.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return indices.size();
+            }
+        });
+        int written = 0;
+        for (int i = 0; i < raw.length; i++) {
+            // SUCCESS_NO_INFO (-2): the driver ran the statement without reporting a count.
+            int count = raw[i] == Statement.SUCCESS_NO_INFO ? 1 : raw[i];
+            counts[indices.get(i)] = count;
+            written += count;
+        }
+        return written;
+    }
+
+    @FunctionalInterface
+    private interface IndexedSetter {
+        void setValues(PreparedStatement ps, int index) throws SQLException;
+    }
+
+    // The twelve columns after id, in insertColumns() order, from parameter index first on.
+    private static void setColumns(PreparedStatement ps, int first, CardData cd) throws SQLException {
+        ps.setObject(first, cd.getClientId(), Types.INTEGER);
+        ps.setString(first + 1, cd.getCardBrand());
+        ps.setString(first + 2, cd.getCardType());
+        ps.setString(first + 3, cd.getCardNumber());
+        ps.setDate(first + 4, toSqlDate(cd.getExpires()));
+        ps.setString(first + 5, cd.getCvv());
+        ps.setObject(first + 6, cd.getHasChip(), Types.BOOLEAN);
+        ps.setObject(first + 7, cd.getNumCardsIssued(), Types.INTEGER);
+        ps.setBigDecimal(first + 8, cd.getCreditLimit());
+        ps.setDate(first + 9, toSqlDate(cd.getAcctOpenDate()));
+        ps.setObject(first + 10, cd.getYearPinLastChanged(), Types.INTEGER);
+        ps.setObject(first + 11, cd.getCardOnDarkWeb(), Types.BOOLEAN);
+    }
+
+    // Same check as the COPY path; decided once, the database does not change under a running application.
+    private boolean isPostgres() {
+        Boolean postgres = this.postgres;
+        if (postgres == null) {
+            postgres = Boolean.TRUE.equals(jdbcTemplate.execute(
+                    (ConnectionCallback<Boolean>) con -> con.isWrapperFor(PGConnection.class)));
+            this.postgres = postgres;
+        }
+        return postgres;
+    }
+
+    private static java.sql.Date toSqlDate(java.time.LocalDate date) {
         return date == null ? null : java.sql.Date.valueOf(date);
     }
+
+    /**
+     * WHERE clause under construction; a criterion with a null value is left out.
+     */
+    private static final class Where {
+        private final StringJoiner sql = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        private final List<Object> args = new ArrayList<>();
+
+        Where and(String predicate, Object value) {
+            if (value != null) {
+                sql.add(predicate);
+                args.add(value);
+            }
+            return this;
+        }
+
+        String sql() {
+            return sql.toString();
+        }
+
+        Object[] args(Object... trailing) {
+            List<Object> all = new ArrayList<>(args);
+            all.addAll(Arrays.asList(trailing));
+            return all.toArray();
+        }
+    }
 }
@@ -0,0 +1,158 @@
+package com.example.entitlement.repository;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Records per repository method the call, query, row mapping and (for streams) consumer time, and
+ * the rows returned, under {@code card_data.repository.*}. Mapping and consumer time are sampled.
+ */
+class CardDataRepositoryMetrics {
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    CardDataRepositoryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    List<CardData> query(String method, Set<CardDataField> fields,
+                         Function<CardDataRowMapper, List<CardData>> call) {
+        TimedCardDataRowMapper mapper = new TimedCardDataRowMapper(fields);
+        return record(meters(method, true, false), mapper, () -> call.apply(mapper), List::size, new long[1]);
+    }
+
+    // call must route every row through the consumer wrapper, so consumer time is not query time.
+    void stream(String method, Set<CardDataField> fields, Consumer<CardData> consumer,
+                StreamCall call) {
+        Meters meters = meters(method, true, true);
+        TimedCardDataRowMapper mapper = new TimedCardDataRowMapper(fields);
+        long[] sampledNanos = new long[1];
+        int[] rows = new int[1];
+        Consumer<CardData> timedConsumer = row -> {
+            if (rows[0]++ % TimedCardDataRowMapper.SAMPLE_EVERY != 0) {
+                consumer.accept(row);
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                consumer.accept(row);
+            } finally {
+                sampledNanos[0] += System.nanoTime() - start;
+            }
+        };
+        long[] consumerNanos = new long[1];
+        try {
+            record(meters, mapper, () -> {
+                try {
+                    call.run(mapper, timedConsumer);
+                    return rows[0];
+                } finally {
+                    consumerNanos[0] = estimate(sampledNanos[0], rows[0]);
+                }
+            }, Integer::intValue, consumerNanos);
+        } finally {
+            meters.consumer.record(consumerNanos[0], TimeUnit.NANOSECONDS);
+        }
+    }
+
+    <T> List<T> aggregate(String method, Supplier<List<T>> call) {
+        return record(meters(method, false, false), null, call, List::size, new long[1]);
+    }
+
+    int update(String method, IntSupplier call) {
+        return record(meters(method, false, false), null, call::getAsInt, Integer::intValue, new long[1]);
+    }
+
+    private <T> T record(Meters meters, TimedCardDataRowMapper mapper, Supplier<T> call,
+                         ToIntFunction<T> rows, long[] excludedNanos) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            meters.rows.record(rows.applyAsInt(result));
+            return result;
+        } finally {
+            long total = System.nanoTime() - start;
+            long mapping = mapper == null ? 0L : mapper.mappingNanos();
+            (success ? meters.success : meters.error()).record(total, TimeUnit.NANOSECONDS);
+            if (mapper != null) {
+                meters.mapping.record(mapping, TimeUnit.NANOSECONDS);
+            }
+            meters.query.record(Math.max(0L, total - mapping - excludedNanos[0]), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Sampled rows 0, SAMPLE_EVERY, 2 * SAMPLE_EVERY, ... of rows.
+    private static long estimate(long sampledNanos, int rows) {
+        long sampled = (rows + TimedCardDataRowMapper.SAMPLE_EVERY - 1) / TimedCardDataRowMapper.SAMPLE_EVERY;
+        return sampled == 0 ? 0 : sampledNanos * rows / sampled;
+    }
+
+    // A method is always either mapped or not, streamed or not, so its first call decides.
+    private Meters meters(String method, boolean mapped, boolean streamed) {
+        return meters.computeIfAbsent(method, m -> new Meters(m, mapped, streamed));
+    }
+
+    private final class Meters {
+        final String method;
+        final Timer success;
+        final Timer query;
+        final Timer mapping;
+        final Timer consumer;
+        final DistributionSummary rows;
+
+        Meters(String method, boolean mapped, boolean streamed) {
+            this.method = method;
+            this.success = calls("success");
+            this.query = timer("card_data.repository.query");
+            this.mapping = mapped ? timer("card_data.repository.mapping") : null;
+            this.consumer = streamed ? timer("card_data.repository.consumer") : null;
+            this.rows = DistributionSummary.builder("card_data.repository.rows")
+                    .description("Rows returned or affected by CardDataRepository calls")
+                    .tag("method", method)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        Timer error() {
+            return calls("error");
+        }
+
+        private Timer calls(String outcome) {
+            return Timer.builder("card_data.repository.calls")
+                    .description("Wall time of CardDataRepository calls")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        private Timer timer(String name) {
+            return Timer.builder(name)
+                    .tag("method", method)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+
+    @FunctionalInterface
+    interface StreamCall {
+        void run(CardDataRowMapper mapper, Consumer<CardData> consumer);
+    }
+}
@@ -1,49 +1,110 @@
 package com.example.entitlement.repository;
 
 import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
 import org.springframework.jdbc.core.RowMapper;
 
-import java.math.BigDecimal;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
 
+/**
+ * Maps {@code card_data} rows by column index. Indices are resolved from the result set metadata
+ * on the first row of each {@link ResultSet} rather than looked up by name for every column of
+ * every row. Fields that were not requested, or whose column is absent from the result, are left
+ * {@code null}.
+ * <p>
+ * An instance remembers the result set it last resolved, so it must not be shared between
+ * concurrently running queries; create one per query.
+ */
 public class CardDataRowMapper implements RowMapper<CardData> {
+
+    private static final CardDataField[] FIELDS = CardDataField.values();
+
+    // Slots of the column index array, which is indexed by CardDataField ordinal.
+    private static final int ID = CardDataField.ID.ordinal();
+    private static final int CLIENT_ID = CardDataField.CLIENT_ID.ordinal();
+    private static final int CARD_BRAND = CardDataField.CARD_BRAND.ordinal();
+    private static final int CARD_TYPE = CardDataField.CARD_TYPE.ordinal();
+    private static final int CARD_NUMBER = CardDataField.CARD_NUMBER.ordinal();
+    private static final int EXPIRES = CardDataField.EXPIRES.ordinal();
+    private static final int CVV = CardDataField.CVV.ordinal();
+    private static final int HAS_CHIP = CardDataField.HAS_CHIP.ordinal();
+    private static final int NUM_CARDS_ISSUED = CardDataField.NUM_CARDS_ISSUED.ordinal();
+    private static final int CREDIT_LIMIT = CardDataField.CREDIT_LIMIT.ordinal();
+    private static final int ACCT_OPEN_DATE = CardDataField.ACCT_OPEN_DATE.ordinal();
+    private static final int YEAR_PIN_LAST_CHANGED = CardDataField.YEAR_PIN_LAST_CHANGED.ordinal();
+    private static final int CARD_ON_DARK_WEB = CardDataField.CARD_ON_DARK_WEB.ordinal();
+    private static final int VERSION = CardDataField.VERSION.ordinal();
+
+    private final Set<CardDataField> fields;
+    private ResultSet resolvedFor;
+    // 1-based column index per CardDataField ordinal; 0 when the field is not read.
+    private final int[] columns = new int[FIELDS.length];
+
+    public CardDataRowMapper() {
+        this(EnumSet.allOf(CardDataField.class));
+    }
+
+    public CardDataRowMapper(Set<CardDataField> fields) {
+        this.fields = EnumSet.copyOf(fields);
+    }
+
     @Override
     public CardData mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (rs != resolvedFor) {
+            resolveColumns(rs);
+        }
+        int[] c = columns;
         CardData cd = new CardData();
-        cd.setId(getInteger(rs, "id"));
-        cd.setClientId(getInteger(rs, "client_id"));
-        cd.setCardBrand(rs.getString("card_brand"));
-        cd.setCardType(rs.getString("card_type"));
-        cd.setCardNumber(rs.getString("card_number"));
-        cd.setExpires(getLocalDate(rs, "expires"));
-        cd.setCvv(rs.getString("cvv"));
-        cd.setHasChip(getBooleanObj(rs, "has_chip"));
-        cd.setNumCardsIssued(getInteger(rs, "num_cards_issued"));
-        cd.setCreditLimit(getBigDecimal(rs, "credit_limit"));
-        cd.setAcctOpenDate(getLocalDate(rs, "acct_open_date"));
-        cd.setYearPinLastChanged(getInteger(rs, "year_pin_last_changed"));
-        cd.setCardOnDarkWeb(getBooleanObj(rs, "card_on_dark_web"));
+        if (c[ID] > 0) cd.setId(getInteger(rs, c[ID]));
+        if (c[CLIENT_ID] > 0) cd.setClientId(getInteger(rs, c[CLIENT_ID]));
+        if (c[CARD_BRAND] > 0) cd.setCardBrand(rs.getString(c[CARD_BRAND]));
+        if (c[CARD_TYPE] > 0) cd.setCardType(rs.getString(c[CARD_TYPE]));
+        if (c[CARD_NUMBER] > 0) cd.setCardNumber(rs.getString(c[CARD_NUMBER]));
+        if (c[EXPIRES] > 0) cd.setExpires(rs.getObject(c[EXPIRES], LocalDate.class));
+        if (c[CVV] > 0) cd.setCvv(rs.getString(c[CVV]));
+        if (c[HAS_CHIP] > 0) cd.setHasChip(getBooleanObj(rs, c[HAS_CHIP]));
+        if (c[NUM_CARDS_ISSUED] > 0) cd.setNumCardsIssued(getInteger(rs, c[NUM_CARDS_ISSUED]));
+        if (c[CREDIT_LIMIT] > 0) cd.setCreditLimit(rs.getBigDecimal(c[CREDIT_LIMIT]));
+        if (c[ACCT_OPEN_DATE] > 0) cd.setAcctOpenDate(rs.getObject(c[ACCT_OPEN_DATE], LocalDate.class));
+        if (c[YEAR_PIN_LAST_CHANGED] > 0) cd.setYearPinLastChanged(getInteger(rs, c[YEAR_PIN_LAST_CHANGED]));
+        if (c[CARD_ON_DARK_WEB] > 0) cd.setCardOnDarkWeb(getBooleanObj(rs, c[CARD_ON_DARK_WEB]));
+        if (c[VERSION] > 0) cd.setVersion(getLong(rs, c[VERSION]));
         return cd;
     }
 
-    private Integer getInteger(ResultSet rs, String column) throws SQLException {
-        int val = rs.getInt(column);
-        return rs.wasNull() ? null : val;
+    private void resolveColumns(ResultSet rs) throws SQLException {
+        Arrays.fill(columns, 0);
+        ResultSetMetaData meta = rs.getMetaData();
+        for (int i = 1, n = meta.getColumnCount(); i <= n; i++) {
+            String label = meta.getColumnLabel(i).toLowerCase(Locale.ROOT);
+            for (CardDataField field : FIELDS) {
+                if (field.column().equals(label) && fields.contains(field)) {
+                    columns[field.ordinal()] = i;
+                }
+            }
+        }
+        resolvedFor = rs;
     }
 
-    private Boolean getBooleanObj(ResultSet rs, String column) throws SQLException {
-        boolean val = rs.getBoolean(column);
+    private Integer getInteger(ResultSet rs, int column) throws SQLException {
+        int val = rs.getInt(column);
         return rs.wasNull() ? null : val;
     }
 
-    private BigDecimal getBigDecimal(ResultSet rs, String column) throws SQLException {
-        return rs.getBigDecimal(column);
+    private Long getLong(ResultSet rs, int column) throws SQLException {
+        long val = rs.getLong(column);
+        return rs.wasNull() ? null : val;
     }
 
-    private LocalDate getLocalDate(ResultSet rs, String column) throws SQLException {
-        java.sql.Date d = rs.getDate(column);
-        return d != null ? d.toLocalDate() : null;
+    private Boolean getBooleanObj(ResultSet rs, int column) throws SQLException {
+        boolean val = rs.getBoolean(column);
+        return rs.wasNull() ? null : val;
     }
 }
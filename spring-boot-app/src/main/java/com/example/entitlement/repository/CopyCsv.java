@@ -0,0 +1,73 @@
+package com.example.entitlement.repository;
+
+import com.example.entitlement.model.CardData;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes {@link CardData} rows in the PostgreSQL {@code COPY ... WITH (FORMAT csv)} text format.
+ * An unquoted empty field is read back as NULL, so every non-null string is quoted to keep empty
+ * strings distinct from NULL. Columns are in table order, the order {@link #HEADER} names them.
+ */
+public final class CopyCsv {
+
+    public static final String HEADER = "id,client_id,card_brand,card_type,card_number,expires,cvv,has_chip," +
+            "num_cards_issued,credit_limit,acct_open_date,year_pin_last_changed,card_on_dark_web\n";
+
+    private CopyCsv() {
+    }
+
+    public static void writeRow(Writer out, CardData cd) throws IOException {
+        writeValue(out, cd.getId());
+        out.write(',');
+        writeValue(out, cd.getClientId());
+        out.write(',');
+        writeString(out, cd.getCardBrand());
+        out.write(',');
+        writeString(out, cd.getCardType());
+        out.write(',');
+        writeString(out, cd.getCardNumber());
+        out.write(',');
+        writeValue(out, cd.getExpires());
+        out.write(',');
+        writeString(out, cd.getCvv());
+        out.write(',');
+        writeValue(out, cd.getHasChip());
+        out.write(',');
+        writeValue(out, cd.getNumCardsIssued());
+        out.write(',');
+        if (cd.getCreditLimit() != null) {
+            out.write(cd.getCreditLimit().toPlainString());
+        }
+        out.write(',');
+        writeValue(out, cd.getAcctOpenDate());
+        out.write(',');
+        writeValue(out, cd.getYearPinLastChanged());
+        out.write(',');
+        writeValue(out, cd.getCardOnDarkWeb());
+        out.write('\n');
+    }
+
+    // Integers, ISO dates and booleans never contain CSV metacharacters.
+    private static void writeValue(Writer out, Object value) throws IOException {
+        if (value != null) {
+            out.write(value.toString());
+        }
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,602 @@
+package com.example.entitlement.repository;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.model.CardDataStats;
+import com.example.entitlement.model.CreditLimitUpdate;
+import com.example.entitlement.sharding.ConsistentHashRing;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * {@link CardDataRepository} over several databases ("shards"), each holding the cards of the
+ * clients it owns in a {@link ConsistentHashRing}. Client-scoped reads and inserts go to one shard;
+ * everything else runs on all of them and is merged in id order. The first shard is the
+ * application's own DataSource. Transactions do not span shards, so a multi-row write is refused
+ * unless all its rows are on one shard.
+ */
+public class ShardedCardDataRepository extends CardDataRepository implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedCardDataRepository.class);
+
+    private static final Object END = new Object();
+    private static final int THREADS_PER_SHARD = 4;
+
+    private final List<DataSource> dataSources;
+    private final List<CardDataRepository> shards;
+    private final List<PlatformTransactionManager> transactionManagers;
+    private final List<TransactionTemplate> readOnly;
+    private final ConsistentHashRing ring;
+    private final int mergeBuffer;
+    private final ExecutorService executor;
+    private volatile boolean migrating;
+
+    /**
+     * @param dataSources one per shard, in ring order; the first is the application's DataSource
+     * @param mergeBuffer rows read ahead per shard while streams are merged
+     */
+    public ShardedCardDataRepository(List<DataSource> dataSources,
+                                     ConsistentHashRing ring,
+                                     String schema,
+                                     int fetchSize,
+                                     int mergeBuffer,
+                                     MeterRegistry meterRegistry) {
+        super(new JdbcTemplate(dataSources.get(0)), schema, fetchSize, meterRegistry);
+        if (dataSources.size() != ring.size()) {
+            throw new IllegalArgumentException(dataSources.size() + " shard DataSources for a ring of " + ring.size());
+        }
+        this.dataSources = List.copyOf(dataSources);
+        this.ring = ring;
+        this.mergeBuffer = mergeBuffer;
+        List<CardDataRepository> repositories = new ArrayList<>(dataSources.size());
+        List<PlatformTransactionManager> managers = new ArrayList<>(dataSources.size());
+        List<TransactionTemplate> templates = new ArrayList<>(dataSources.size());
+        for (DataSource ds : dataSources) {
+            repositories.add(new CardDataRepository(new JdbcTemplate(ds), schema, fetchSize, meterRegistry));
+            DataSourceTransactionManager manager = new DataSourceTransactionManager(ds);
+            managers.add(manager);
+            TransactionTemplate template = new TransactionTemplate(manager);
+            template.setReadOnly(true);
+            templates.add(template);
+        }
+        this.shards = List.copyOf(repositories);
+        this.transactionManagers = List.copyOf(managers);
+        this.readOnly = List.copyOf(templates);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(dataSources.size() * THREADS_PER_SHARD, r -> {
+            Thread thread = new Thread(r, "card-data-shard-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ConsistentHashRing ring() {
+        return ring;
+    }
+
+    public List<CardDataRepository> shards() {
+        return shards;
+    }
+
+    public PlatformTransactionManager transactionManager(int shard) {
+        return transactionManagers.get(shard);
+    }
+
+    public void setMigrating(boolean migrating) {
+        this.migrating = migrating;
+    }
+
+    @Override
+    public List<CardData> findAll(Set<CardDataField> fields) {
+        Set<CardDataField> selected = withId(fields);
+        return merged(onEveryShard(shard -> shard.findAll(selected)), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<CardData> findByCardType(String cardType, Set<CardDataField> fields) {
+        Set<CardDataField> selected = withId(fields);
+        return merged(onEveryShard(shard -> shard.findByCardType(cardType, selected)), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Optional<CardData> findById(int id, Set<CardDataField> fields) {
+        return onEveryShard(shard -> shard.findById(id, fields)).stream()
+                .flatMap(Optional::stream)
+                .findFirst();
+    }
+
+    @Override
+    public List<CardData> findMatching(CardDataFilter filter, Set<CardDataField> fields) {
+        Integer owner = clientShard(filter);
+        if (owner != null) {
+            return shards.get(owner).findMatching(filter, fields);
+        }
+        Set<CardDataField> selected = withId(fields);
+        return merged(onEveryShard(shard -> shard.findMatching(filter, selected)), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<CardData> findByIds(List<Integer> ids, Set<CardDataField> fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, CardData> byId = new HashMap<>(ids.size() * 2);
+        for (List<CardData> rows : onEveryShard(shard -> shard.findByIds(ids, fields))) {
+            rows.forEach(row -> byId.putIfAbsent(row.getId(), row));
+        }
+        List<CardData> ordered = new ArrayList<>(byId.size());
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            CardData row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public List<CardData> findByCardNumbers(List<String> numbers, Set<CardDataField> fields) {
+        if (numbers.isEmpty()) {
+            return List.of();
+        }
+        Set<CardDataField> selected = withId(fields);
+        return merged(onEveryShard(shard -> shard.findByCardNumbers(numbers, selected)), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<CardData> findPage(CardDataFilter filter, int afterId, int limit, Set<CardDataField> fields) {
+        Integer owner = clientShard(filter);
+        if (owner != null) {
+            return shards.get(owner).findPage(filter, afterId, limit, fields);
+        }
+        return merged(onEveryShard(shard -> shard.findPage(filter, afterId, limit, fields)), limit);
+    }
+
+    // Each shard is read by its own thread in its own transaction; callers need none.
+    @Override
+    public void streamAll(CardDataFilter filter, Set<CardDataField> fields, Consumer<CardData> consumer) {
+        Set<CardDataField> selected = withId(fields);
+        Integer owner = clientShard(filter);
+        List<Integer> from = owner != null ? List.of(owner) : allShards();
+        mergeStreams(from, consumer, (shard, sink) -> shard.streamAll(filter, selected, sink));
+    }
+
+    @Override
+    public void streamIdRange(long afterId, long upToId, Consumer<CardData> consumer) {
+        mergeStreams(allShards(), consumer, (shard, sink) -> shard.streamIdRange(afterId, upToId, sink));
+    }
+
+    @Override
+    public Optional<IdRange> idRange() {
+        return spanning(onEveryShard(CardDataRepository::idRange));
+    }
+
+    @Override
+    public Optional<IdRange> expiredIdRange(LocalDate expiredBefore) {
+        return spanning(onEveryShard(shard -> shard.expiredIdRange(expiredBefore)));
+    }
+
+    @Override
+    public List<Integer> archiveExpired(LocalDate expiredBefore, int afterId, int upToId) {
+        List<Integer> ids = new ArrayList<>();
+        onEachShard(shard -> shard == 0 ? shards.get(0).archiveExpired(expiredBefore, afterId, upToId)
+                : new TransactionTemplate(transactionManagers.get(shard)).execute(status ->
+                        shards.get(shard).archiveExpired(expiredBefore, afterId, upToId)))
+                .forEach(ids::addAll);
+        ids.sort(null);
+        return ids;
+    }
+
+    @Override
+    public List<CardDataStats> stats(CardDataFilter filter, Set<CardDataField> groupBy) {
+        Integer owner = clientShard(filter);
+        if (owner != null) {
+            return shards.get(owner).stats(filter, groupBy);
+        }
+        Map<Map<String, Object>, StatsPart> buckets = new LinkedHashMap<>();
+        for (List<StatsPart> parts : onEveryShard(shard -> shard.statsParts(filter, groupBy))) {
+            for (StatsPart part : parts) {
+                buckets.merge(part.group(), part, (a, b) -> new StatsPart(a.group(), a.count() + b.count(),
+                        a.creditLimitSum() == null ? b.creditLimitSum()
+                                : b.creditLimitSum() == null ? a.creditLimitSum() : a.creditLimitSum().add(b.creditLimitSum()),
+                        a.creditLimits() + b.creditLimits()));
+            }
+        }
+        List<CardDataStats> stats = new ArrayList<>(buckets.size());
+        for (StatsPart part : buckets.values()) {
+            BigDecimal avg = part.creditLimits() == 0 || part.creditLimitSum() == null ? null
+                    : part.creditLimitSum().divide(BigDecimal.valueOf(part.creditLimits()), CREDIT_LIMIT_SCALE, RoundingMode.HALF_UP);
+            stats.add(new CardDataStats(part.group(), part.count(), part.creditLimitSum(), avg));
+        }
+        stats.sort(BY_GROUP);
+        return stats;
+    }
+
+    @Override
+    public int insert(CardData cd) {
+        rejectExisting(List.of(cd));
+        return shards.get(shardOf(cd)).insert(cd);
+    }
+
+    @Override
+    public int batchInsert(List<CardData> rows) {
+        return insertOnOwner(rows, CardDataRepository::batchInsert);
+    }
+
+    @Override
+    public int copyInsert(List<CardData> rows) {
+        return insertOnOwner(rows, CardDataRepository::copyInsert);
+    }
+
+    @Override
+    public int insertCopies(List<CardData> rows) {
+        return onOneShard(rows.stream().map(this::shardOf).toList(), shard -> shards.get(shard).insertCopies(rows));
+    }
+
+    @Override
+    public int deleteById(int id) {
+        return onEveryShard(shard -> shard.deleteById(id)).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public int[] deleteByIds(List<Integer> ids) {
+        return added(onEveryShard(shard -> shard.deleteByIds(ids)), ids.size());
+    }
+
+    @Override
+    public int[] deleteUnchanged(List<CardData> rows) {
+        return added(onEveryShard(shard -> shard.deleteUnchanged(rows)), rows.size());
+    }
+
+    @Override
+    public OptionalLong upsert(CardData cd, String idempotencyKey) {
+        Integer holder = holders(List.of(cd.getId())).get(cd.getId());
+        return shards.get(holder != null ? holder : shardOf(cd)).upsert(cd, idempotencyKey);
+    }
+
+    @Override
+    public OptionalLong update(CardData cd, Long expectedVersion, String idempotencyKey) {
+        return onEveryShard(shard -> shard.update(cd, expectedVersion, idempotencyKey)).stream()
+                .filter(OptionalLong::isPresent)
+                .findFirst()
+                .orElse(OptionalLong.empty());
+    }
+
+    @Override
+    public int[] batchUpsert(List<CardData> rows, String idempotencyKey) {
+        Map<Integer, Integer> holders = holders(rows.stream().map(CardData::getId).toList());
+        List<Integer> targets = new ArrayList<>(rows.size());
+        for (CardData row : rows) {
+            targets.add(holders.getOrDefault(row.getId(), shardOf(row)));
+        }
+        return onOneShard(targets, shard -> shards.get(shard).batchUpsert(rows, idempotencyKey));
+    }
+
+    // Ids no shard holds match nothing, wherever the batch runs.
+    @Override
+    public int[] batchUpdateCreditLimits(List<CreditLimitUpdate> updates, String idempotencyKey) {
+        Map<Integer, Integer> holders = holders(updates.stream().map(CreditLimitUpdate::id).toList());
+        return onOneShard(holders.values(), shard -> shards.get(shard).batchUpdateCreditLimits(updates, idempotencyKey));
+    }
+
+    @Override
+    public int[] markOnDarkWeb(List<Integer> ids) {
+        return added(onEveryShard(shard -> shard.markOnDarkWeb(ids)), ids.size());
+    }
+
+    // While a row is being moved both shards may hold it; the higher version is the live one.
+    @Override
+    public Map<Integer, RowVersion> findVersions(List<Integer> ids) {
+        Map<Integer, RowVersion> versions = new HashMap<>(ids.size() * 2);
+        for (Map<Integer, RowVersion> shard : onEveryShard(shard -> shard.findVersions(ids))) {
+            shard.forEach((id, version) -> versions.merge(id, version,
+                    (a, b) -> a.version() >= b.version() ? a : b));
+        }
+        return versions;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (DataSource ds : dataSources.subList(1, dataSources.size())) {
+            if (ds instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Could not close a shard DataSource", e);
+                }
+            }
+        }
+    }
+
+    private Integer clientShard(CardDataFilter filter) {
+        return filter.clientId() == null || migrating ? null : ring.shardOf(filter.clientId());
+    }
+
+    private int shardOf(CardData cd) {
+        return cd.getClientId() == null ? 0 : ring.shardOf(cd.getClientId());
+    }
+
+    // The shard holding each existing id; while a row is being moved, the one with the higher version.
+    private Map<Integer, Integer> holders(List<Integer> ids) {
+        List<Map<Integer, RowVersion>> versions = onEveryShard(shard -> shard.findVersions(ids));
+        Map<Integer, Integer> holders = new HashMap<>(ids.size() * 2);
+        Map<Integer, Long> highest = new HashMap<>(ids.size() * 2);
+        for (int shard = 0; shard < versions.size(); shard++) {
+            for (Map.Entry<Integer, RowVersion> entry : versions.get(shard).entrySet()) {
+                Long seen = highest.get(entry.getKey());
+                if (seen == null || entry.getValue().version() > seen) {
+                    highest.put(entry.getKey(), entry.getValue().version());
+                    holders.put(entry.getKey(), shard);
+                }
+            }
+        }
+        return holders;
+    }
+
+    private List<Integer> allShards() {
+        List<Integer> all = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            all.add(i);
+        }
+        return all;
+    }
+
+    private int insertOnOwner(List<CardData> rows, ShardWrite write) {
+        List<Integer> targets = rows.stream().map(this::shardOf).toList();
+        distinctShard(targets);
+        rejectExisting(rows);
+        return onOneShard(targets, shard -> write.apply(shards.get(shard), rows));
+    }
+
+    // Ids are global: one already held by any shard is a duplicate, wherever the new row would go.
+    private void rejectExisting(List<CardData> rows) {
+        List<Integer> ids = rows.stream().map(CardData::getId).filter(Objects::nonNull).toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> holders = holders(ids);
+        for (Integer id : ids) {
+            Integer holder = holders.get(id);
+            if (holder != null) {
+                throw new DuplicateKeyException("card_data id " + id + " already exists on shard " + holder);
+            }
+        }
+    }
+
+    // The first shard joins the caller's transaction; any other runs the write in one of its own.
+    private <T> T onOneShard(Collection<Integer> targets, IntFunction<T> write) {
+        int shard = distinctShard(targets);
+        return shard == 0 ? write.apply(0)
+                : new TransactionTemplate(transactionManagers.get(shard)).execute(status -> write.apply(shard));
+    }
+
+    private static int distinctShard(Collection<Integer> targets) {
+        Set<Integer> distinct = new TreeSet<>(targets);
+        if (distinct.size() > 1) {
+            throw new InvalidDataAccessApiUsageException("The rows belong to shards " + distinct
+                    + "; a multi-row write has to stay on one shard");
+        }
+        return distinct.isEmpty() ? 0 : distinct.iterator().next();
+    }
+
+    @FunctionalInterface
+    private interface ShardWrite {
+        int apply(CardDataRepository shard, List<CardData> rows);
+    }
+
+    // The first shard runs on the calling thread, inside its transaction if any.
+    private <T> List<T> onEveryShard(Function<CardDataRepository, T> call) {
+        return onEachShard(shard -> call.apply(shards.get(shard)));
+    }
+
+    private <T> List<T> onEachShard(IntFunction<T> call) {
+        List<Future<T>> others = new ArrayList<>(shards.size() - 1);
+        for (int shard = 1; shard < shards.size(); shard++) {
+            int index = shard;
+            others.add(executor.submit(() -> call.apply(index)));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            results.add(call.apply(0));
+            for (Future<T> other : others) {
+                results.add(join(other));
+            }
+        } finally {
+            others.forEach(other -> other.cancel(true));
+        }
+        return results;
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted while waiting for a shard");
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException(cause);
+    }
+
+    private static Optional<IdRange> spanning(List<Optional<IdRange>> perShard) {
+        Optional<IdRange> range = Optional.empty();
+        for (Optional<IdRange> shard : perShard) {
+            if (shard.isPresent()) {
+                range = Optional.of(range.map(r -> new IdRange(Math.min(r.first(), shard.get().first()),
+                        Math.max(r.last(), shard.get().last()))).orElse(shard.get()));
+            }
+        }
+        return range;
+    }
+
+    private static List<CardData> merged(List<List<CardData>> perShard, int limit) {
+        List<CardData> all = new ArrayList<>();
+        perShard.forEach(all::addAll);
+        all.sort(Comparator.comparing(CardData::getId));
+        List<CardData> merged = new ArrayList<>(Math.min(all.size(), limit));
+        for (CardData row : all) {
+            if (merged.size() == limit) {
+                break;
+            }
+            if (merged.isEmpty() || !merged.get(merged.size() - 1).getId().equals(row.getId())) {
+                merged.add(row);
+            }
+        }
+        return merged;
+    }
+
+    private void mergeStreams(List<Integer> from, Consumer<CardData> consumer,
+                              BiConsumer<CardDataRepository, Consumer<CardData>> stream) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<BlockingQueue<Object>> queues = new ArrayList<>(from.size());
+        List<Future<?>> producers = new ArrayList<>(from.size());
+        for (int shard : from) {
+            BlockingQueue<Object> queue = new ArrayBlockingQueue<>(mergeBuffer);
+            queues.add(queue);
+            producers.add(executor.submit(() -> {
+                try {
+                    readOnly.get(shard).executeWithoutResult(status ->
+                            stream.accept(shards.get(shard), row -> put(queue, row, cancelled)));
+                    put(queue, END, cancelled);
+                } catch (CancellationException e) {
+                    // The consumer stopped reading.
+                } catch (RuntimeException | Error e) {
+                    queue.clear();
+                    queue.offer(new Failure(e));
+                }
+            }));
+        }
+        try {
+            PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing((Head head) -> head.row().getId()));
+            for (int i = 0; i < queues.size(); i++) {
+                advance(queues.get(i), i, heads);
+            }
+            Integer last = null;
+            while (!heads.isEmpty()) {
+                Head head = heads.poll();
+                if (!head.row().getId().equals(last)) {
+                    last = head.row().getId();
+                    consumer.accept(head.row());
+                }
+                advance(queues.get(head.queue()), head.queue(), heads);
+            }
+        } finally {
+            cancelled.set(true);
+            queues.forEach(BlockingQueue::clear);
+            producers.forEach(producer -> producer.cancel(true));
+        }
+    }
+
+    private static void advance(BlockingQueue<Object> queue, int index, PriorityQueue<Head> heads) {
+        Object next;
+        try {
+            next = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted while merging shard streams");
+        }
+        if (next instanceof Failure failure) {
+            throw rethrow(failure.cause());
+        }
+        if (next != END) {
+            heads.add(new Head((CardData) next, index));
+        }
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object item, AtomicBoolean cancelled) {
+        try {
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (cancelled.get()) {
+                    throw new CancellationException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    private static int[] added(List<int[]> perShard, int size) {
+        int[] sum = new int[size];
+        for (int[] counts : perShard) {
+            for (int i = 0; i < size; i++) {
+                sum[i] += counts[i];
+            }
+        }
+        return sum;
+    }
+
+    private record Head(CardData row, int queue) {
+    }
+
+    private record Failure(Throwable cause) {
+    }
+
+    // Buckets in grouping-column order, like ORDER BY: NULLs last.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<CardDataStats> BY_GROUP = (a, b) -> {
+        var left = a.group().values().iterator();
+        var right = b.group().values().iterator();
+        while (left.hasNext() && right.hasNext()) {
+            Object x = left.next();
+            Object y = right.next();
+            int order = x == null ? (y == null ? 0 : 1) : y == null ? -1 : ((Comparable) x).compareTo(y);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return 0;
+    };
+}
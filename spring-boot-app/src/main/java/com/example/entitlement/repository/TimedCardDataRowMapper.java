@@ -0,0 +1,44 @@
+package com.example.entitlement.repository;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * A {@link CardDataRowMapper} that estimates the time spent inside {@code mapRow}, so a query's wall
+ * time can be split into row mapping and everything else (statement execution and fetching). Only
+ * every {@value #SAMPLE_EVERY}th row is timed; the total is extrapolated from those.
+ */
+class TimedCardDataRowMapper extends CardDataRowMapper {
+
+    static final int SAMPLE_EVERY = 64;
+
+    private long sampledNanos;
+    private long sampled;
+    private long rows;
+
+    TimedCardDataRowMapper(Set<CardDataField> fields) {
+        super(fields);
+    }
+
+    @Override
+    public CardData mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (rows++ % SAMPLE_EVERY != 0) {
+            return super.mapRow(rs, rowNum);
+        }
+        long start = System.nanoTime();
+        try {
+            return super.mapRow(rs, rowNum);
+        } finally {
+            sampledNanos += System.nanoTime() - start;
+            sampled++;
+        }
+    }
+
+    long mappingNanos() {
+        return sampled == 0 ? 0 : sampledNanos * rows / sampled;
+    }
+}
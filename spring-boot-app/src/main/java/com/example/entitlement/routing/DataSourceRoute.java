@@ -0,0 +1,57 @@
+package com.example.entitlement.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Where the current thread's statements should go when {@link ReplicaRoutingDataSource} is in
+ * use. Code outside any scope, writes included, uses the primary; reads that tolerate replica lag
+ * opt in with {@link #replica(Supplier)}. The outermost scope wins, so work that must see the
+ * latest commit can wrap replica-routed reads in {@link #primary(Supplier)}.
+ * <p>
+ * Without replicas configured the scopes have no effect.
+ */
+public final class DataSourceRoute {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Target> CURRENT = new ThreadLocal<>();
+
+    private DataSourceRoute() {
+    }
+
+    public static <T> T replica(Supplier<T> read) {
+        return within(Target.REPLICA, read);
+    }
+
+    public static void replica(Runnable read) {
+        within(Target.REPLICA, () -> {
+            read.run();
+            return null;
+        });
+    }
+
+    public static <T> T primary(Supplier<T> work) {
+        return within(Target.PRIMARY, work);
+    }
+
+    /**
+     * The target of the enclosing scope, or null outside any.
+     */
+    public static Target current() {
+        return CURRENT.get();
+    }
+
+    private static <T> T within(Target target, Supplier<T> work) {
+        if (CURRENT.get() != null) {
+            return work.get();
+        }
+        CURRENT.set(target);
+        try {
+            return work.get();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.entitlement.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections from the primary, or round-robin from a read replica inside
+ * {@link DataSourceRoute#replica} outside read-write transactions. A failing replica is skipped for
+ * {@code retryAfter}; reads within {@code readYourWrites} of the last write go to the primary.
+ * Meant to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long retryAfterNanos;
+    private final Duration readYourWrites;
+    private final Supplier<Instant> lastWrite;
+    // Per replica, the System.nanoTime() before which it is skipped; 0 when healthy.
+    private final AtomicLongArray skipUntil;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter toPrimary;
+    private final Counter toReplica;
+    private final Counter fallback;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<? extends DataSource> replicas,
+                                    Duration retryAfter,
+                                    Duration readYourWrites,
+                                    Supplier<Instant> lastWrite,
+                                    MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.readYourWrites = readYourWrites;
+        this.lastWrite = lastWrite;
+        this.skipUntil = new AtomicLongArray(this.replicas.size());
+        this.toPrimary = counter(registry, "primary");
+        this.toReplica = counter(registry, "replica");
+        this.fallback = counter(registry, "fallback");
+        registry.gauge("datasource.routing.replicas.healthy", this, ReplicaRoutingDataSource::healthyReplicas);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(ds -> ds.getConnection(username, password));
+    }
+
+    private Connection connect(ConnectionFactory factory) throws SQLException {
+        if (!readsFromReplica()) {
+            toPrimary.increment();
+            return factory.connect(primary);
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            long until = skipUntil.get(index);
+            if (until != 0 && System.nanoTime() - until < 0) {
+                continue;
+            }
+            try {
+                Connection connection = factory.connect(replicas.get(index));
+                skipUntil.compareAndSet(index, until, 0);
+                toReplica.increment();
+                return connection;
+            } catch (SQLException e) {
+                logger.warn("Replica " + index + " unavailable; skipping it for " + Duration.ofNanos(retryAfterNanos), e);
+                skipUntil.set(index, System.nanoTime() + retryAfterNanos);
+            }
+        }
+        fallback.increment();
+        return factory.connect(primary);
+    }
+
+    private boolean readsFromReplica() {
+        if (replicas.isEmpty() || DataSourceRoute.current() != DataSourceRoute.Target.REPLICA) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        return readYourWrites.isZero() || !Instant.now().isBefore(lastWrite.get().plus(readYourWrites));
+    }
+
+    int healthyReplicas() {
+        long now = System.nanoTime();
+        int healthy = 0;
+        for (int i = 0; i < skipUntil.length(); i++) {
+            long until = skipUntil.get(i);
+            if (until == 0 || now - until >= 0) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<DataSource> all = new ArrayList<>(replicas);
+        all.add(primary);
+        for (DataSource dataSource : all) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String target) {
+        return Counter.builder("datasource.routing.connections").tag("target", target).register(registry);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionFactory {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.entitlement.screening;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over card numbers: answers "definitely not present" or "possibly present" from a
+ * bit array sized for an expected number of entries and false-positive rate, about 1.2 bytes per
+ * entry at 1%. Only hash-derived bit positions are kept, never the numbers themselves.
+ * <p>
+ * Each number is hashed twice (FNV-1a with two offsets, finished with the MurmurHash3 mixer) and
+ * the probe positions are {@code h1 + i * h2} (Kirsch–Mitzenmacher). Entries cannot be removed.
+ * {@link #put} and {@link #mightContain} may be called concurrently; a number put by one thread
+ * is seen by every {@code mightContain} that starts after the put returns.
+ */
+public final class CardNumberBloomFilter {
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long SEED_1 = 0xcbf29ce484222325L;
+    private static final long SEED_2 = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+
+    public CardNumberBloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        this.capacity = Math.max(1, expectedEntries);
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.words = new AtomicLongArray(Math.toIntExact(Math.max(1, (optimalBits + 63) / 64)));
+        this.bits = words.length() * 64L;
+        this.hashes = (int) Math.max(1, Math.round((double) bits / capacity * ln2));
+    }
+
+    public void put(CharSequence number) {
+        long h1 = hash(number, SEED_1);
+        long h2 = hash(number, SEED_2) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, set) -> current | set);
+            }
+        }
+    }
+
+    public boolean mightContain(CharSequence number) {
+        long h1 = hash(number, SEED_1);
+        long h2 = hash(number, SEED_2) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Entries the filter was sized for; beyond that the false-positive rate climbs.
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    public long bytes() {
+        return words.length() * 8L;
+    }
+
+    private static long hash(CharSequence number, long seed) {
+        long h = seed;
+        for (int i = 0; i < number.length(); i++) {
+            h = (h ^ number.charAt(i)) * FNV_PRIME;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
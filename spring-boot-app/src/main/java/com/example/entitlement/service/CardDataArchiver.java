@@ -0,0 +1,246 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.config.CacheConfig;
+import com.example.entitlement.model.CardDataArchiveStatus;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.routing.DataSourceRoute;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves cards whose {@code expires} date has passed from {@code card_data} to
+ * {@code card_data_archive} in the background, in short transactions of at most
+ * {@code chunk-size} rows, throttled to {@code rows-per-second}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.card-data.archive", name = "enabled", havingValue = "true")
+public class CardDataArchiver implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CardDataArchiver.class);
+
+    private final CardDataRepository repository;
+    private final CardDataVersion version;
+    private final CardDataChangeFeed changes;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final int chunkSize;
+    private final double rowsPerSecond;
+    private final Duration initialDelay;
+    private final Duration interval;
+    private final Duration expiredFor;
+    private final Counter archivedRows;
+    private final Timer chunks;
+    private final AtomicBoolean sweepScheduled = new AtomicBoolean();
+    private volatile boolean paused;
+    private volatile boolean running;
+    private volatile Sweep sweep;
+    private volatile Instant lastSweepFinished;
+    private ScheduledExecutorService executor;
+
+    public CardDataArchiver(CardDataRepository repository,
+                            CardDataVersion version,
+                            CardDataChangeFeed changes,
+                            PlatformTransactionManager transactionManager,
+                            ObjectProvider<CacheManager> cacheManager,
+                            @Value("${app.card-data.archive.chunk-size:1000}") int chunkSize,
+                            @Value("${app.card-data.archive.rows-per-second:500}") double rowsPerSecond,
+                            @Value("${app.card-data.archive.initial-delay:1m}") Duration initialDelay,
+                            @Value("${app.card-data.archive.interval:1h}") Duration interval,
+                            @Value("${app.card-data.archive.expired-for:0d}") Duration expiredFor,
+                            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.repository = repository;
+        this.version = version;
+        this.changes = changes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.chunkSize = chunkSize;
+        this.rowsPerSecond = rowsPerSecond;
+        this.initialDelay = initialDelay;
+        this.interval = interval;
+        this.expiredFor = expiredFor;
+        MeterRegistry registry = meterRegistry.getIfAvailable(CompositeMeterRegistry::new);
+        this.archivedRows = Counter.builder("card_data.archive.rows").register(registry);
+        this.chunks = Timer.builder("card_data.archive.chunk").publishPercentileHistogram().register(registry);
+        registry.gauge("card_data.archive.progress", this, CardDataArchiver::progress);
+        registry.gauge("card_data.archive.paused", this, archiver -> archiver.paused ? 1 : 0);
+    }
+
+    public CardDataArchiveStatus status() {
+        Sweep current = sweep;
+        return new CardDataArchiveStatus(paused,
+                current == null ? null : current.expiredBefore,
+                current == null ? null : current.cursor,
+                current == null ? null : current.upToId,
+                (long) archivedRows.count(), lastSweepFinished);
+    }
+
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+        scheduleSweep();
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "card-data-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        executor.scheduleWithFixedDelay(this::scheduleSweep, initialDelay.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void scheduleSweep() {
+        if (running && sweepScheduled.compareAndSet(false, true)) {
+            executor.execute(this::sweep);
+        }
+    }
+
+    void sweep() {
+        sweepScheduled.set(false);
+        if (paused) {
+            return;
+        }
+        Sweep current = sweep;
+        if (current == null) {
+            LocalDate expiredBefore = LocalDate.now().minusDays(expiredFor.toDays());
+            CardDataRepository.IdRange range;
+            try {
+                range = repository.expiredIdRange(expiredBefore).orElse(null);
+            } catch (RuntimeException e) {
+                log.warn("Finding cards expired before {} failed; the next sweep tries again", expiredBefore, e);
+                sweep = null;
+                return;
+            }
+            if (range == null) {
+                lastSweepFinished = Instant.now();
+                return;
+            }
+            current = new Sweep(expiredBefore, range.first(), range.first() - 1, range.last());
+            sweep = current;
+            log.info("Archiving cards expired before {} with ids {} to {}", expiredBefore, range.first(), range.last());
+        }
+        while (current.cursor < current.upToId) {
+            if (paused || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            int afterId = current.cursor;
+            int upToId = (int) Math.min((long) afterId + chunkSize, current.upToId);
+            long started = System.nanoTime();
+            List<Integer> moved;
+            try {
+                LocalDate expiredBefore = current.expiredBefore;
+                moved = chunks.record(() -> DataSourceRoute.primary(() -> transactionTemplate.execute(status ->
+                        repository.archiveExpired(expiredBefore, afterId, upToId))));
+            } catch (RuntimeException e) {
+                log.warn("Archiving cards with ids {} to {} failed; the next sweep starts over", afterId + 1, upToId, e);
+                sweep = null;
+                return;
+            }
+            current.cursor = upToId;
+            if (!moved.isEmpty()) {
+                published(moved);
+                if (!throttle(moved.size(), System.nanoTime() - started)) {
+                    return;
+                }
+            }
+        }
+        sweep = null;
+        lastSweepFinished = Instant.now();
+        log.info("Archived expired cards up to id {}; {} archived since start-up", current.upToId, (long) archivedRows.count());
+    }
+
+    private void published(List<Integer> moved) {
+        archivedRows.increment(moved.size());
+        version.bump();
+        List<CardDataChange> deleted = new ArrayList<>(moved.size());
+        moved.forEach(id -> deleted.add(CardDataChange.deleted(id)));
+        changes.publish(deleted);
+        CacheManager caches = cacheManager.getIfAvailable();
+        if (caches != null) {
+            Cache byType = caches.getCache(CacheConfig.CARD_DATA_BY_TYPE);
+            Cache byId = caches.getCache(CacheConfig.CARD_DATA_BY_ID);
+            if (byType != null) {
+                byType.clear();
+            }
+            if (byId != null) {
+                moved.forEach(byId::evict);
+            }
+        }
+    }
+
+    // Sleeps off what moving rows beyond the rate took; false when interrupted by stop().
+    private boolean throttle(int rows, long elapsedNanos) {
+        long budget = (long) (rows * 1_000_000_000L / rowsPerSecond);
+        try {
+            TimeUnit.NANOSECONDS.sleep(budget - elapsedNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private double progress() {
+        Sweep current = sweep;
+        if (current == null) {
+            return 0;
+        }
+        long span = (long) current.upToId - current.first + 1;
+        return (double) ((long) current.cursor - current.first + 1) / span;
+    }
+
+    private static final class Sweep {
+        final LocalDate expiredBefore;
+        final int first;
+        final int upToId;
+        volatile int cursor;
+
+        Sweep(LocalDate expiredBefore, int first, int cursor, int upToId) {
+            this.expiredBefore = expiredBefore;
+            this.first = first;
+            this.cursor = cursor;
+            this.upToId = upToId;
+        }
+    }
+}
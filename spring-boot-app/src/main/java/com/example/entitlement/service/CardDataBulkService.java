@@ -0,0 +1,113 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.config.CacheConfig;
+import com.example.entitlement.model.BulkInsertResult;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.repository.CardDataRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes a stream of cards in fixed-size chunks, one transaction per chunk. A failing chunk is
+ * rolled back and reported; the remaining chunks are still attempted.
+ */
+@Service
+public class CardDataBulkService {
+
+    private final CardDataRepository repository;
+    private final CardDataVersion version;
+    private final CardDataChangeFeed changes;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultChunkSize;
+    private final int maxChunkSize;
+    private final boolean copyEnabled;
+
+    public CardDataBulkService(CardDataRepository repository,
+                               CardDataVersion version,
+                               CardDataChangeFeed changes,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.card-data.bulk.chunk-size:1000}") int defaultChunkSize,
+                               @Value("${app.card-data.bulk.max-chunk-size:10000}") int maxChunkSize,
+                               @Value("${app.card-data.bulk.copy-enabled:true}") boolean copyEnabled) {
+        this.repository = repository;
+        this.version = version;
+        this.changes = changes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.copyEnabled = copyEnabled;
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_TYPE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_ID, allEntries = true)
+    })
+    public BulkInsertResult ingest(Iterator<CardData> rows, Integer chunkSize) {
+        int size = chunkSize == null ? defaultChunkSize : Math.max(1, Math.min(chunkSize, maxChunkSize));
+        List<BulkInsertResult.Chunk> chunks = new ArrayList<>();
+        List<CardData> buffer = new ArrayList<>(size);
+        int offset = 0;
+        while (true) {
+            String readError = null;
+            try {
+                while (buffer.size() < size && rows.hasNext()) {
+                    buffer.add(rows.next());
+                }
+            } catch (RuntimeException e) {
+                readError = "Unreadable input after row " + (offset + buffer.size()) + ": " + rootMessage(e);
+            }
+            if (readError != null) {
+                // Rows parsed before the bad record are not written: the input position is unreliable.
+                chunks.add(new BulkInsertResult.Chunk(chunks.size(), offset, buffer.size(), 0, readError));
+                break;
+            }
+            if (buffer.isEmpty()) {
+                break;
+            }
+            BulkInsertResult.Chunk chunk = writeChunk(chunks.size(), offset, buffer);
+            if (chunk.inserted() > 0) {
+                // Bumped per committed chunk so readers polling during a long ingest see progress.
+                version.bump();
+                publishCreated(buffer);
+            }
+            chunks.add(chunk);
+            offset += buffer.size();
+            buffer.clear();
+        }
+        return BulkInsertResult.of(chunks);
+    }
+
+    private BulkInsertResult.Chunk writeChunk(int index, int offset, List<CardData> chunk) {
+        try {
+            Integer inserted = transactionTemplate.execute(status ->
+                    copyEnabled ? repository.copyInsert(chunk) : repository.batchInsert(chunk));
+            return new BulkInsertResult.Chunk(index, offset, chunk.size(), inserted == null ? 0 : inserted, null);
+        } catch (RuntimeException e) {
+            return new BulkInsertResult.Chunk(index, offset, chunk.size(), 0, rootMessage(e));
+        }
+    }
+
+    // A committed chunk is all or nothing, so every row in it was inserted.
+    private void publishCreated(List<CardData> rows) {
+        List<CardDataChange> created = new ArrayList<>(rows.size());
+        for (CardData row : rows) {
+            created.add(CardDataChange.created(row));
+        }
+        changes.publish(created);
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = NestedExceptionUtils.getMostSpecificCause(e);
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.model.CardDataChange;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Bounded, in-process log of {@code card_data} mutations. The last {@code capacity} changes are
+ * retained; a reader that falls further behind has to reload the data instead.
+ */
+@Component
+public class CardDataChangeFeed {
+
+    private final CardDataChange[] ring;
+    private final ObjectProvider<CardDataChangeRelay> relay;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    // Guarded by this: the sequence of the next change and of the oldest one still retained.
+    private long next = 1;
+    private long oldest = 1;
+
+    public CardDataChangeFeed(@Value("${app.card-data.changes.capacity:10000}") int capacity,
+                              ObjectProvider<CardDataChangeRelay> relay) {
+        this.ring = new CardDataChange[capacity];
+        this.relay = relay;
+    }
+
+    /**
+     * Appends changes written by this instance and sends them to the other instances, if relayed.
+     */
+    public void publish(List<CardDataChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        append(changes);
+        CardDataChangeRelay r = relay.getIfAvailable();
+        if (r != null) {
+            r.send(changes);
+        }
+    }
+
+    public void append(List<CardDataChange> changes) {
+        synchronized (this) {
+            for (CardDataChange change : changes) {
+                ring[slot(next)] = change.withSeq(next);
+                next++;
+            }
+            oldest = Math.max(oldest, next - ring.length);
+        }
+        signal();
+    }
+
+    /**
+     * Declares that changes may have been missed: every reader is told to reload.
+     */
+    public void reset() {
+        synchronized (this) {
+            Arrays.fill(ring, null);
+            next++;
+            oldest = next;
+        }
+        signal();
+    }
+
+    public synchronized long latest() {
+        return next - 1;
+    }
+
+    /**
+     * Up to {@code max} changes following {@code since}, or null when they are no longer retained.
+     */
+    public synchronized List<CardDataChange> after(long since, int max) {
+        if (since < oldest - 1 || since > next - 1) {
+            return null;
+        }
+        int count = (int) Math.min(max, next - 1 - since);
+        List<CardDataChange> changes = new ArrayList<>(count);
+        for (long seq = since + 1; seq <= since + count; seq++) {
+            changes.add(ring[slot(seq)]);
+        }
+        return changes;
+    }
+
+    /**
+     * Runs {@code listener} on the appending thread after every append or reset; returns the
+     * handle that unregisters it.
+     */
+    public Runnable subscribe(Runnable listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % ring.length);
+    }
+
+    private void signal() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.model.CardDataChange;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory view of {@code card_data}, loaded in the background and kept current from the
+ * {@link CardDataChangeFeed}; reloaded when the feed lost changes it needs.
+ */
+abstract class CardDataChangeFollower implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CardDataChangeFollower.class);
+
+    private static final int CATCH_UP_BATCH = 1000;
+
+    protected final CardDataChangeFeed changes;
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final String thread;
+    private final String name;
+    private final Timer loads;
+    private final AtomicBoolean loadScheduled = new AtomicBoolean();
+    private final AtomicBoolean catchUpScheduled = new AtomicBoolean();
+    private volatile long appliedSeq;
+    private volatile boolean ready;
+    private volatile boolean running;
+    protected ScheduledExecutorService executor;
+    private Runnable unsubscribe;
+
+    CardDataChangeFollower(CardDataChangeFeed changes, String thread, String name, Timer loads) {
+        this.changes = changes;
+        this.thread = thread;
+        this.name = name;
+        this.loads = loads;
+    }
+
+    // Reads a new view and returns what installs it under the write lock.
+    protected abstract Runnable read();
+
+    // False when the view has to be reloaded instead.
+    protected abstract boolean apply(CardDataChange change);
+
+    protected abstract void drop();
+
+    protected void applied() {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    protected boolean isBehind() {
+        return appliedSeq != changes.latest();
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, thread);
+            t.setDaemon(true);
+            return t;
+        });
+        running = true;
+        unsubscribe = changes.subscribe(this::scheduleCatchUp);
+        scheduleLoad();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        unsubscribe.run();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    protected void scheduleLoad() {
+        if (running && loadScheduled.compareAndSet(false, true)) {
+            executor.execute(this::load);
+        }
+    }
+
+    private void scheduleCatchUp() {
+        if (running && catchUpScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                catchUpScheduled.set(false);
+                catchUp();
+            });
+        }
+    }
+
+    void load() {
+        loadScheduled.set(false);
+        try {
+            loads.record(() -> {
+                // Taken before the read: changes after it are applied again, which is harmless.
+                long from = changes.latest();
+                Runnable install = read();
+                lock.writeLock().lock();
+                try {
+                    install.run();
+                    appliedSeq = from;
+                    ready = true;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            catchUp();
+        } catch (RuntimeException e) {
+            log.warn("Could not load the {}; the database is used instead", name, e);
+        }
+    }
+
+    void catchUp() {
+        lock.writeLock().lock();
+        try {
+            while (ready) {
+                List<CardDataChange> batch = changes.after(appliedSeq, CATCH_UP_BATCH);
+                if (batch == null) {
+                    reload("the change feed no longer holds the changes after " + appliedSeq);
+                    return;
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                for (CardDataChange change : batch) {
+                    if (!apply(change)) {
+                        reload("change " + change.seq() + " cannot be applied");
+                        return;
+                    }
+                }
+                appliedSeq = batch.get(batch.size() - 1).seq();
+                applied();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reload(String reason) {
+        log.info("Reloading the {}: {}", name, reason);
+        ready = false;
+        drop();
+        scheduleLoad();
+    }
+}
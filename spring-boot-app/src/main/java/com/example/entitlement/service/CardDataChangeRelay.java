@@ -0,0 +1,253 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.config.CacheConfig;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.routing.DataSourceRoute;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Shares the change feed between instances over a PostgreSQL {@code LISTEN/NOTIFY} channel. Only
+ * the type, id and version of a change are sent; receivers read the rows back from the primary.
+ * Notifications missed while disconnected {@linkplain CardDataChangeFeed#reset() reset} the feed.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.card-data.changes.notify", name = "enabled", havingValue = "true")
+public class CardDataChangeRelay implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CardDataChangeRelay.class);
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final String origin = UUID.randomUUID().toString();
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final CardDataRepository repository;
+    private final CardDataChangeFeed feed;
+    private final CardDataVersion version;
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final int pollMillis;
+    private volatile boolean running;
+    private Thread listener;
+
+    public CardDataChangeRelay(DataSource dataSource,
+                               JdbcTemplate jdbcTemplate,
+                               CardDataRepository repository,
+                               CardDataChangeFeed feed,
+                               CardDataVersion version,
+                               ObjectProvider<CacheManager> cacheManager,
+                               ObjectMapper objectMapper,
+                               @Value("${app.card-data.changes.notify.channel:card_data_changes}") String channel,
+                               @Value("${app.card-data.changes.notify.poll-millis:500}") int pollMillis) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notify channel: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+        this.feed = feed;
+        this.version = version;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        this.pollMillis = pollMillis;
+    }
+
+    /**
+     * Notifies the other instances of {@code changes}; false if they could not be sent.
+     */
+    public boolean send(List<CardDataChange> changes) {
+        try {
+            String[] payloads = new String[changes.size()];
+            for (int i = 0; i < payloads.length; i++) {
+                payloads[i] = payload(changes.get(i));
+            }
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("SELECT pg_notify(?, p) FROM unnest(?) AS p");
+                ps.setString(1, channel);
+                ps.setArray(2, con.createArrayOf("text", payloads));
+                return ps;
+            }, rs -> {
+            });
+            return true;
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.warn("Could not notify {} of {} card data changes; they stay local to this instance", channel, changes.size(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "card-data-changes-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            listener.join(2L * pollMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection con = dataSource.getConnection(); Statement statement = con.createStatement()) {
+                statement.execute("LISTEN " + channel);
+                PGConnection pg = con.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(pollMillis);
+                    if (notifications != null && notifications.length > 0) {
+                        List<String> payloads = new ArrayList<>(notifications.length);
+                        for (PGNotification notification : notifications) {
+                            payloads.add(notification.getParameter());
+                        }
+                        receive(payloads);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost LISTEN connection for {}; resetting the change feed and reconnecting", channel, e);
+                reset();
+                pause();
+            }
+        }
+    }
+
+    String payload(CardDataChange change) throws JsonProcessingException {
+        Long written = change.card() == null ? null : change.card().getVersion();
+        return objectMapper.writeValueAsString(new Notice(origin, change.type(), change.id(), written));
+    }
+
+    void receive(List<String> payloads) {
+        List<Notice> notices = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            try {
+                Notice notice = objectMapper.readValue(payload, Notice.class);
+                if (!origin.equals(notice.origin())) {
+                    notices.add(notice);
+                }
+            } catch (JsonProcessingException e) {
+                // A change that cannot be applied is a gap like any other.
+                log.warn("Unreadable {} notification; resetting the change feed", channel, e);
+                append(notices);
+                reset();
+                notices.clear();
+            }
+        }
+        append(notices);
+    }
+
+    private void append(List<Notice> notices) {
+        if (notices.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = notices.stream()
+                .filter(notice -> notice.type() != CardDataChange.Type.DELETED)
+                .map(Notice::id)
+                .distinct()
+                .toList();
+        Map<Integer, CardData> rows = new HashMap<>(ids.size() * 2);
+        try {
+            if (!ids.isEmpty()) {
+                DataSourceRoute.primary(() -> repository.findByIds(ids, CardDataField.ALL))
+                        .forEach(row -> rows.put(row.getId(), row));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not read {} changed cards; resetting the change feed", ids.size(), e);
+            reset();
+            return;
+        }
+        List<CardDataChange> changes = new ArrayList<>(notices.size());
+        for (Notice notice : notices) {
+            if (notice.type() == CardDataChange.Type.DELETED) {
+                changes.add(CardDataChange.deleted(notice.id()));
+            } else if (rows.containsKey(notice.id())) {
+                // A missing row was deleted since; its own notification follows.
+                changes.add(new CardDataChange(0, notice.type(), notice.id(), rows.get(notice.id()), Instant.now()));
+            }
+        }
+        version.bump();
+        evict(notices);
+        feed.append(changes);
+    }
+
+    private void reset() {
+        version.bump();
+        evict(null);
+        feed.reset();
+    }
+
+    // Evicts the notified cards, or every card when notices is null.
+    private void evict(List<Notice> notices) {
+        CacheManager caches = cacheManager.getIfAvailable();
+        if (caches == null) {
+            return;
+        }
+        Cache byType = caches.getCache(CacheConfig.CARD_DATA_BY_TYPE);
+        Cache byId = caches.getCache(CacheConfig.CARD_DATA_BY_ID);
+        if (byType != null) {
+            byType.clear();
+        }
+        if (byId != null) {
+            if (notices == null) {
+                byId.clear();
+            } else {
+                notices.forEach(notice -> byId.evict(notice.id()));
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(Math.max(1000, pollMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    record Notice(String origin, CardDataChange.Type type, Integer id, Long version) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.columnar.CardDataColumns;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.routing.DataSourceRoute;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * In-memory replica of {@code card_data} in {@link CardDataColumns}, answering the filtered list
+ * and page queries of {@link CardDataService} without a database round trip. Without the change
+ * relay, writes through other instances are not seen until the next reload.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.card-data.columnar", name = "enabled", havingValue = "true")
+public class CardDataColumnStore extends CardDataChangeFollower {
+
+    private static final Logger log = LoggerFactory.getLogger(CardDataColumnStore.class);
+
+    private final CardDataRepository repository;
+    private final TransactionTemplate readOnly;
+    private final int expectedRows;
+    // Written under the write lock.
+    private CardDataColumns columns;
+
+    public CardDataColumnStore(CardDataRepository repository,
+                               CardDataChangeFeed changes,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.card-data.columnar.expected-rows:100000}") int expectedRows,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+        this(repository, changes, transactionManager, expectedRows, meterRegistry.getIfAvailable(CompositeMeterRegistry::new));
+    }
+
+    private CardDataColumnStore(CardDataRepository repository, CardDataChangeFeed changes,
+                                PlatformTransactionManager transactionManager, int expectedRows,
+                                MeterRegistry registry) {
+        super(changes, "card-data-columnar", "columnar card data replica",
+                Timer.builder("card_data.columnar.load").register(registry));
+        this.repository = repository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.expectedRows = expectedRows;
+        registry.gauge("card_data.columnar.rows", this, measure(CardDataColumns::size));
+        registry.gauge("card_data.columnar.bytes", this, measure(CardDataColumns::bytes));
+    }
+
+    /**
+     * Like {@link CardDataRepository#findPage}: rows matching {@code filter} with
+     * {@code id > afterId}, in id order, at most {@code limit}. Null while the replica is not
+     * loaded.
+     */
+    public List<CardData> query(CardDataFilter filter, int afterId, int limit, Set<CardDataField> fields) {
+        if (!isReady()) {
+            return null;
+        }
+        if (isBehind()) {
+            catchUp();
+        }
+        lock.readLock().lock();
+        try {
+            return isReady() ? columns.query(filter, afterId, limit, fields) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected Runnable read() {
+        CardDataColumns table = new CardDataColumns(expectedRows);
+        DataSourceRoute.primary(() -> readOnly.execute(status -> {
+            repository.streamAll(CardDataFilter.NONE, CardDataField.ALL, table::put);
+            return null;
+        }));
+        log.info("Loaded {} card_data rows ({} bytes) into the columnar replica", table.size(), table.bytes());
+        return () -> columns = table;
+    }
+
+    @Override
+    protected boolean apply(CardDataChange change) {
+        if (change.id() == null) {
+            return false;
+        }
+        if (change.type() == CardDataChange.Type.DELETED) {
+            columns.remove(change.id());
+        } else {
+            columns.put(change.card());
+        }
+        return true;
+    }
+
+    @Override
+    protected void drop() {
+        columns = null;
+    }
+
+    private ToDoubleFunction<CardDataColumnStore> measure(ToDoubleFunction<CardDataColumns> metric) {
+        return store -> {
+            lock.readLock().lock();
+            try {
+                return columns == null ? 0 : metric.applyAsDouble(columns);
+            } finally {
+                lock.readLock().unlock();
+            }
+        };
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataExport;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.repository.CopyCsv;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Dumps {@code card_data} to CSV files for analytics, one file per id range, read in parallel on
+ * separate connections. The partitions are recorded in {@code manifest.json}, so a failed export
+ * can be resumed. {@code cvv} is never written; unless unmasked exports are allowed,
+ * {@code card_number} keeps only its last four digits.
+ */
+@Service
+public class CardDataExportService implements DisposableBean {
+
+    public static final String FORMAT = "csv";
+
+    private static final String MANIFEST = "manifest.json";
+    private static final Pattern EXPORT_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final CardDataRepository repository;
+    private final TransactionTemplate readOnly;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final boolean allowUnmasked;
+    private final int defaultPartitions;
+    private final int maxPartitions;
+    private final ExecutorService executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public CardDataExportService(CardDataRepository repository,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.card-data.export.directory:}") String directory,
+                                 @Value("${app.card-data.export.allow-unmasked:false}") boolean allowUnmasked,
+                                 @Value("${app.card-data.export.parallelism:4}") int parallelism,
+                                 @Value("${app.card-data.export.default-partitions:16}") int defaultPartitions,
+                                 @Value("${app.card-data.export.max-partitions:1024}") int maxPartitions) {
+        this.repository = repository;
+        // Read-only so the PostgreSQL driver can stream through a server-side cursor.
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        if (allowUnmasked && directory.isBlank()) {
+            throw new IllegalArgumentException("app.card-data.export.allow-unmasked needs app.card-data.export.directory");
+        }
+        this.directory = directory.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "card-data-exports") : Path.of(directory);
+        this.allowUnmasked = allowUnmasked;
+        this.defaultPartitions = defaultPartitions;
+        this.maxPartitions = maxPartitions;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "card-data-export-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Splits the table into {@code partitions} id ranges and starts writing them in the background.
+     */
+    public CardDataExport start(Integer partitions, boolean mask) {
+        checkMasking(mask);
+        int count = partitions == null ? defaultPartitions : Math.max(1, Math.min(partitions, maxPartitions));
+        List<Range> ranges = repository.idRange().map(ids -> split(ids, count)).orElse(List.of());
+        Manifest manifest = new Manifest(UUID.randomUUID().toString(), FORMAT, mask, ranges);
+        try {
+            Path dir = Files.createDirectories(directory.resolve(manifest.id()));
+            objectMapper.writeValue(dir.resolve(MANIFEST).toFile(), manifest);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create export " + manifest.id(), e);
+        }
+        Job job = new Job(manifest, directory.resolve(manifest.id()));
+        jobs.put(manifest.id(), job);
+        synchronized (job) {
+            run(job);
+        }
+        return job.status();
+    }
+
+    /**
+     * Progress of export {@code id}, including exports started before a restart.
+     */
+    public Optional<CardDataExport> status(String id) {
+        return job(id).map(Job::status);
+    }
+
+    /**
+     * Writes the partitions of export {@code id} that have no file yet.
+     */
+    public Optional<CardDataExport> resume(String id) {
+        Optional<Job> found = job(id);
+        found.ifPresent(job -> {
+            checkMasking(job.manifest.masked());
+            synchronized (job) {
+                if (job.running) {
+                    throw new IllegalStateException("Export " + id + " is still running");
+                }
+                run(job);
+            }
+        });
+        return found.map(Job::status);
+    }
+
+    private void checkMasking(boolean mask) {
+        if (!mask && !allowUnmasked) {
+            throw new IllegalStateException("Unmasked exports are not enabled");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    // Equal-width id ranges; ids are assumed to be spread evenly enough over their range.
+    static List<Range> split(CardDataRepository.IdRange ids, int partitions) {
+        long first = ids.first();
+        long span = (long) ids.last() - first + 1;
+        int count = (int) Math.min(partitions, span);
+        List<Range> ranges = new ArrayList<>(count);
+        long after = first - 1;
+        for (int i = 0; i < count; i++) {
+            long upTo = first - 1 + span * (i + 1) / count;
+            ranges.add(new Range(i, after, upTo));
+            after = upTo;
+        }
+        return ranges;
+    }
+
+    private Optional<Job> job(String id) {
+        if (!EXPORT_ID.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        Job known = jobs.get(id);
+        if (known != null) {
+            return Optional.of(known);
+        }
+        Path dir = directory.resolve(id);
+        if (!Files.isRegularFile(dir.resolve(MANIFEST))) {
+            return Optional.empty();
+        }
+        try {
+            Manifest manifest = objectMapper.readValue(dir.resolve(MANIFEST).toFile(), Manifest.class);
+            return Optional.of(jobs.computeIfAbsent(id, k -> new Job(manifest, dir)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable manifest for export " + id, e);
+        }
+    }
+
+    // Callers hold the job's lock.
+    private void run(Job job) {
+        List<Range> pending = new ArrayList<>();
+        for (Range range : job.manifest.partitions()) {
+            if (!Files.exists(job.part(range))) {
+                pending.add(range);
+            }
+        }
+        job.done.set(job.manifest.partitions().size() - pending.size());
+        job.failed.set(0);
+        job.errors.clear();
+        job.startedAt = Instant.now();
+        job.finishedAt = null;
+        job.remaining.set(pending.size());
+        job.running = !pending.isEmpty();
+        if (pending.isEmpty()) {
+            job.finishedAt = job.startedAt;
+        }
+        for (Range range : pending) {
+            executor.execute(() -> export(job, range));
+        }
+    }
+
+    private void export(Job job, Range range) {
+        Path part = job.part(range);
+        Path tmp = part.resolveSibling(part.getFileName() + ".tmp");
+        try {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(tmp), StandardCharsets.UTF_8),
+                    WRITE_BUFFER_SIZE)) {
+                out.write(CopyCsv.HEADER);
+                readOnly.executeWithoutResult(status -> repository.streamIdRange(range.afterId(), range.upToId(), row -> {
+                    if (job.manifest.masked()) {
+                        mask(row);
+                    }
+                    if (row.getCvv() != null) {
+                        row.setCvv("***");
+                    }
+                    try {
+                        CopyCsv.writeRow(out, row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    job.rows.increment();
+                }));
+            }
+            job.bytes.add(Files.size(tmp));
+            Files.move(tmp, part, StandardCopyOption.ATOMIC_MOVE);
+            job.done.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            job.failed.incrementAndGet();
+            job.errors.add(part.getFileName() + ": " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // Overwritten on resume.
+            }
+        } finally {
+            if (job.remaining.decrementAndGet() == 0) {
+                synchronized (job) {
+                    job.finishedAt = Instant.now();
+                    job.running = false;
+                }
+            }
+        }
+    }
+
+    static void mask(CardData row) {
+        String number = row.getCardNumber();
+        if (number != null) {
+            int keep = Math.min(4, number.length());
+            row.setCardNumber("*".repeat(number.length() - keep) + number.substring(number.length() - keep));
+        }
+    }
+
+    // Rows with afterId < id <= upToId.
+    record Range(int index, long afterId, long upToId) {
+    }
+
+    record Manifest(String id, String format, boolean masked, List<Range> partitions) {
+    }
+
+    private static final class Job {
+
+        private final Manifest manifest;
+        private final Path dir;
+        private final AtomicInteger done = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger remaining = new AtomicInteger();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+        private volatile boolean running;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+
+        Job(Manifest manifest, Path dir) {
+            this.manifest = manifest;
+            this.dir = dir;
+            for (Range range : manifest.partitions()) {
+                if (Files.exists(part(range))) {
+                    done.incrementAndGet();
+                }
+            }
+        }
+
+        Path part(Range range) {
+            return dir.resolve(String.format("part-%05d.%s", range.index(), manifest.format()));
+        }
+
+        CardDataExport status() {
+            int partitions = manifest.partitions().size();
+            int finished = done.get();
+            CardDataExport.State state = running ? CardDataExport.State.RUNNING
+                    : finished == partitions ? CardDataExport.State.COMPLETED : CardDataExport.State.FAILED;
+            return new CardDataExport(manifest.id(), state, manifest.format(), manifest.masked(), partitions, finished, failed.get(), rows.sum(), bytes.sum(), startedAt, finishedAt,
+                    List.copyOf(errors));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.config.CacheConfig;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataScreenResult;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.routing.DataSourceRoute;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Screens a stream of leaked card numbers against {@code card_data} and flags the matching cards
+ * {@code card_on_dark_web}. Numbers the {@link CardNumberIndex} rules out never reach the database.
+ */
+@Service
+public class CardDataScreeningService {
+
+    private static final int MIN_DIGITS = 12;
+    private static final int MAX_DIGITS = 19;
+
+    private final CardDataRepository repository;
+    private final CardDataVersion version;
+    private final CardDataChangeFeed changes;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<CardNumberIndex> index;
+    private final int batchSize;
+
+    public CardDataScreeningService(CardDataRepository repository,
+                                    CardDataVersion version,
+                                    CardDataChangeFeed changes,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectProvider<CardNumberIndex> index,
+                                    @Value("${app.card-data.screening.batch-size:1000}") int batchSize) {
+        this.repository = repository;
+        this.version = version;
+        this.changes = changes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.index = index;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Screens every number in {@code numbers}. Spaces and dashes are ignored; anything else that is
+     * not 12 to 19 digits is counted as invalid and skipped.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_TYPE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_ID, allEntries = true)
+    })
+    public CardDataScreenResult screen(Iterator<String> numbers) {
+        CardNumberIndex filter = index.getIfAvailable();
+        Set<String> candidates = new LinkedHashSet<>();
+        Set<Integer> matched = new LinkedHashSet<>();
+        long screened = 0;
+        long invalid = 0;
+        long candidateCount = 0;
+        int flagged = 0;
+        String error = null;
+        while (true) {
+            String number;
+            try {
+                if (!numbers.hasNext()) {
+                    break;
+                }
+                number = normalize(numbers.next());
+            } catch (RuntimeException e) {
+                error = "Unreadable input after number " + (screened + invalid) + ": "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                break;
+            }
+            if (number == null) {
+                invalid++;
+                continue;
+            }
+            screened++;
+            if ((filter == null || filter.mightContain(number)) && candidates.add(number)) {
+                candidateCount++;
+                if (candidates.size() == batchSize) {
+                    flagged += confirm(candidates, matched);
+                    candidates.clear();
+                }
+            }
+        }
+        if (!candidates.isEmpty()) {
+            flagged += confirm(candidates, matched);
+        }
+        return new CardDataScreenResult(screened, invalid, candidateCount, matched.size(), flagged,
+                List.copyOf(matched), error);
+    }
+
+    // Returns how many were flagged.
+    private int confirm(Set<String> candidates, Set<Integer> matched) {
+        List<String> numbers = List.copyOf(candidates);
+        List<CardData> updated = new ArrayList<>();
+        DataSourceRoute.primary(() -> transactionTemplate.execute(status -> {
+            List<CardData> rows = repository.findByCardNumbers(numbers, CardDataField.ALL);
+            List<CardData> unflagged = new ArrayList<>(rows.size());
+            for (CardData row : rows) {
+                matched.add(row.getId());
+                if (!Boolean.TRUE.equals(row.getCardOnDarkWeb())) {
+                    unflagged.add(row);
+                }
+            }
+            int[] counts = repository.markOnDarkWeb(unflagged.stream().map(CardData::getId).toList());
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    CardData row = unflagged.get(i);
+                    row.setCardOnDarkWeb(true);
+                    row.setVersion(row.getVersion() + 1);
+                    updated.add(row);
+                }
+            }
+            return null;
+        }));
+        if (!updated.isEmpty()) {
+            version.bump();
+            List<CardDataChange> flagged = new ArrayList<>(updated.size());
+            updated.forEach(row -> flagged.add(CardDataChange.updated(row)));
+            changes.publish(flagged);
+        }
+        return updated.size();
+    }
+
+    // Digits only, or null; CardNumberIndex files stored numbers the same way.
+    static String normalize(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(MAX_DIGITS);
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits.length() == MAX_DIGITS) {
+                    return null;
+                }
+                digits.append(c);
+            } else if (c != ' ' && c != '-') {
+                return null;
+            }
+        }
+        return digits.length() < MIN_DIGITS ? null : digits.toString();
+    }
+}
@@ -1,32 +1,166 @@
 package com.example.entitlement.service;
 
+import com.example.entitlement.config.CacheConfig;
+import com.example.entitlement.model.BulkDeleteResult;
 import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.model.CardDataStats;
 import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.routing.DataSourceRoute;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 @Service
 public class CardDataService {
 
     private final CardDataRepository repository;
+    private final CardDataVersion version;
+    private final CardDataChangeFeed changes;
+    private final ObjectProvider<CardDataColumnStore> columnStore;
+    private final ObjectProvider<CardDataWriteBehind> writeBehind;
 
-    public CardDataService(CardDataRepository repository) {
+    public CardDataService(CardDataRepository repository,
+                           CardDataVersion version,
+                           CardDataChangeFeed changes,
+                           ObjectProvider<CardDataColumnStore> columnStore,
+                           ObjectProvider<CardDataWriteBehind> writeBehind) {
         this.repository = repository;
+        this.version = version;
+        this.changes = changes;
+        this.columnStore = columnStore;
+        this.writeBehind = writeBehind;
     }
 
+    // The unfiltered list is not cached: it is table-sized, and full scans should go through paging or streaming.
+    // Cached lists outlive the read-your-writes window, so they are read from the primary, not a lagging replica.
+    @Cacheable(cacheNames = CacheConfig.CARD_DATA_BY_TYPE, condition = "#cardType != null && !#cardType.isBlank()")
     public List<CardData> list(String cardType) {
+        List<CardData> replicated = fromColumnStore(CardDataFilter.byCardType(cardType), Integer.MIN_VALUE,
+                Integer.MAX_VALUE, CardDataField.ALL);
+        if (replicated != null) {
+            return replicated;
+        }
         if (cardType == null || cardType.isBlank()) {
             return repository.findAll();
         }
-        return repository.findByCardType(cardType);
+        return DataSourceRoute.primary(() -> repository.findByCardType(cardType));
+    }
+
+    // Filtered and projected lists are not cached; they read only the matching rows and requested columns.
+    public List<CardData> list(CardDataFilter filter, Set<CardDataField> fields) {
+        List<CardData> replicated = fromColumnStore(filter, Integer.MIN_VALUE, Integer.MAX_VALUE, fields);
+        return replicated != null ? replicated : repository.findMatching(filter, fields);
+    }
+
+    public List<CardData> findByIds(List<Integer> ids, Set<CardDataField> fields) {
+        return repository.findByIds(ids, fields);
+    }
+
+    public List<CardData> page(CardDataFilter filter, int afterId, int limit, Set<CardDataField> fields) {
+        // The id is the next page's cursor, so pages always carry it, as on the SQL path.
+        Set<CardDataField> withId = EnumSet.noneOf(CardDataField.class);
+        withId.addAll(fields);
+        withId.add(CardDataField.ID);
+        List<CardData> replicated = fromColumnStore(filter, afterId, limit, withId);
+        return replicated != null ? replicated : repository.findPage(filter, afterId, limit, fields);
+    }
+
+    // Read-only transaction so the driver can use a server-side cursor for the fetch size.
+    @Transactional(readOnly = true)
+    public void stream(CardDataFilter filter, Set<CardDataField> fields, Consumer<CardData> consumer) {
+        repository.streamAll(filter, fields, consumer);
+    }
+
+    public List<CardDataStats> stats(CardDataFilter filter, Set<CardDataField> groupBy) {
+        return repository.stats(filter, groupBy);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.CARD_DATA_BY_ID)
+    public Optional<CardData> findById(int id) {
+        return DataSourceRoute.primary(() -> repository.findById(id));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_TYPE, key = "#cd.cardType", condition = "#cd.cardType != null"),
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_ID, key = "#cd.id", condition = "#cd.id != null")
+    })
     public int create(CardData cd) {
-        return repository.insert(cd);
+        CardDataWriteBehind writer = writeBehind.getIfAvailable();
+        if (writer != null) {
+            // Returns once the row's batch has committed; the writer bumps the version and publishes.
+            return awaitDurable(writer.submit(cd));
+        }
+        int rows = repository.insert(cd);
+        if (rows > 0) {
+            version.bump();
+            changes.publish(List.of(CardDataChange.created(cd)));
+        }
+        return rows;
     }
 
+    // The deleted row's type is unknown without another query, so every type list is dropped.
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_TYPE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_ID, key = "#id")
+    })
     public boolean deleteById(int id) {
-        return repository.deleteById(id) > 0;
+        boolean deleted = repository.deleteById(id) > 0;
+        if (deleted) {
+            version.bump();
+            changes.publish(List.of(CardDataChange.deleted(id)));
+        }
+        return deleted;
+    }
+
+    // As with bulk ingest, everything is evicted rather than walking the id cache key by key.
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_TYPE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_ID, allEntries = true)
+    })
+    public BulkDeleteResult deleteByIds(List<Integer> ids) {
+        BulkDeleteResult result = BulkDeleteResult.of(ids, repository.deleteByIds(ids));
+        if (result.deletedRows() > 0) {
+            version.bump();
+            List<CardDataChange> deleted = new ArrayList<>(result.deletedRows());
+            for (BulkDeleteResult.Outcome outcome : result.outcomes()) {
+                if (outcome.deleted()) {
+                    deleted.add(CardDataChange.deleted(outcome.id()));
+                }
+            }
+            changes.publish(deleted);
+        }
+        return result;
+    }
+
+    // Null when the columnar replica is disabled or not loaded yet.
+    private List<CardData> fromColumnStore(CardDataFilter filter, int afterId, int limit, Set<CardDataField> fields) {
+        CardDataColumnStore store = columnStore.getIfAvailable();
+        return store == null ? null : store.query(filter, afterId, limit, fields);
+    }
+
+    private static int awaitDurable(CompletableFuture<Integer> written) {
+        try {
+            return written.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 }
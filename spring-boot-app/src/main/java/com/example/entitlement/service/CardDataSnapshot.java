@@ -0,0 +1,188 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.routing.DataSourceRoute;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-serialized JSON, plain and gzipped, of the unfiltered card list and of each
+ * {@code card_type} list, rebuilt in the background after changes. A snapshot is only handed out
+ * while the {@link CardDataVersion} it was read at is current. Without the change relay, writes
+ * through other instances are not seen until a write through this one.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.card-data.snapshot", name = "enabled", havingValue = "true")
+public class CardDataSnapshot implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CardDataSnapshot.class);
+
+    private final CardDataRepository repository;
+    private final CardDataVersion version;
+    private final CardDataChangeFeed changes;
+    private final ObjectMapper objectMapper;
+    private final long rebuildDelayMillis;
+    private final int maxRows;
+    private final Timer rebuilds;
+    private final Entry empty;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile Snapshot current;
+    private volatile boolean running;
+    private ScheduledExecutorService executor;
+    private Runnable unsubscribe;
+
+    public CardDataSnapshot(CardDataRepository repository,
+                            CardDataVersion version,
+                            CardDataChangeFeed changes,
+                            ObjectMapper objectMapper,
+                            @Value("${app.card-data.snapshot.rebuild-delay:200ms}") Duration rebuildDelay,
+                            @Value("${app.card-data.snapshot.max-rows:200000}") int maxRows,
+                            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.repository = repository;
+        this.version = version;
+        this.changes = changes;
+        this.objectMapper = objectMapper;
+        this.rebuildDelayMillis = rebuildDelay.toMillis();
+        this.maxRows = maxRows;
+        MeterRegistry registry = meterRegistry.getIfAvailable(CompositeMeterRegistry::new);
+        this.rebuilds = Timer.builder("card_data.snapshot.rebuild").register(registry);
+        registry.gauge("card_data.snapshot.bytes", this, CardDataSnapshot::bytes);
+        this.empty = encode(List.of());
+    }
+
+    /**
+     * Serialized list of the cards of {@code cardType} (all cards when null), or null when there
+     * is no snapshot taken at {@code atVersion}.
+     */
+    public Entry get(String cardType, long atVersion) {
+        Snapshot snapshot = current;
+        if (snapshot == null || snapshot.version() != atVersion) {
+            return null;
+        }
+        return cardType == null ? snapshot.all() : snapshot.byType().getOrDefault(cardType, empty);
+    }
+
+    public record Entry(byte[] json, byte[] gzip) {
+    }
+
+    private record Snapshot(long version, Entry all, Map<String, Entry> byType) {
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "card-data-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        unsubscribe = changes.subscribe(this::scheduleRebuild);
+        scheduleRebuild();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        unsubscribe.run();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void scheduleRebuild() {
+        if (running && scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::rebuild, rebuildDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void rebuild() {
+        // Cleared first, so a change landing while this rebuild reads is followed by another one.
+        scheduled.set(false);
+        try {
+            // From the primary: a lagging replica would label old rows with the new version.
+            rebuilds.record(() -> {
+                current = DataSourceRoute.primary(this::read);
+            });
+        } catch (RuntimeException e) {
+            current = null;
+            log.warn("Could not rebuild the card data snapshot; list requests use the query path", e);
+        }
+    }
+
+    private Snapshot read() {
+        // Read before the query, like the ETag: a racing write leaves the snapshot stale, never ahead.
+        long at = version.current().version();
+        List<CardData> rows = repository.findAll();
+        if (rows.size() > maxRows) {
+            log.warn("card_data has {} rows, more than the snapshot limit of {}; not snapshotting", rows.size(), maxRows);
+            return null;
+        }
+        Map<String, List<CardData>> grouped = new LinkedHashMap<>();
+        for (CardData row : rows) {
+            if (row.getCardType() != null) {
+                grouped.computeIfAbsent(row.getCardType(), t -> new ArrayList<>()).add(row);
+            }
+        }
+        Map<String, Entry> byType = new HashMap<>();
+        grouped.forEach((type, typeRows) -> byType.put(type, encode(typeRows)));
+        return new Snapshot(at, encode(rows), byType);
+    }
+
+    private Entry encode(List<CardData> rows) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(rows);
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                gzip.write(json);
+            }
+            return new Entry(json, gzipped.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private double bytes() {
+        Snapshot snapshot = current;
+        if (snapshot == null) {
+            return 0;
+        }
+        long total = snapshot.all().json().length + snapshot.all().gzip().length;
+        for (Entry entry : snapshot.byType().values()) {
+            total += entry.json().length + entry.gzip().length;
+        }
+        return total;
+    }
+}
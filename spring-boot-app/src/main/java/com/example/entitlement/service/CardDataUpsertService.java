@@ -0,0 +1,150 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.config.CacheConfig;
+import com.example.entitlement.model.BulkUpsertResult;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CreditLimitUpdate;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.routing.DataSourceRoute;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Writes that are safe to retry: overwriting inserts, version-checked updates, and requests
+ * carrying an idempotency key, which are reported as {@link BulkUpsertResult.Status#REPLAYED}
+ * when repeated.
+ */
+@Service
+public class CardDataUpsertService {
+
+    private final CardDataRepository repository;
+    private final CardDataVersion version;
+    private final CardDataChangeFeed changes;
+    private final TransactionTemplate transactionTemplate;
+
+    public CardDataUpsertService(CardDataRepository repository,
+                                 CardDataVersion version,
+                                 CardDataChangeFeed changes,
+                                 PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.version = version;
+        this.changes = changes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * With an {@code expectedVersion} (or {@code anyVersion}) the row must already exist and is
+     * only updated; otherwise it is inserted or overwritten.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_TYPE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_ID, key = "#cd.id")
+    })
+    public BulkUpsertResult.Outcome upsert(CardData cd, Long expectedVersion, boolean anyVersion, String idempotencyKey) {
+        OptionalLong written = expectedVersion == null && !anyVersion
+                ? repository.upsert(cd, idempotencyKey)
+                : repository.update(cd, expectedVersion, idempotencyKey);
+        if (written.isPresent()) {
+            cd.setVersion(written.getAsLong());
+            version.bump();
+            changes.publish(List.of(CardDataChange.updated(cd)));
+            return applied(cd.getId(), written.getAsLong());
+        }
+        return notApplied(cd.getId(), repository.findVersions(List.of(cd.getId())).get(cd.getId()), idempotencyKey);
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_TYPE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_ID, allEntries = true)
+    })
+    public BulkUpsertResult upsertAll(List<CardData> rows, String idempotencyKey) {
+        List<Integer> ids = rows.stream().map(CardData::getId).toList();
+        Written written = transactionTemplate.execute(status -> {
+            int[] counts = repository.batchUpsert(rows, idempotencyKey);
+            return new Written(counts, repository.findVersions(ids));
+        });
+        List<BulkUpsertResult.Outcome> outcomes = outcomes(ids, written, idempotencyKey);
+        List<CardDataChange> updated = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            BulkUpsertResult.Outcome outcome = outcomes.get(i);
+            if (outcome.applied()) {
+                rows.get(i).setVersion(outcome.version());
+                updated.add(CardDataChange.updated(rows.get(i)));
+            }
+        }
+        return publish(outcomes, updated);
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_TYPE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.CARD_DATA_BY_ID, allEntries = true)
+    })
+    public BulkUpsertResult updateCreditLimits(List<CreditLimitUpdate> updates, String idempotencyKey) {
+        List<Integer> ids = updates.stream().map(CreditLimitUpdate::id).toList();
+        List<CardData> rows = new ArrayList<>();
+        Written written = transactionTemplate.execute(status -> {
+            int[] counts = repository.batchUpdateCreditLimits(updates, idempotencyKey);
+            List<Integer> changed = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    changed.add(ids.get(i));
+                }
+            }
+            if (!changed.isEmpty()) {
+                rows.addAll(DataSourceRoute.primary(() -> repository.findByIds(changed, CardDataField.ALL)));
+            }
+            return new Written(counts, repository.findVersions(ids));
+        });
+        List<CardDataChange> updated = new ArrayList<>(rows.size());
+        rows.forEach(row -> updated.add(CardDataChange.updated(row)));
+        return publish(outcomes(ids, written, idempotencyKey), updated);
+    }
+
+    private BulkUpsertResult publish(List<BulkUpsertResult.Outcome> outcomes, List<CardDataChange> updated) {
+        if (!updated.isEmpty()) {
+            version.bump();
+            changes.publish(updated);
+        }
+        return BulkUpsertResult.of(outcomes);
+    }
+
+    private static List<BulkUpsertResult.Outcome> outcomes(List<Integer> ids, Written written, String idempotencyKey) {
+        List<BulkUpsertResult.Outcome> outcomes = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            int id = ids.get(i);
+            CardDataRepository.RowVersion row = written.versions().get(id);
+            outcomes.add(written.counts()[i] > 0 && row != null
+                    ? applied(id, row.version())
+                    : notApplied(id, row, idempotencyKey));
+        }
+        return outcomes;
+    }
+
+    // Inserts start at version 1 and every later write increments it.
+    private static BulkUpsertResult.Outcome applied(int id, long version) {
+        return new BulkUpsertResult.Outcome(id,
+                version == 1 ? BulkUpsertResult.Status.CREATED : BulkUpsertResult.Status.UPDATED, version);
+    }
+
+    private static BulkUpsertResult.Outcome notApplied(int id, CardDataRepository.RowVersion row, String idempotencyKey) {
+        if (row == null) {
+            return new BulkUpsertResult.Outcome(id, BulkUpsertResult.Status.NOT_FOUND, null);
+        }
+        BulkUpsertResult.Status status = idempotencyKey != null && idempotencyKey.equals(row.idempotencyKey())
+                ? BulkUpsertResult.Status.REPLAYED : BulkUpsertResult.Status.CONFLICT;
+        return new BulkUpsertResult.Outcome(id, status, row.version());
+    }
+
+    private record Written(int[] counts, Map<Integer, CardDataRepository.RowVersion> versions) {
+    }
+}
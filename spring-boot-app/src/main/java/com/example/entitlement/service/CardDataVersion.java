@@ -0,0 +1,42 @@
+package com.example.entitlement.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Change version of {@code card_data}, bumped by every write made through this application.
+ * Read endpoints derive validators from it, so a conditional GET can be answered without
+ * touching the database.
+ * <p>
+ * The version is per process: the instance id in {@link #etag(Snapshot, String)} keeps tags from
+ * different instances (or from before a restart) from ever matching. Writes through other
+ * instances are only seen with the change relay on, and writes that bypass the API not at all.
+ */
+@Component
+public class CardDataVersion {
+
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(new Snapshot(0, Instant.now()));
+
+    public Snapshot current() {
+        return current.get();
+    }
+
+    public void bump() {
+        current.updateAndGet(s -> new Snapshot(s.version() + 1, Instant.now()));
+    }
+
+    public record Snapshot(long version, Instant lastModified) {
+    }
+
+    /**
+     * Strong ETag for the representation identified by {@code variant} (e.g. the normalized query)
+     * at {@code snapshot}.
+     */
+    public String etag(Snapshot snapshot, String variant) {
+        return "\"" + instanceId + "-" + snapshot.version() + "-" + Integer.toHexString(variant.hashCode()) + "\"";
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.repository.CardDataRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Group commit for single-card creates: request threads queue their row and one writer thread
+ * inserts everything queued in a single transaction. A failed batch is retried row by row, so a
+ * bad row only fails its own request.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.card-data.write-behind", name = "enabled", havingValue = "true")
+public class CardDataWriteBehind implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CardDataWriteBehind.class);
+
+    private static final long STOP_TIMEOUT_MILLIS = 30_000;
+
+    private final CardDataRepository repository;
+    private final CardDataVersion version;
+    private final CardDataChangeFeed changes;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacity;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    // Reserved before offering, so the queue never exceeds capacity.
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer flushes;
+    private final DistributionSummary batchRows;
+    private final Counter rejected;
+    private volatile boolean running;
+    private volatile boolean idle;
+    private volatile Thread writer;
+
+    public CardDataWriteBehind(CardDataRepository repository,
+                               CardDataVersion version,
+                               CardDataChangeFeed changes,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.card-data.write-behind.capacity:10000}") int capacity,
+                               @Value("${app.card-data.write-behind.batch-size:500}") int batchSize,
+                               @Value("${app.card-data.write-behind.max-delay:5ms}") Duration maxDelay,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+        this.repository = repository;
+        this.version = version;
+        this.changes = changes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        MeterRegistry registry = meterRegistry.getIfAvailable(CompositeMeterRegistry::new);
+        this.flushes = Timer.builder("card_data.write_behind.flush").register(registry);
+        this.batchRows = DistributionSummary.builder("card_data.write_behind.batch.rows").register(registry);
+        this.rejected = Counter.builder("card_data.write_behind.rejected").register(registry);
+        registry.gauge("card_data.write_behind.queued", queued);
+    }
+
+    /**
+     * Queues {@code cd} for the next batch; the future completes once the row is committed.
+     *
+     * @throws RejectedExecutionException when the queue is full or the writer is stopped
+     */
+    public CompletableFuture<Integer> submit(CardData cd) {
+        if (!running) {
+            throw reject("card data writer is not running");
+        }
+        int position = queued.incrementAndGet();
+        if (position > capacity) {
+            queued.decrementAndGet();
+            throw reject("card data write queue is full (" + capacity + " rows)");
+        }
+        Pending pending = new Pending(cd, new CompletableFuture<>(), System.nanoTime());
+        queue.offer(pending);
+        // The writer may have drained its last rows and exited between the check above and the offer.
+        if (!running && queue.remove(pending)) {
+            queued.decrementAndGet();
+            throw reject("card data writer is not running");
+        }
+        if (idle || position >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+        return pending.done();
+    }
+
+    private RejectedExecutionException reject(String message) {
+        rejected.increment();
+        return new RejectedExecutionException(message);
+    }
+
+    private record Pending(CardData card, CompletableFuture<Integer> done, long queuedAt) {
+    }
+
+    @Override
+    public void start() {
+        writer = new Thread(this::run, "card-data-write-behind");
+        writer.setDaemon(true);
+        running = true;
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // After the web server, so requests accepted while it drains are still written.
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 2048;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            Pending oldest = queue.peek();
+            if (oldest == null) {
+                idle = true;
+                if (running && queue.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            long deadline = oldest.queuedAt() + maxDelayNanos;
+            long wait;
+            while (running && queued.get() < batchSize && (wait = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            Pending next;
+            while (batch.size() < batchSize && (next = queue.poll()) != null) {
+                batch.add(next);
+            }
+            queued.addAndGet(-batch.size());
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<Pending> committed;
+        try {
+            flushes.record(() -> insert(cards(batch)));
+            batchRows.record(batch.size());
+            committed = batch;
+        } catch (RuntimeException batchFailure) {
+            log.debug("Batch of {} card rows failed, retrying row by row", batch.size(), batchFailure);
+            committed = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                try {
+                    insert(List.of(pending.card()));
+                    committed.add(pending);
+                } catch (RuntimeException e) {
+                    pending.done().completeExceptionally(e);
+                }
+            }
+        } catch (Error e) {
+            batch.forEach(pending -> pending.done().completeExceptionally(e));
+            throw e;
+        }
+        if (!committed.isEmpty()) {
+            try {
+                published(cards(committed));
+            } catch (RuntimeException e) {
+                log.warn("Publishing {} committed card rows failed", committed.size(), e);
+            }
+        }
+        for (Pending pending : committed) {
+            pending.done().complete(1);
+        }
+    }
+
+    private void insert(List<CardData> rows) {
+        transactionTemplate.executeWithoutResult(status -> repository.batchInsert(rows));
+    }
+
+    private void published(List<CardData> rows) {
+        version.bump();
+        List<CardDataChange> created = new ArrayList<>(rows.size());
+        for (CardData row : rows) {
+            created.add(CardDataChange.created(row));
+        }
+        changes.publish(created);
+    }
+
+    private static List<CardData> cards(List<Pending> batch) {
+        List<CardData> rows = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            rows.add(pending.card());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.routing.DataSourceRoute;
+import com.example.entitlement.screening.CardNumberBloomFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link CardNumberBloomFilter} of every {@code card_number} in {@code card_data}, so screening can
+ * skip the database for numbers that are certainly not on file. Numbers go in as screening reads
+ * them, without spaces and dashes. Deleted and replaced numbers stay in the filter until the next
+ * rebuild, every {@code rebuild-interval}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.card-data.screening.filter", name = "enabled", havingValue = "true")
+public class CardNumberIndex extends CardDataChangeFollower {
+
+    private static final Logger log = LoggerFactory.getLogger(CardNumberIndex.class);
+
+    private static final Set<CardDataField> CARD_NUMBER = EnumSet.of(CardDataField.CARD_NUMBER);
+
+    private final CardDataRepository repository;
+    private final TransactionTemplate readOnly;
+    private final long expectedRows;
+    private final double falsePositiveRate;
+    private final Duration rebuildInterval;
+    private final AtomicLong entries = new AtomicLong();
+    private volatile CardNumberBloomFilter filter;
+
+    public CardNumberIndex(CardDataRepository repository,
+                           CardDataChangeFeed changes,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.card-data.screening.filter.expected-rows:1000000}") long expectedRows,
+                           @Value("${app.card-data.screening.filter.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${app.card-data.screening.filter.rebuild-interval:1h}") Duration rebuildInterval,
+                           ObjectProvider<MeterRegistry> meterRegistry) {
+        this(repository, changes, transactionManager, expectedRows, falsePositiveRate, rebuildInterval,
+                meterRegistry.getIfAvailable(CompositeMeterRegistry::new));
+    }
+
+    private CardNumberIndex(CardDataRepository repository, CardDataChangeFeed changes,
+                            PlatformTransactionManager transactionManager, long expectedRows,
+                            double falsePositiveRate, Duration rebuildInterval, MeterRegistry registry) {
+        super(changes, "card-data-screening", "card number screening filter",
+                Timer.builder("card_data.screening.filter.load").register(registry));
+        this.repository = repository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.expectedRows = expectedRows;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+        registry.gauge("card_data.screening.filter.entries", entries);
+        registry.gauge("card_data.screening.filter.bytes", this,
+                index -> index.filter == null ? 0 : index.filter.bytes());
+    }
+
+    /**
+     * False when no card has {@code number}; true when one may have it, or the filter is not loaded.
+     */
+    public boolean mightContain(String number) {
+        if (isReady() && isBehind()) {
+            catchUp();
+        }
+        CardNumberBloomFilter current = filter;
+        return current == null || current.mightContain(number);
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        long every = rebuildInterval.toMillis();
+        executor.scheduleWithFixedDelay(this::scheduleLoad, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Runnable read() {
+        long rows = repository.stats(CardDataFilter.NONE, Set.of()).get(0).count();
+        // Headroom for the inserts until the next rebuild.
+        CardNumberBloomFilter built = new CardNumberBloomFilter(Math.max(expectedRows, rows + rows / 2),
+                falsePositiveRate);
+        long[] added = {0};
+        DataSourceRoute.primary(() -> readOnly.execute(status -> {
+            repository.streamAll(CardDataFilter.NONE, CARD_NUMBER, cd -> {
+                String number = CardDataScreeningService.normalize(cd.getCardNumber());
+                if (number != null) {
+                    built.put(number);
+                    added[0]++;
+                }
+            });
+            return null;
+        }));
+        log.info("Loaded {} card numbers into the screening filter ({} bytes, {} hashes)",
+                added[0], built.bytes(), built.hashes());
+        return () -> {
+            filter = built;
+            entries.set(added[0]);
+        };
+    }
+
+    @Override
+    protected boolean apply(CardDataChange change) {
+        if (change.type() == CardDataChange.Type.DELETED || change.card() == null) {
+            return true;
+        }
+        String number = CardDataScreeningService.normalize(change.card().getCardNumber());
+        if (number != null) {
+            filter.put(number);
+            entries.incrementAndGet();
+        }
+        return true;
+    }
+
+    @Override
+    protected void applied() {
+        if (entries.get() > filter.capacity()) {
+            // Past its capacity the false-positive rate grows: size it anew.
+            scheduleLoad();
+        }
+    }
+
+    @Override
+    protected void drop() {
+        filter = null;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.entitlement.sharding;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.repository.CardDataRepository.RowVersion;
+import com.example.entitlement.repository.ShardedCardDataRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves every card to the shard its {@code client_id} belongs to, e.g. after a shard was added.
+ * Each card is copied before its old row is deleted, and only deleted while still at the copied
+ * version, so cards stay readable and updates made mid-move are kept.
+ */
+public class CardDataShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(CardDataShardRebalancer.class);
+
+    private final ShardedCardDataRepository repository;
+    private final int batchSize;
+    private final int maxPasses;
+    private final Counter moved;
+
+    public CardDataShardRebalancer(ShardedCardDataRepository repository, int batchSize, int maxPasses,
+                                   MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.maxPasses = maxPasses;
+        this.moved = Counter.builder("card_data.shards.rebalance.moved").register(meterRegistry);
+    }
+
+    /**
+     * @param scanned   cards read in all passes
+     * @param moved     cards deleted from a shard they did not belong on
+     * @param kept      cards left in place because they changed while being moved
+     * @param converged whether the last pass found every card on its shard
+     */
+    public record Report(long scanned, long moved, long kept, int passes, boolean converged) {
+    }
+
+    public synchronized Report rebalance() {
+        repository.setMigrating(true);
+        try {
+            long scanned = 0;
+            long movedTotal = 0;
+            long kept = 0;
+            for (int pass = 1; pass <= maxPasses; pass++) {
+                long misplaced = 0;
+                for (int shard = 0; shard < repository.ring().size(); shard++) {
+                    Pass result = drain(shard);
+                    scanned += result.scanned();
+                    misplaced += result.misplaced();
+                    movedTotal += result.moved();
+                    kept += result.misplaced() - result.moved();
+                }
+                log.info("Shard rebalance pass {}: {} cards scanned in total, {} misplaced in this pass",
+                        pass, scanned, misplaced);
+                if (misplaced == 0) {
+                    return new Report(scanned, movedTotal, kept, pass, true);
+                }
+            }
+            return new Report(scanned, movedTotal, kept, maxPasses, false);
+        } finally {
+            repository.setMigrating(false);
+        }
+    }
+
+    private Pass drain(int shard) {
+        CardDataRepository source = repository.shards().get(shard);
+        long scanned = 0;
+        long misplaced = 0;
+        long movedCount = 0;
+        int afterId = Integer.MIN_VALUE;
+        while (true) {
+            List<CardData> page = source.findPage(CardDataFilter.NONE, afterId, batchSize, CardDataField.ALL);
+            if (page.isEmpty()) {
+                return new Pass(scanned, misplaced, movedCount);
+            }
+            scanned += page.size();
+            afterId = page.get(page.size() - 1).getId();
+            Map<Integer, List<CardData>> byTarget = new LinkedHashMap<>();
+            for (CardData row : page) {
+                if (row.getClientId() != null) {
+                    int target = repository.ring().shardOf(row.getClientId());
+                    if (target != shard) {
+                        byTarget.computeIfAbsent(target, t -> new ArrayList<>()).add(row);
+                    }
+                }
+            }
+            for (Map.Entry<Integer, List<CardData>> entry : byTarget.entrySet()) {
+                List<CardData> rows = entry.getValue();
+                misplaced += rows.size();
+                copy(entry.getKey(), rows);
+                int deleted = 0;
+                for (int count : source.deleteUnchanged(rows)) {
+                    deleted += count;
+                }
+                movedCount += deleted;
+                moved.increment(deleted);
+            }
+        }
+    }
+
+    // Inserts the rows on the target, replacing older copies left there by an earlier pass.
+    private void copy(int target, List<CardData> rows) {
+        CardDataRepository shard = repository.shards().get(target);
+        new TransactionTemplate(repository.transactionManager(target)).executeWithoutResult(status -> {
+            Map<Integer, RowVersion> present = shard.findVersions(rows.stream().map(CardData::getId).toList());
+            List<Integer> stale = new ArrayList<>();
+            List<CardData> copies = new ArrayList<>(rows.size());
+            for (CardData row : rows) {
+                RowVersion there = present.get(row.getId());
+                if (there == null || there.version() < row.getVersion()) {
+                    if (there != null) {
+                        stale.add(row.getId());
+                    }
+                    copies.add(row);
+                }
+            }
+            if (!stale.isEmpty()) {
+                shard.deleteByIds(stale);
+            }
+            if (!copies.isEmpty()) {
+                shard.insertCopies(copies);
+            }
+        });
+    }
+
+    private record Pass(long scanned, long misplaced, long moved) {
+    }
+}
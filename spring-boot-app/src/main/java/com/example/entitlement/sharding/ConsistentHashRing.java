@@ -0,0 +1,87 @@
+package com.example.entitlement.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent hashing of {@code client_id} onto named shards. Each shard owns
+ * {@code virtualNodes} points on a 64-bit ring, and a client belongs to the shard owning the first
+ * point at or after the client's hash. Points depend only on the shard's name, so adding a shard
+ * to N moves about 1/(N+1) of the clients, all of them to the new shard, and removing one moves
+ * only that shard's clients.
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> shards;
+    private final long[] points;
+    private final int[] owners;
+
+    public ConsistentHashRing(List<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is required");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.shards = List.copyOf(shards);
+        long[] hashes = new long[shards.size() * virtualNodes];
+        int n = 0;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            byte[] name = shards.get(shard).getBytes(StandardCharsets.UTF_8);
+            for (int node = 0; node < virtualNodes; node++) {
+                hashes[n++] = mix(fnv(name) ^ mix(node + 1L));
+            }
+        }
+        // Sort point indices by hash; ties (practically impossible) go to the lower shard index.
+        Integer[] order = new Integer[hashes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b] ? Long.compare(hashes[a], hashes[b]) : Integer.compare(a, b));
+        this.points = new long[order.length];
+        this.owners = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = order[i] / virtualNodes;
+        }
+    }
+
+    /**
+     * Index in {@link #shards()} of the shard that owns {@code clientId}.
+     */
+    public int shardOf(int clientId) {
+        long hash = mix(clientId);
+        int at = Arrays.binarySearch(points, hash);
+        if (at < 0) {
+            at = -at - 1;
+        }
+        return owners[at == points.length ? 0 : at];
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    private static long fnv(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // MurmurHash3 finalizer: spreads sequential client ids evenly over the ring.
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.repository.ReactiveCardDataRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.BDDMockito.given;
+
+@WebFluxTest(controllers = ReactiveCardDataController.class)
+class ReactiveCardDataControllerTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @MockBean
+    private ReactiveCardDataRepository repository;
+
+    @Test
+    void list_streamsNdjson() {
+        given(repository.findMatching(CardDataFilter.byCardType("CREDIT"))).willReturn(Flux.just(card(1), card(3)));
+
+        client.get().uri("/api/card-data?cardType=CREDIT")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(CardData.class).hasSize(2);
+    }
+
+    @Test
+    void list_returnsJsonArray() {
+        given(repository.findMatching(CardDataFilter.NONE)).willReturn(Flux.just(card(1), card(2)));
+
+        client.get().uri("/api/card-data")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].id").isEqualTo(2);
+    }
+
+    @Test
+    void get_returnsCard_or404() {
+        given(repository.findById(1)).willReturn(Mono.just(card(1)));
+        given(repository.findById(2)).willReturn(Mono.empty());
+
+        client.get().uri("/api/card-data/1").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.id").isEqualTo(1);
+        client.get().uri("/api/card-data/2").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private static CardData card(int id) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        return cd;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.entitlement.repository;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataFilter;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveCardDataRepositoryTest {
+
+    private static ReactiveCardDataRepository repository;
+
+    @BeforeAll
+    static void setUp() {
+        ConnectionFactory connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///reactive-card-data;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .populate(connectionFactory)
+                .block();
+        repository = new ReactiveCardDataRepository(DatabaseClient.create(connectionFactory), "dbo", 2);
+    }
+
+    @Test
+    void findMatching_emitsRowsInIdOrder_underBoundedDemand() {
+        StepVerifier.create(repository.findMatching(CardDataFilter.NONE), 1)
+                .assertNext(cd -> {
+                    assertThat(cd.getId()).isEqualTo(1);
+                    assertThat(cd.getCreditLimit()).isEqualByComparingTo("5000.00");
+                    assertThat(cd.getExpires()).hasYear(2027);
+                })
+                .thenRequest(2)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void findMatching_appliesFilter() {
+        CardDataFilter filter = new CardDataFilter(null, "CREDIT", null, null, null, null, new BigDecimal("10000"), null);
+
+        StepVerifier.create(repository.findMatching(filter).map(CardData::getId))
+                .expectNext(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void findById_returnsRow_orEmpty() {
+        StepVerifier.create(repository.findById(2).map(CardData::getCardBrand))
+                .expectNext("MASTERCARD")
+                .verifyComplete();
+        StepVerifier.create(repository.findById(9999)).verifyComplete();
+    }
+}
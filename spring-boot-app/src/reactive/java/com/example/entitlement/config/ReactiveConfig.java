@@ -0,0 +1,34 @@
+package com.example.entitlement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Runs the {@code reactive} profile on Netty (Tomcat, also on the classpath for the servlet stack,
+ * would otherwise win) and keeps the JDBC {@code DataSource} there. Spring Boot backs off its
+ * DataSource auto-configuration as soon as an R2DBC {@code ConnectionFactory} exists, which would
+ * leave the blocking repository and services (and the schema initializer) without a database.
+ * The pool is sized down in {@code application-reactive.yml}: reads go through R2DBC.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.repository.ReactiveCardDataRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-only WebFlux counterpart of {@link CardDataController}, active when the application runs
+ * as a reactive web application (the {@code reactive} profile). Writes stay on the servlet stack.
+ */
+@RestController
+@RequestMapping("/api/card-data")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCardDataController {
+
+    private final ReactiveCardDataRepository repository;
+
+    public ReactiveCardDataController(ReactiveCardDataRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Matching rows as a JSON array, or one JSON object per line for {@code application/x-ndjson}.
+     * Either way rows are written as the client reads them, with demand propagated to the driver.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, CardDataController.NDJSON})
+    public Flux<CardData> list(CardDataFilter filter) {
+        return repository.findMatching(filter);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<CardData>> get(@PathVariable int id) {
+        return repository.findById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
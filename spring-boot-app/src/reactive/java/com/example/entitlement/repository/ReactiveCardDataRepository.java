@@ -0,0 +1,102 @@
+package com.example.entitlement.repository;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataFilter;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Non-blocking reads of {@code card_data} over R2DBC for the {@code reactive} profile. Rows are
+ * emitted as the subscriber requests them: a slow consumer slows the fetch down instead of
+ * buffering the table, and no thread is held while it waits.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveCardDataRepository {
+
+    private final DatabaseClient client;
+    private final String schema;
+    private final int fetchSize;
+
+    public ReactiveCardDataRepository(DatabaseClient client,
+                                      @Value("${app.card-data.schema:dbo}") String schema,
+                                      @Value("${app.card-data.fetch-size:500}") int fetchSize) {
+        this.client = client;
+        this.schema = schema;
+        this.fetchSize = fetchSize;
+    }
+
+    private String baseSelect() {
+        return "SELECT id, client_id, card_brand, card_type, card_number, expires, cvv, has_chip, " +
+                "num_cards_issued, credit_limit, acct_open_date, year_pin_last_changed, card_on_dark_web, version " +
+                "FROM " + schema + ".card_data";
+    }
+
+    /**
+     * Rows matching {@code filter} in id order, fetched {@code fetchSize} rows per round trip.
+     */
+    public Flux<CardData> findMatching(CardDataFilter filter) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        and(where, params, "card_brand = :cardBrand", "cardBrand", filter.cardBrand());
+        and(where, params, "card_type = :cardType", "cardType", filter.cardType());
+        and(where, params, "client_id = :clientId", "clientId", filter.clientId());
+        and(where, params, "expires >= :expiresFrom", "expiresFrom", filter.expiresFrom());
+        and(where, params, "expires <= :expiresTo", "expiresTo", filter.expiresTo());
+        and(where, params, "card_on_dark_web = :cardOnDarkWeb", "cardOnDarkWeb", filter.cardOnDarkWeb());
+        and(where, params, "credit_limit >= :minCreditLimit", "minCreditLimit", filter.minCreditLimit());
+        and(where, params, "credit_limit <= :maxCreditLimit", "maxCreditLimit", filter.maxCreditLimit());
+
+        DatabaseClient.GenericExecuteSpec spec = client.sql(baseSelect() + where + " ORDER BY id")
+                .filter(statement -> statement.fetchSize(fetchSize));
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec.map(ReactiveCardDataRepository::mapRow).all();
+    }
+
+    public Mono<CardData> findById(int id) {
+        return client.sql(baseSelect() + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveCardDataRepository::mapRow)
+                .one();
+    }
+
+    private static void and(StringJoiner where, Map<String, Object> params, String predicate, String name, Object value) {
+        if (value != null) {
+            where.add(predicate);
+            params.put(name, value);
+        }
+    }
+
+    // Same column order as baseSelect(); R2DBC returns null for SQL NULL, so no wasNull() dance.
+    private static CardData mapRow(Readable row) {
+        CardData cd = new CardData();
+        cd.setId(row.get(0, Integer.class));
+        cd.setClientId(row.get(1, Integer.class));
+        cd.setCardBrand(row.get(2, String.class));
+        cd.setCardType(row.get(3, String.class));
+        cd.setCardNumber(row.get(4, String.class));
+        cd.setExpires(row.get(5, LocalDate.class));
+        cd.setCvv(row.get(6, String.class));
+        cd.setHasChip(row.get(7, Boolean.class));
+        cd.setNumCardsIssued(row.get(8, Integer.class));
+        cd.setCreditLimit(row.get(9, BigDecimal.class));
+        cd.setAcctOpenDate(row.get(10, LocalDate.class));
+        cd.setYearPinLastChanged(row.get(11, Integer.class));
+        cd.setCardOnDarkWeb(row.get(12, Boolean.class));
+        cd.setVersion(row.get(13, Long.class));
+        return cd;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.entitlement;
+
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.service.CardDataChangeFeed;
+import com.example.entitlement.service.CardDataChangeRelay;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+/**
+ * A private in-memory H2 database with {@code schema.sql}, for tests whose background threads or own
+ * transactions rule out the rolled-back {@code @JdbcTest} slice.
+ */
+public final class CardDataTestDatabase {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final CardDataRepository repository;
+    private final DataSourceTransactionManager transactionManager;
+
+    private CardDataTestDatabase(boolean withRows) {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:card-data-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        if (withRows) {
+            populator.addScript(new ClassPathResource("data.sql"));
+        }
+        populator.execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new CardDataRepository(jdbcTemplate, "dbo", 500, new CompositeMeterRegistry());
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    /**
+     * The schema and the rows of {@code data.sql}.
+     */
+    public static CardDataTestDatabase withRows() {
+        return new CardDataTestDatabase(true);
+    }
+
+    public static CardDataTestDatabase empty() {
+        return new CardDataTestDatabase(false);
+    }
+
+    public static CardDataChangeFeed changeFeed(int capacity) {
+        return new CardDataChangeFeed(capacity, none(CardDataChangeRelay.class));
+    }
+
+    public static <T> ObjectProvider<T> none(Class<T> type) {
+        return new StaticListableBeanFactory().getBeanProvider(type);
+    }
+
+    public static <T> ObjectProvider<T> of(Class<T> type, T bean) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean(type.getSimpleName(), bean);
+        return beans.getBeanProvider(type);
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public CardDataRepository repository() {
+        return repository;
+    }
+
+    public DataSourceTransactionManager transactionManager() {
+        return transactionManager;
+    }
+
+    public int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.entitlement.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardDataAdmissionFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CardDataAdmissionFilter filter = new CardDataAdmissionFilter(
+            new TokenBucketRateLimiter(1, 2, 100),
+            new TokenBucketRateLimiter(1000, 1000, 100),
+            1, Duration.ofSeconds(3), false, false, true, registry);
+
+    @Test
+    void classify_separatesScansFromBoundedAndPointRequests() {
+        assertThat(filter.classify(get("/api/card-data"))).isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        assertThat(filter.classify(get("/api/card-data/stats"))).isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        MockHttpServletRequest page = get("/api/card-data");
+        page.setParameter("limit", "100");
+        assertThat(filter.classify(page)).isEqualTo(CardDataAdmissionFilter.Budget.POINT);
+        MockHttpServletRequest stream = get("/api/card-data");
+        stream.setParameter("limit", "100");
+        stream.addHeader("Accept", "application/x-ndjson");
+        assertThat(filter.classify(stream)).isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        assertThat(filter.classify(get("/api/card-data/7"))).isEqualTo(CardDataAdmissionFilter.Budget.POINT);
+        assertThat(filter.classify(new MockHttpServletRequest("POST", "/api/card-data")))
+                .isEqualTo(CardDataAdmissionFilter.Budget.POINT);
+        assertThat(filter.classify(new MockHttpServletRequest("POST", "/api/card-data/screen")))
+                .isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        assertThat(filter.classify(new MockHttpServletRequest("POST", "/api/card-data/bulk")))
+                .isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        assertThat(filter.classify(new MockHttpServletRequest("POST", "/api/card-data/exports")))
+                .isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        assertThat(filter.classify(new MockHttpServletRequest("POST", "/api/card-data/exports/e1/resume")))
+                .isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        assertThat(filter.classify(get("/api/card-data/exports/e1"))).isEqualTo(CardDataAdmissionFilter.Budget.POINT);
+        assertThat(filter.classify(get("/api/card-data/changes"))).isNull();
+    }
+
+    @Test
+    void classify_chargesOnlyUncachedListsAsScans() {
+        MockHttpServletRequest byType = get("/api/card-data");
+        byType.setParameter("cardType", "CREDIT");
+        assertThat(filter.classify(byType)).isEqualTo(CardDataAdmissionFilter.Budget.POINT);
+        MockHttpServletRequest projected = get("/api/card-data");
+        projected.setParameter("cardType", "CREDIT");
+        projected.setParameter("fields", "id");
+        assertThat(filter.classify(projected)).isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        MockHttpServletRequest filtered = get("/api/card-data");
+        filtered.setParameter("clientId", "7");
+        assertThat(filter.classify(filtered)).isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        MockHttpServletRequest poll = get("/api/card-data");
+        poll.addHeader("If-None-Match", "\"3\"");
+        assertThat(filter.classify(poll)).isEqualTo(CardDataAdmissionFilter.Budget.POINT);
+
+        CardDataAdmissionFilter snapshot = new CardDataAdmissionFilter(new TokenBucketRateLimiter(1, 2, 100),
+                new TokenBucketRateLimiter(1000, 1000, 100), 1, Duration.ofSeconds(3), true, false, false, registry);
+        assertThat(snapshot.classify(get("/api/card-data"))).isEqualTo(CardDataAdmissionFilter.Budget.POINT);
+        assertThat(snapshot.classify(filtered)).isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        assertThat(snapshot.classify(poll)).isEqualTo(CardDataAdmissionFilter.Budget.POINT);
+        MockHttpServletRequest filteredPoll = get("/api/card-data");
+        filteredPoll.setParameter("clientId", "7");
+        filteredPoll.addHeader("If-None-Match", "\"3\"");
+        assertThat(snapshot.classify(filteredPoll)).isEqualTo(CardDataAdmissionFilter.Budget.SCAN);
+        CardDataAdmissionFilter columnar = new CardDataAdmissionFilter(new TokenBucketRateLimiter(1, 2, 100),
+                new TokenBucketRateLimiter(1000, 1000, 100), 1, Duration.ofSeconds(3), false, true, false, registry);
+        assertThat(columnar.classify(filtered)).isEqualTo(CardDataAdmissionFilter.Budget.POINT);
+    }
+
+    @Test
+    void rateLimitsScansPerClient_with429AndRetryAfter() throws Exception {
+        assertThat(run(get("/api/card-data", "a")).getStatus()).isEqualTo(200);
+        assertThat(run(get("/api/card-data", "a")).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse limited = run(get("/api/card-data", "a"));
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(limited.getHeader("Retry-After")).isEqualTo("1");
+        // Another client, and point reads of the same client, have their own budgets.
+        assertThat(run(get("/api/card-data", "b")).getStatus()).isEqualTo(200);
+        assertThat(run(get("/api/card-data/1", "a")).getStatus()).isEqualTo(200);
+
+        // A client id header does not open a new bucket.
+        MockHttpServletRequest renamed = get("/api/card-data", "a");
+        renamed.addHeader("X-Client-Id", "someone-else");
+        assertThat(run(renamed).getStatus()).isEqualTo(429);
+        // An authenticated client is keyed by its principal, not its address.
+        MockHttpServletRequest signedIn = get("/api/card-data", "a");
+        signedIn.setUserPrincipal(() -> "alice");
+        assertThat(run(signedIn).getStatus()).isEqualTo(200);
+
+        assertThat(count("scan", "rate_limited")).isEqualTo(2);
+        assertThat(count("scan", "admitted")).isEqualTo(4);
+        assertThat(count("point", "admitted")).isEqualTo(1);
+    }
+
+    @Test
+    void shedsScansBeyondTheBulkhead_untilStreamedResponseCompletes() throws Exception {
+        MockHttpServletRequest streaming = get("/api/card-data", "a");
+        streaming.setAsyncSupported(true);
+        MockFilterChain startsAsync = new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) {
+                streaming.startAsync();
+            }
+        };
+        filter.doFilter(streaming, new MockHttpServletResponse(), startsAsync);
+        assertThat(registry.get("card_data.admission.scans.active").gauge().value()).isEqualTo(1);
+
+        MockHttpServletResponse shed = run(get("/api/card-data", "b"));
+        assertThat(shed.getStatus()).isEqualTo(429);
+        assertThat(shed.getHeader("Retry-After")).isEqualTo("3");
+        assertThat(count("scan", "shed")).isEqualTo(1);
+
+        AsyncContext async = streaming.getAsyncContext();
+        for (AsyncListener listener : ((MockAsyncContext) async).getListeners()) {
+            listener.onComplete(new AsyncEvent(async));
+        }
+        assertThat(run(get("/api/card-data", "b")).getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private double count(String budget, String outcome) {
+        return registry.get("card_data.admission.requests").tag("budget", budget).tag("outcome", outcome).counter().count();
+    }
+
+    private static MockHttpServletRequest get(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+
+    private static MockHttpServletRequest get(String path, String client) {
+        MockHttpServletRequest request = get(path);
+        request.setRemoteAddr(client);
+        return request;
+    }
+}
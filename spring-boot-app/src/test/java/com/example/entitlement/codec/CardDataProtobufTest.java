@@ -0,0 +1,87 @@
+package com.example.entitlement.codec;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnknownFieldSet;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardDataProtobufTest {
+
+    @Test
+    void roundTripsEveryField_andMatchesProtoFieldNumbers() throws Exception {
+        CardData cd = new CardData();
+        cd.setId(7);
+        cd.setClientId(100);
+        cd.setCardBrand("VISA");
+        cd.setCardType("CREDIT");
+        cd.setCardNumber("4111111111111111");
+        cd.setExpires(LocalDate.of(2027, 12, 31));
+        cd.setCvv("123");
+        cd.setHasChip(true);
+        cd.setNumCardsIssued(2);
+        cd.setCreditLimit(new BigDecimal("5000.00"));
+        cd.setAcctOpenDate(LocalDate.of(2015, 6, 1));
+        cd.setYearPinLastChanged(2020);
+        cd.setCardOnDarkWeb(false);
+        cd.setVersion(4L);
+
+        byte[] bytes = encode(cd, CardDataField.ALL);
+        assertThat(bytes).hasSize(CardDataProtobuf.serializedSize(cd, CardDataField.ALL));
+
+        CardData decoded = CardDataProtobuf.read(CodedInputStream.newInstance(bytes));
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(cd);
+
+        // Decoded without our reader: numbers and wire types as declared in card_data.proto.
+        UnknownFieldSet fields = UnknownFieldSet.parseFrom(bytes);
+        assertThat(fields.getField(1).getVarintList()).containsExactly(7L);
+        assertThat(fields.getField(5).getLengthDelimitedList().get(0).toStringUtf8()).isEqualTo("4111111111111111");
+        assertThat(fields.getField(6).getVarintList()).containsExactly(LocalDate.of(2027, 12, 31).toEpochDay());
+        assertThat(fields.getField(10).getLengthDelimitedList().get(0).toStringUtf8()).isEqualTo("5000.00");
+        assertThat(fields.getField(13).getVarintList()).containsExactly(0L);
+        assertThat(fields.getField(14).getVarintList()).containsExactly(4L);
+    }
+
+    @Test
+    void writesOnlySelectedNonNullFields_andDelimitsLists() throws Exception {
+        CardData a = new CardData();
+        a.setId(1);
+        a.setCardType("CREDIT");
+        a.setCvv("123");
+        CardData b = new CardData();
+        b.setId(2);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        Set<CardDataField> selected = EnumSet.of(CardDataField.ID, CardDataField.CARD_TYPE);
+        CardDataProtobuf.writeDelimited(a, selected, out);
+        CardDataProtobuf.writeDelimited(b, selected, out);
+        out.flush();
+
+        CodedInputStream in = CodedInputStream.newInstance(bytes.toByteArray());
+        CardData first = CardDataProtobuf.readDelimited(in);
+        CardData second = CardDataProtobuf.readDelimited(in);
+        assertThat(CardDataProtobuf.readDelimited(in)).isNull();
+        assertThat(first.getCardType()).isEqualTo("CREDIT");
+        assertThat(first.getCvv()).isNull();
+        assertThat(second.getId()).isEqualTo(2);
+        assertThat(second.getCardType()).isNull();
+    }
+
+    private static byte[] encode(CardData cd, Set<CardDataField> fields) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        CardDataProtobuf.write(cd, fields, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.entitlement.columnar;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardDataColumnsTest {
+
+    @Test
+    void put_roundTripsEveryColumn_includingNullsAndLeadingZeros() {
+        CardDataColumns columns = new CardDataColumns(4);
+        CardData full = card(7, 100, "VISA", "CREDIT", "1234.50");
+        full.setCardNumber("0004111111111111");
+        full.setExpires(LocalDate.of(2027, 3, 31));
+        full.setCvv("012");
+        full.setHasChip(true);
+        full.setNumCardsIssued(2);
+        full.setAcctOpenDate(LocalDate.of(2015, 6, 1));
+        full.setYearPinLastChanged(2021);
+        full.setCardOnDarkWeb(false);
+        full.setVersion(3L);
+        CardData sparse = new CardData();
+        sparse.setId(8);
+        sparse.setCardNumber("not-a-number");
+
+        columns.put(full);
+        columns.put(sparse);
+
+        List<CardData> rows = columns.query(CardDataFilter.NONE, 0, 10, CardDataField.ALL);
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0)).usingRecursiveComparison().isEqualTo(full);
+        assertThat(rows.get(1).getCardNumber()).isEqualTo("not-a-number");
+        assertThat(rows.get(1).getClientId()).isNull();
+        assertThat(rows.get(1).getHasChip()).isNull();
+        assertThat(rows.get(1).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void query_usesTheIndexes_andKeepsThemCurrentAcrossUpdatesAndDeletes() {
+        CardDataColumns columns = new CardDataColumns(2);
+        for (int id = 1; id <= 40; id++) {
+            columns.put(card(id, id % 4, id % 2 == 0 ? "VISA" : "AMEX", id % 3 == 0 ? "DEBIT" : "CREDIT", String.valueOf(id * 100)));
+        }
+
+        assertThat(ids(query(columns, new CardDataFilter("VISA", "DEBIT", null, null, null, null, null, null), 0, 100)))
+                .containsExactly(6, 12, 18, 24, 30, 36);
+        assertThat(ids(query(columns, new CardDataFilter(null, null, 1, null, null, null, null, null), 20, 3)))
+                .containsExactly(21, 25, 29);
+
+        columns.put(card(25, 2, "MASTERCARD", "DEBIT", "1"));
+        columns.remove(21);
+        columns.remove(29);
+        columns.put(card(41, 1, "AMEX", "CREDIT", "1"));
+
+        assertThat(ids(query(columns, new CardDataFilter(null, null, 1, null, null, null, null, null), 20, 10)))
+                .containsExactly(33, 37, 41);
+        assertThat(ids(query(columns, new CardDataFilter("MASTERCARD", null, 2, null, null, null, null, null), 0, 10)))
+                .containsExactly(25);
+        assertThat(query(columns, new CardDataFilter("DISCOVER", null, null, null, null, null, null, null), 0, 10)).isEmpty();
+        assertThat(columns.size()).isEqualTo(39);
+        assertThat(columns.bytes()).isPositive();
+    }
+
+    @Test
+    void query_matchesRangesLikeSql_andProjectsFields() {
+        CardDataColumns columns = new CardDataColumns(4);
+        columns.put(card(1, 1, "VISA", "CREDIT", "99.99"));
+        columns.put(card(2, 1, "VISA", "CREDIT", "100.00"));
+        columns.put(card(3, 1, "VISA", "CREDIT", null));
+
+        CardDataFilter limits = new CardDataFilter(null, null, null, null, null, null,
+                new BigDecimal("99.995"), new BigDecimal("100"));
+        List<CardData> rows = columns.query(limits, 0, 10, EnumSet.of(CardDataField.ID, CardDataField.CARD_BRAND));
+
+        assertThat(ids(rows)).containsExactly(2);
+        assertThat(rows.get(0).getCardBrand()).isEqualTo("VISA");
+        assertThat(rows.get(0).getCreditLimit()).isNull();
+        assertThat(rows.get(0).getClientId()).isNull();
+        // A NULL column never satisfies a criterion on it.
+        assertThat(columns.query(new CardDataFilter(null, null, null, LocalDate.MIN, null, null, null, null), 0, 10,
+                CardDataField.ALL)).isEmpty();
+    }
+
+    private static List<CardData> query(CardDataColumns columns, CardDataFilter filter, int afterId, int limit) {
+        return columns.query(filter, afterId, limit, EnumSet.of(CardDataField.ID));
+    }
+
+    private static List<Integer> ids(List<CardData> rows) {
+        return rows.stream().map(CardData::getId).toList();
+    }
+
+    private static CardData card(int id, int clientId, String brand, String type, String creditLimit) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        cd.setClientId(clientId);
+        cd.setCardBrand(brand);
+        cd.setCardType(type);
+        cd.setCreditLimit(creditLimit == null ? null : new BigDecimal(creditLimit));
+        return cd;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.entitlement.config;
+
+import com.example.entitlement.model.BulkUpsertResult;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataView;
+import com.example.entitlement.repository.CardDataRowMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardDataRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void registersJacksonBindingAndRowMapperReflection() throws Exception {
+        new CardDataRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(CardData.class, "getCreditLimit")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(CardData.class, "setCreditLimit")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(BulkUpsertResult.Outcome.class, "status")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(BulkUpsertResult.Status.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(
+                Class.forName(CardDataView.class.getName() + "$Serializer"))).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onConstructor(CardDataRowMapper.class.getConstructor()))
+                .accepts(hints);
+    }
+}
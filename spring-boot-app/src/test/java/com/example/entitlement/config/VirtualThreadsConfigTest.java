@@ -0,0 +1,33 @@
+package com.example.entitlement.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class VirtualThreadsConfigTest {
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void executor_failsFast_beforeJava21() {
+        assertThatIllegalStateException()
+                .isThrownBy(VirtualThreadsConfig::newVirtualThreadPerTaskExecutor)
+                .withMessageContaining("requires Java 21");
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void executor_runsTasksOnVirtualThreads() throws Exception {
+        ExecutorService executor = VirtualThreadsConfig.newVirtualThreadPerTaskExecutor();
+        try {
+            Object virtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get();
+            assertThat(virtual).isEqualTo(true);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.CardDataArchiveStatus;
+import com.example.entitlement.service.CardDataArchiver;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = CardDataArchiveController.class, properties = "app.card-data.archive.enabled=true")
+class CardDataArchiveControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CardDataArchiver archiver;
+
+    @Test
+    void pauseAndResume_switchTheArchiver_andReturnItsStatus() throws Exception {
+        given(archiver.status()).willReturn(
+                new CardDataArchiveStatus(true, LocalDate.of(2026, 10, 1), 5000, 90000, 1200, null));
+
+        mockMvc.perform(post("/api/card-data/archive/pause"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paused", is(true)))
+                .andExpect(jsonPath("$.cursor", is(5000)))
+                .andExpect(jsonPath("$.archived", is(1200)));
+        then(archiver).should().pause();
+
+        mockMvc.perform(post("/api/card-data/archive/resume")).andExpect(status().isOk());
+        then(archiver).should().resume();
+
+        mockMvc.perform(get("/api/card-data/archive"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expiredBefore", is("2026-10-01")));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.service.CardDataChangeFeed;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = CardDataChangeController.class)
+@Import(CardDataChangeFeed.class)
+class CardDataChangeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CardDataChangeFeed feed;
+
+    @Test
+    void changes_replaysFromSince_thenStreamsNewChanges() throws Exception {
+        long start = feed.latest();
+        CardData card = new CardData(); card.setId(7); card.setCardType("CREDIT");
+        feed.publish(List.of(CardDataChange.created(card)));
+
+        MvcResult result = mockMvc.perform(get("/api/card-data/changes").param("since", String.valueOf(start)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(result.getResponse(), "event:created");
+
+        feed.publish(List.of(CardDataChange.deleted(7)));
+        String body = awaitContent(result.getResponse(), "event:deleted");
+
+        assertThat(body).startsWith("id:" + start + "\nevent:ready\n");
+        assertThat(body).contains("id:" + (start + 1) + "\nevent:created\ndata:{\"seq\":" + (start + 1));
+        assertThat(body).contains("\"cardType\":\"CREDIT\"");
+        assertThat(body.indexOf("event:created")).isLessThan(body.indexOf("event:deleted"));
+    }
+
+    @Test
+    void changes_resumesFromLastEventId() throws Exception {
+        feed.publish(List.of(CardDataChange.deleted(1), CardDataChange.deleted(2)));
+        long latest = feed.latest();
+
+        MvcResult result = mockMvc.perform(get("/api/card-data/changes").header("Last-Event-ID", latest - 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = awaitContent(result.getResponse(), "event:deleted");
+
+        assertThat(body).contains("id:" + latest + "\n").doesNotContain("id:" + (latest - 1) + "\nevent:deleted");
+    }
+
+    @Test
+    void changes_sendsResetAndEnds_whenPositionIsNoLongerRetained() throws Exception {
+        feed.publish(List.of(CardDataChange.deleted(1)));
+        feed.reset();
+
+        MvcResult result = mockMvc.perform(get("/api/card-data/changes").param("since", "0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("event:reset\ndata:" + feed.latest() + "\n\n"));
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        for (int i = 0; i < 200; i++) {
+            String body = response.getContentAsString();
+            if (body.contains(expected)) {
+                return body;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("No " + expected + " in: " + response.getContentAsString());
+    }
+}
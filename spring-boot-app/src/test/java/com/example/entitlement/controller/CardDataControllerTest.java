@@ -1,27 +1,55 @@
 package com.example.entitlement.controller;
 
+import com.example.entitlement.codec.CardDataProtobuf;
+import com.example.entitlement.model.BulkDeleteResult;
+import com.example.entitlement.model.BulkInsertResult;
 import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.model.CardDataStats;
+import com.example.entitlement.service.CardDataBulkService;
 import com.example.entitlement.service.CardDataService;
+import com.example.entitlement.service.CardDataSnapshot;
+import com.example.entitlement.service.CardDataVersion;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedInputStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(controllers = CardDataController.class)
+@WebMvcTest(controllers = CardDataController.class, properties = "app.card-data.conditional-get.enabled=true")
+@Import(CardDataVersion.class)
 class CardDataControllerTest {
 
     @Autowired
@@ -30,9 +58,18 @@ class CardDataControllerTest {
     @MockBean
     private CardDataService service;
 
+    @MockBean
+    private CardDataBulkService bulkService;
+
+    @MockBean
+    private CardDataSnapshot snapshot;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CardDataVersion version;
+
     @Test
     void list_returnsAll_whenNoFilter() throws Exception {
         CardData a = new CardData(); a.setId(1); a.setCardType("CREDIT");
@@ -46,6 +83,63 @@ class CardDataControllerTest {
                 .andExpect(jsonPath("$[1].id", is(2)));
     }
 
+    @Test
+    void list_answersIfNoneMatchWith304_untilVersionChanges() throws Exception {
+        given(service.list("CREDIT")).willReturn(List.of(new CardData()));
+
+        String etag = mockMvc.perform(get("/api/card-data").param("cardType", "CREDIT"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).startsWith("\"").doesNotStartWith("W/");
+
+        mockMvc.perform(get("/api/card-data").param("cardType", "CREDIT").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/card-data").param("cardType", "DEBIT").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        verify(service, times(1)).list("CREDIT");
+
+        version.bump();
+        mockMvc.perform(get("/api/card-data").param("cardType", "CREDIT").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        verify(service, times(2)).list("CREDIT");
+    }
+
+    @Test
+    void list_writesCurrentSnapshot_gzippedWhenAccepted() throws Exception {
+        long at = version.current().version();
+        CardDataSnapshot.Entry entry = new CardDataSnapshot.Entry("[{\"id\":1}]".getBytes(), new byte[]{31, -117, 8});
+        given(snapshot.get("CREDIT", at)).willReturn(entry);
+
+        mockMvc.perform(get("/api/card-data").param("cardType", "CREDIT"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$[0].id", is(1)));
+        String etag = mockMvc.perform(get("/api/card-data").param("cardType", "CREDIT")
+                        .header("Accept-Encoding", "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(content().bytes(entry.gzip()))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/card-data").param("cardType", "CREDIT")
+                        .header("Accept-Encoding", "gzip").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Projections, other formats and stale snapshots take the query path.
+        given(service.list("CREDIT")).willReturn(List.of(new CardData()));
+        mockMvc.perform(get("/api/card-data").param("cardType", "CREDIT").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Vary"));
+        version.bump();
+        mockMvc.perform(get("/api/card-data").param("cardType", "CREDIT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").doesNotExist());
+        verify(service, times(2)).list("CREDIT");
+    }
+
     @Test
     void list_filtersByCardType() throws Exception {
         CardData a = new CardData(); a.setId(1); a.setCardType("CREDIT");
@@ -57,6 +151,268 @@ class CardDataControllerTest {
                 .andExpect(jsonPath("$[0].cardType", is("CREDIT")));
     }
 
+    @Test
+    void list_projectsRequestedFields() throws Exception {
+        CardData a = new CardData(); a.setId(1); a.setClientId(100); a.setCardType("CREDIT"); a.setCardNumber("4111");
+        Set<CardDataField> fields = EnumSet.of(CardDataField.ID, CardDataField.CLIENT_ID, CardDataField.CARD_TYPE);
+        given(service.list(CardDataFilter.NONE, fields)).willReturn(List.of(a));
+
+        mockMvc.perform(get("/api/card-data").param("fields", "id,client_id,cardType"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":1,\"clientId\":100,\"cardType\":\"CREDIT\"}]", true));
+    }
+
+    @Test
+    void list_rejectsFieldsOutsideWhitelist() throws Exception {
+        mockMvc.perform(get("/api/card-data").param("fields", "id,password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void list_pushesFiltersDownToService() throws Exception {
+        CardData a = new CardData(); a.setId(3);
+        CardDataFilter filter = new CardDataFilter("AMEX", null, 102, LocalDate.of(2028, 1, 1), null, true,
+                new BigDecimal("1000"), null);
+        given(service.list(filter, CardDataField.ALL)).willReturn(List.of(a));
+
+        mockMvc.perform(get("/api/card-data")
+                        .param("cardBrand", "AMEX")
+                        .param("clientId", "102")
+                        .param("expiresFrom", "2028-01-01")
+                        .param("cardOnDarkWeb", "true")
+                        .param("minCreditLimit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(3)));
+    }
+
+    @Test
+    void list_rejectsMalformedFilter() throws Exception {
+        mockMvc.perform(get("/api/card-data").param("expiresFrom", "31/12/2027"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void stats_groupsByRequestedColumns() throws Exception {
+        given(service.stats(CardDataFilter.byCardType("CREDIT"), EnumSet.of(CardDataField.CARD_BRAND)))
+                .willReturn(List.of(new CardDataStats(Map.of("cardBrand", "AMEX"), 1,
+                        new BigDecimal("15000.00"), new BigDecimal("15000.00"))));
+
+        mockMvc.perform(get("/api/card-data/stats").param("cardType", "CREDIT").param("groupBy", "card_brand"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].group.cardBrand", is("AMEX")))
+                .andExpect(jsonPath("$[0].count", is(1)))
+                .andExpect(jsonPath("$[0].creditLimitSum", is(15000.00)));
+    }
+
+    @Test
+    void stats_rejectsColumnsOutsideGroupByWhitelist() throws Exception {
+        mockMvc.perform(get("/api/card-data/stats").param("groupBy", "card_number"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void list_withIds_looksUpInOneCall() throws Exception {
+        CardData a = new CardData(); a.setId(3);
+        CardData b = new CardData(); b.setId(1);
+        given(service.findByIds(List.of(3, 1, 7), CardDataField.ALL)).willReturn(List.of(a, b));
+
+        mockMvc.perform(get("/api/card-data").param("ids", "3,1,7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(3, 1)));
+        mockMvc.perform(get("/api/card-data").param("ids", "3").param("limit", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void lookup_acceptsIdsInBody_andCapsListSize() throws Exception {
+        CardData a = new CardData(); a.setId(2); a.setCardBrand("MASTERCARD");
+        given(service.findByIds(List.of(2), EnumSet.of(CardDataField.CARD_BRAND))).willReturn(List.of(a));
+
+        mockMvc.perform(post("/api/card-data/lookup").param("fields", "card_brand")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[2]}"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"cardBrand\":\"MASTERCARD\"}]", true));
+
+        String tooMany = java.util.stream.IntStream.rangeClosed(1, 5001)
+                .mapToObj(String::valueOf).collect(java.util.stream.Collectors.joining(",", "{\"ids\":[", "]}"));
+        mockMvc.perform(post("/api/card-data/lookup").contentType(MediaType.APPLICATION_JSON).content(tooMany))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void bulkDelete_reportsOutcomePerId() throws Exception {
+        given(service.deleteByIds(List.of(1, 9))).willReturn(BulkDeleteResult.of(List.of(1, 9), new int[]{1, 0}));
+
+        mockMvc.perform(post("/api/card-data/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,9]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deletedRows", is(1)))
+                .andExpect(jsonPath("$.outcomes[0].deleted", is(true)))
+                .andExpect(jsonPath("$.outcomes[1].id", is(9)))
+                .andExpect(jsonPath("$.outcomes[1].deleted", is(false)));
+    }
+
+    @Test
+    void list_returnsKeysetPage_withNextCursorHeader() throws Exception {
+        CardData a = new CardData(); a.setId(3);
+        CardData b = new CardData(); b.setId(4);
+        given(service.page(CardDataFilter.NONE, 2, 2, CardDataField.ALL)).willReturn(List.of(a, b));
+
+        mockMvc.perform(get("/api/card-data").param("afterId", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-After-Id", "4"))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void list_omitsNextCursor_onLastPage() throws Exception {
+        CardData a = new CardData(); a.setId(3);
+        given(service.page(CardDataFilter.NONE, 2, 2, CardDataField.ALL)).willReturn(List.of(a));
+
+        mockMvc.perform(get("/api/card-data").param("afterId", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-After-Id"));
+    }
+
+    @Test
+    void list_capsLimit_andRejectsNonPositive() throws Exception {
+        given(service.page(CardDataFilter.NONE, Integer.MIN_VALUE, 1000, CardDataField.ALL)).willReturn(List.of());
+
+        mockMvc.perform(get("/api/card-data").param("limit", "50000"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/card-data").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stream_writesNdjson() throws Exception {
+        CardData a = new CardData(); a.setId(1);
+        CardData b = new CardData(); b.setId(2);
+        willAnswer(inv -> {
+            Consumer<CardData> sink = inv.getArgument(2);
+            sink.accept(a);
+            sink.accept(b);
+            return null;
+        }).given(service).stream(eq(CardDataFilter.NONE), eq(CardDataField.ALL), any(Consumer.class));
+
+        MvcResult pending = mockMvc.perform(get("/api/card-data").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(startsWith("{\"id\":1,")))
+                .andExpect(content().string(containsString("}\n{\"id\":2,")))
+                .andExpect(content().string(endsWith("}\n")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamProtobuf_writesLengthDelimitedMessages_withProjection() throws Exception {
+        CardData a = new CardData(); a.setId(1); a.setCardType("CREDIT"); a.setCvv("123");
+        CardData b = new CardData(); b.setId(2); b.setCardType("DEBIT");
+        Set<CardDataField> selected = EnumSet.of(CardDataField.ID, CardDataField.CARD_TYPE);
+        willAnswer(inv -> {
+            Consumer<CardData> sink = inv.getArgument(2);
+            sink.accept(a);
+            sink.accept(b);
+            return null;
+        }).given(service).stream(eq(CardDataFilter.NONE), eq(selected), any(Consumer.class));
+
+        MvcResult pending = mockMvc.perform(get("/api/card-data").param("fields", "id,card_type")
+                        .accept("application/x-protobuf"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        CodedInputStream in = CodedInputStream.newInstance(body);
+        CardData first = CardDataProtobuf.readDelimited(in);
+        CardData second = CardDataProtobuf.readDelimited(in);
+        assertThat(CardDataProtobuf.readDelimited(in)).isNull();
+        assertThat(first.getId()).isEqualTo(1);
+        assertThat(first.getCardType()).isEqualTo("CREDIT");
+        assertThat(first.getCvv()).isNull();
+        assertThat(second.getId()).isEqualTo(2);
+        assertThat(second.getCardType()).isEqualTo("DEBIT");
+    }
+
+    @Test
+    void streamProtobuf_pagesLikeList_withNextCursorHeader() throws Exception {
+        CardData a = new CardData(); a.setId(3);
+        CardData b = new CardData(); b.setId(4);
+        given(service.page(CardDataFilter.NONE, 2, 2, CardDataField.ALL)).willReturn(List.of(a, b));
+
+        MvcResult pending = mockMvc.perform(get("/api/card-data").param("afterId", "2").param("limit", "2")
+                        .accept("application/x-protobuf"))
+                .andExpect(header().string("X-Next-After-Id", "4"))
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        CodedInputStream in = CodedInputStream.newInstance(body);
+        assertThat(CardDataProtobuf.readDelimited(in).getId()).isEqualTo(3);
+        assertThat(CardDataProtobuf.readDelimited(in).getId()).isEqualTo(4);
+        assertThat(in.isAtEnd()).isTrue();
+    }
+
+    @Test
+    void get_negotiatesSmileCborAndProtobuf() throws Exception {
+        CardData a = new CardData(); a.setId(1); a.setCardType("CREDIT");
+        a.setExpires(LocalDate.of(2027, 12, 31)); a.setCreditLimit(new BigDecimal("5000.00"));
+        given(service.findById(1)).willReturn(Optional.of(a));
+        given(service.stats(CardDataFilter.NONE, EnumSet.noneOf(CardDataField.class)))
+                .willReturn(List.of(new CardDataStats(Map.of(), 1, BigDecimal.ONE, BigDecimal.ONE)));
+
+        byte[] smile = mockMvc.perform(get("/api/card-data/1").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] cbor = mockMvc.perform(get("/api/card-data/1").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] protobuf = mockMvc.perform(get("/api/card-data/1").accept("application/x-protobuf"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        for (CardData decoded : List.of(
+                objectMapper.copyWith(new SmileFactory()).readValue(smile, CardData.class),
+                objectMapper.copyWith(new CBORFactory()).readValue(cbor, CardData.class),
+                CardDataProtobuf.read(CodedInputStream.newInstance(protobuf)))) {
+            assertThat(decoded.getExpires()).isEqualTo(a.getExpires());
+            assertThat(decoded.getCreditLimit()).isEqualTo(a.getCreditLimit());
+        }
+        assertThat(protobuf.length).isLessThan(cbor.length);
+
+        // Browsers keep getting JSON; protobuf only covers card bodies.
+        mockMvc.perform(get("/api/card-data/1").accept(MediaType.ALL))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/card-data/stats").accept("application/x-protobuf"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void get_returnsCard_or404() throws Exception {
+        CardData a = new CardData(); a.setId(1); a.setCardType("CREDIT");
+        given(service.findById(1)).willReturn(Optional.of(a));
+        given(service.findById(2)).willReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/card-data/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardType", is("CREDIT")));
+        mockMvc.perform(get("/api/card-data/2"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void create_returns201_onSuccess() throws Exception {
         CardData req = new CardData();
@@ -95,6 +451,57 @@ class CardDataControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void create_returns503WithRetryAfter_whenTheWriteQueueIsFull() throws Exception {
+        given(service.create(any(CardData.class))).willThrow(new RejectedExecutionException("full"));
+
+        mockMvc.perform(post("/api/card-data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": 10}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void bulkCreate_acceptsJsonArrayAndNdjson() throws Exception {
+        List<Integer> seen = new ArrayList<>();
+        given(bulkService.ingest(any(Iterator.class), nullable(Integer.class))).willAnswer(inv -> {
+            Iterator<CardData> rows = inv.getArgument(0);
+            rows.forEachRemaining(cd -> seen.add(cd.getId()));
+            return BulkInsertResult.of(List.of(new BulkInsertResult.Chunk(0, 0, 2, 2, null)));
+        });
+
+        mockMvc.perform(post("/api/card-data/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":1},{\"id\":2}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.insertedRows", is(2)))
+                .andExpect(jsonPath("$.chunks[0].rows", is(2)));
+
+        mockMvc.perform(post("/api/card-data/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"id\":3}\n{\"id\":4}\n"))
+                .andExpect(status().isOk());
+
+        assertThat(seen).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void bulkCreate_returns207_whenAChunkFails() throws Exception {
+        given(bulkService.ingest(any(Iterator.class), eq(1))).willReturn(BulkInsertResult.of(List.of(
+                new BulkInsertResult.Chunk(0, 0, 1, 1, null),
+                new BulkInsertResult.Chunk(1, 1, 1, 0, "duplicate key"))));
+
+        mockMvc.perform(post("/api/card-data/bulk").param("chunkSize", "1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":1},{\"id\":1}]"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.failedRows", is(1)))
+                .andExpect(jsonPath("$.chunks[1].error", is("duplicate key")));
+    }
+
     @Test
     void delete_returns204_whenDeleted() throws Exception {
         given(service.deleteById(eq(5))).willReturn(true);
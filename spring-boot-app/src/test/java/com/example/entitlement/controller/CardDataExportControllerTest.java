@@ -0,0 +1,76 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.CardDataExport;
+import com.example.entitlement.service.CardDataExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = CardDataExportController.class)
+class CardDataExportControllerTest {
+
+    private static final String ID = "0b6f3c1e-8d1a-4c57-9a8e-2f0c6d7e9b10";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CardDataExportService service;
+
+    @Test
+    void start_returns202WithLocation_andRejectsOtherFormats() throws Exception {
+        given(service.start(8, true)).willReturn(export(CardDataExport.State.RUNNING));
+
+        mockMvc.perform(post("/api/card-data/exports").param("partitions", "8").param("mask", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", endsWith("/api/card-data/exports/" + ID)))
+                .andExpect(jsonPath("$.state", is("RUNNING")))
+                .andExpect(jsonPath("$.partitions", is(8)));
+
+        mockMvc.perform(post("/api/card-data/exports").param("format", "parquet"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void start_masksByDefault_andReturns403_whenUnmaskedIsNotAllowed() throws Exception {
+        given(service.start(null, true)).willReturn(export(CardDataExport.State.RUNNING));
+        willThrow(new IllegalStateException("Unmasked exports are not enabled")).given(service).start(null, false);
+
+        mockMvc.perform(post("/api/card-data/exports"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.masked", is(true)))
+                .andExpect(jsonPath("$.directory").doesNotExist());
+        mockMvc.perform(post("/api/card-data/exports").param("mask", "false"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void resume_returns409_whileRunning_and404_whenUnknown() throws Exception {
+        willThrow(new IllegalStateException("Export " + ID + " is still running")).given(service).resume(ID);
+        given(service.resume("missing")).willReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/card-data/exports/{id}/resume", ID))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/card-data/exports/missing/resume"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/card-data/exports/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static CardDataExport export(CardDataExport.State state) {
+        return new CardDataExport(ID, state, "csv", true, 8, 0, 0, 0, 0,
+                Instant.now(), null, List.of());
+    }
+}
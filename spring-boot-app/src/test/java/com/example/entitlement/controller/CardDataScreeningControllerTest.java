@@ -0,0 +1,65 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.CardDataScreenResult;
+import com.example.entitlement.service.CardDataScreeningService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = CardDataScreeningController.class)
+class CardDataScreeningControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CardDataScreeningService service;
+
+    @Test
+    void screen_readsOneNumberPerLine_orAJsonArray() throws Exception {
+        List<String> received = new ArrayList<>();
+        given(service.screen(any())).willAnswer(invocation -> {
+            Iterator<String> numbers = invocation.getArgument(0);
+            numbers.forEachRemaining(received::add);
+            return new CardDataScreenResult(received.size(), 0, 1, 1, 1, List.of(1), null);
+        });
+
+        mockMvc.perform(post("/api/card-data/screen").contentType(MediaType.TEXT_PLAIN)
+                        .content("4111111111111111\n\n5555555555554444\r\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.screened", is(2)))
+                .andExpect(jsonPath("$.matchedIds", contains(1)));
+        assertThat(received).containsExactly("4111111111111111", "5555555555554444");
+
+        received.clear();
+        mockMvc.perform(post("/api/card-data/screen").contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"378282246310005\"]"))
+                .andExpect(status().isOk());
+        assertThat(received).containsExactly("378282246310005");
+    }
+
+    @Test
+    void screen_returns400WithThePartialResult_whenTheInputBreaksOff() throws Exception {
+        given(service.screen(any())).willReturn(
+                new CardDataScreenResult(10, 0, 0, 0, 0, List.of(), "Unreadable input after number 10: ..."));
+
+        mockMvc.perform(post("/api/card-data/screen").contentType(MediaType.APPLICATION_JSON).content("[\"1\""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.screened", is(10)))
+                .andExpect(jsonPath("$.error", startsWith("Unreadable input")));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.entitlement.controller;
+
+import com.example.entitlement.model.BulkUpsertResult;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.service.CardDataUpsertService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = CardDataUpsertController.class)
+class CardDataUpsertControllerTest {
+
+    private static final String BODY = "{\"clientId\": 100, \"cardType\": \"CREDIT\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CardDataUpsertService service;
+
+    @Test
+    void put_mapsOutcomesToStatus_andReturnsVersionAsETag() throws Exception {
+        given(service.upsert(any(CardData.class), isNull(), eq(false), eq("k1")))
+                .willReturn(new BulkUpsertResult.Outcome(7, BulkUpsertResult.Status.CREATED, 1L))
+                .willReturn(new BulkUpsertResult.Outcome(7, BulkUpsertResult.Status.REPLAYED, 1L));
+        given(service.upsert(any(CardData.class), eq(1L), eq(false), isNull()))
+                .willReturn(new BulkUpsertResult.Outcome(7, BulkUpsertResult.Status.CONFLICT, 2L));
+
+        mockMvc.perform(put("/api/card-data/7").contentType(MediaType.APPLICATION_JSON).content(BODY)
+                        .header("Idempotency-Key", "k1"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.id", is(7)))
+                .andExpect(jsonPath("$.version", is(1)));
+        mockMvc.perform(put("/api/card-data/7").contentType(MediaType.APPLICATION_JSON).content(BODY)
+                        .header("Idempotency-Key", "k1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+        mockMvc.perform(put("/api/card-data/7").contentType(MediaType.APPLICATION_JSON).content(BODY)
+                        .header("If-Match", "\"1\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void bulkEndpoints_return207OnPartialSuccess_andRejectBadBatches() throws Exception {
+        given(service.updateCreditLimits(anyList(), isNull())).willReturn(BulkUpsertResult.of(List.of(
+                new BulkUpsertResult.Outcome(1, BulkUpsertResult.Status.UPDATED, 4L),
+                new BulkUpsertResult.Outcome(2, BulkUpsertResult.Status.CONFLICT, 9L))));
+
+        mockMvc.perform(post("/api/card-data/bulk-credit-limit").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\": 1, \"creditLimit\": 500.00}, {\"id\": 2, \"creditLimit\": 10, \"version\": 3}]"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.appliedRows", is(1)))
+                .andExpect(jsonPath("$.outcomes[1].status", is("CONFLICT")))
+                .andExpect(jsonPath("$.outcomes[1].version", is(9)));
+
+        mockMvc.perform(post("/api/card-data/bulk-upsert").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\": 1, \"clientId\": 1}, {\"id\": 1, \"clientId\": 2}]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/card-data/7").contentType(MediaType.APPLICATION_JSON).content("{\"id\": 8}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/card-data/7").contentType(MediaType.APPLICATION_JSON).content(BODY)
+                        .header("If-Match", "W/\"abc\""))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).upsertAll(anyList(), any());
+        verify(service, never()).upsert(any(), any(), anyBoolean(), any());
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.entitlement.repository;
 
 import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.model.CardDataStats;
+import com.example.entitlement.model.CreditLimitUpdate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -21,6 +29,9 @@ class CardDataRepositoryIntegrationTest {
     @Autowired
     private CardDataRepository repository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void findAll_returnsAllRows() {
         List<CardData> all = repository.findAll();
@@ -33,6 +44,101 @@ class CardDataRepositoryIntegrationTest {
         assertThat(credit).extracting(CardData::getCardType).containsOnly("CREDIT");
     }
 
+    @Test
+    void findById_returnsRow_orEmpty() {
+        assertThat(repository.findById(2)).get().extracting(CardData::getCardBrand).isEqualTo("MASTERCARD");
+        assertThat(repository.findById(9999)).isEmpty();
+    }
+
+    @Test
+    void findAll_withFields_readsOnlyProjectedColumns() {
+        List<CardData> rows = repository.findAll(EnumSet.of(CardDataField.CLIENT_ID, CardDataField.CARD_TYPE));
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows).extracting(CardData::getClientId).containsExactlyInAnyOrder(100, 101, 102);
+        assertThat(rows).allSatisfy(cd -> {
+            assertThat(cd.getId()).isNull();
+            assertThat(cd.getCardNumber()).isNull();
+        });
+    }
+
+    @Test
+    void findPage_withFields_alwaysSelectsId() {
+        List<CardData> page = repository.findPage(CardDataFilter.NONE, Integer.MIN_VALUE, 2, EnumSet.of(CardDataField.CARD_BRAND));
+
+        assertThat(page).extracting(CardData::getId).containsExactly(1, 2);
+        assertThat(page).extracting(CardData::getCardBrand).containsExactly("VISA", "MASTERCARD");
+    }
+
+    @Test
+    void findPage_walksTableInIdOrder() {
+        List<CardData> first = repository.findPage(CardDataFilter.NONE, Integer.MIN_VALUE, 2, CardDataField.ALL);
+        assertThat(first).extracting(CardData::getId).containsExactly(1, 2);
+
+        List<CardData> second = repository.findPage(CardDataFilter.NONE, first.get(1).getId(), 2, CardDataField.ALL);
+        assertThat(second).extracting(CardData::getId).containsExactly(3);
+    }
+
+    @Test
+    void findPage_appliesCardTypeFilter() {
+        List<CardData> credit = repository.findPage(CardDataFilter.byCardType("CREDIT"), 1, 10, CardDataField.ALL);
+        assertThat(credit).extracting(CardData::getId).containsExactly(3);
+    }
+
+    @Test
+    void findMatching_combinesFilters() {
+        CardDataFilter filter = new CardDataFilter(null, "CREDIT", null, null, LocalDate.of(2027, 12, 31), null,
+                new BigDecimal("1000"), new BigDecimal("10000"));
+
+        assertThat(repository.findMatching(filter, CardDataField.ALL)).extracting(CardData::getId).containsExactly(1);
+        assertThat(repository.findMatching(new CardDataFilter(null, null, null, null, null, true, null, null),
+                EnumSet.of(CardDataField.CLIENT_ID))).extracting(CardData::getClientId).containsExactly(102);
+    }
+
+    @Test
+    void stats_aggregatesPerGroup() {
+        List<CardDataStats> byType = repository.stats(CardDataFilter.NONE, EnumSet.of(CardDataField.CARD_TYPE));
+
+        assertThat(byType).extracting(CardDataStats::group)
+                .containsExactly(Map.of("cardType", "CREDIT"), Map.of("cardType", "DEBIT"));
+        assertThat(byType.get(0).count()).isEqualTo(2);
+        assertThat(byType.get(0).creditLimitSum()).isEqualByComparingTo("20000.00");
+        assertThat(byType.get(0).creditLimitAvg()).isEqualTo(new BigDecimal("10000.00"));
+    }
+
+    @Test
+    void stats_withoutGroupBy_returnsSingleFilteredBucket() {
+        List<CardDataStats> stats = repository.stats(CardDataFilter.byCardType("DEBIT"), EnumSet.noneOf(CardDataField.class));
+
+        assertThat(stats).singleElement().satisfies(bucket -> {
+            assertThat(bucket.group()).isEmpty();
+            assertThat(bucket.count()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void findByIds_returnsRowsInRequestOrder_skippingMissing() {
+        List<CardData> rows = repository.findByIds(List.of(3, 999, 1, 3), EnumSet.of(CardDataField.CARD_BRAND));
+
+        assertThat(rows).extracting(CardData::getId).containsExactly(3, 1);
+        assertThat(rows).extracting(CardData::getCardBrand).containsExactly("AMEX", "VISA");
+    }
+
+    @Test
+    void deleteByIds_reportsCountPerId() {
+        int[] counts = repository.deleteByIds(List.of(2, 42, 3));
+
+        assertThat(counts).containsExactly(1, 0, 1);
+        assertThat(repository.findAll()).extracting(CardData::getId).containsExactly(1);
+    }
+
+    @Test
+    void streamAll_deliversEveryRowInIdOrder() {
+        List<Integer> ids = new ArrayList<>();
+        repository.streamAll(CardDataFilter.NONE, CardDataField.ALL, cd -> ids.add(cd.getId()));
+        assertThat(ids).containsExactly(1, 2, 3);
+    }
+
     @Test
     void insert_insertsRow() {
         CardData cd = new CardData();
@@ -58,6 +164,64 @@ class CardDataRepositoryIntegrationTest {
         assertThat(all).anyMatch(r -> r.getId() == 10 && "DISCOVER".equals(r.getCardBrand()));
     }
 
+    @Test
+    void batchInsert_writesAllRowsInOneBatch() {
+        int rows = repository.batchInsert(List.of(card(20, "DEBIT"), card(21, "CREDIT")));
+
+        assertThat(rows).isEqualTo(2);
+        assertThat(repository.findAll()).extracting(CardData::getId).contains(20, 21);
+    }
+
+    @Test
+    void copyInsert_fallsBackToBatch_whenNotPostgres() {
+        int rows = repository.copyInsert(List.of(card(30, "DEBIT")));
+
+        assertThat(rows).isEqualTo(1);
+        assertThat(repository.findByCardType("DEBIT")).extracting(CardData::getId).contains(30);
+    }
+
+    @Test
+    void upsert_insertsThenOverwrites_andIgnoresReplayedKey() {
+        assertThat(repository.upsert(card(40, "CREDIT"), "req-1")).hasValue(1);
+        CardData changed = card(40, "DEBIT");
+        assertThat(repository.upsert(changed, "req-2")).hasValue(2);
+        assertThat(repository.upsert(card(40, "CREDIT"), "req-2")).isEmpty();
+        assertThat(repository.upsert(changed, null)).hasValue(3);
+
+        assertThat(repository.findById(40)).get().satisfies(cd -> {
+            assertThat(cd.getCardType()).isEqualTo("DEBIT");
+            assertThat(cd.getVersion()).isEqualTo(3L);
+        });
+    }
+
+    @Test
+    void update_appliesOnlyAtExpectedVersion() {
+        CardData cd = repository.findById(1).orElseThrow();
+        cd.setCreditLimit(new BigDecimal("9000.00"));
+
+        assertThat(repository.update(cd, 2L, null)).isEmpty();
+        assertThat(repository.update(cd, 1L, "req-1")).hasValue(2);
+        assertThat(repository.update(cd, null, "req-1")).isEmpty();
+        assertThat(repository.findVersions(List.of(1, 9999)))
+                .containsOnly(Map.entry(1, new CardDataRepository.RowVersion(2, "req-1")));
+    }
+
+    @Test
+    void batchUpsert_andCreditLimits_reportCountPerRow() {
+        CardData stale = card(2, "DEBIT");
+        stale.setVersion(7L);
+        int[] counts = repository.batchUpsert(List.of(card(41, "CREDIT"), stale, card(3, "CREDIT")), "batch-1");
+        assertThat(counts).containsExactly(1, 0, 1);
+
+        int[] limits = repository.batchUpdateCreditLimits(List.of(
+                new CreditLimitUpdate(1, new BigDecimal("100.00"), null),
+                new CreditLimitUpdate(3, new BigDecimal("200.00"), 1L),
+                new CreditLimitUpdate(9999, new BigDecimal("300.00"), null)), "limits-1");
+        assertThat(limits).containsExactly(1, 0, 0);
+        assertThat(repository.findById(1)).get().extracting(CardData::getCreditLimit, CardData::getVersion)
+                .containsExactly(new BigDecimal("100.00"), 2L);
+    }
+
     @Test
     void deleteById_deletesRow_whenExists() {
         int rows = repository.deleteById(1);
@@ -70,4 +234,30 @@ class CardDataRepositoryIntegrationTest {
         int rows = repository.deleteById(9999);
         assertThat(rows).isEqualTo(0);
     }
+
+    @Test
+    void archiveExpired_movesTheExpiredRowsOfTheIdRangeToTheArchive() {
+        LocalDate expiredBefore = LocalDate.of(2027, 1, 1);
+        assertThat(repository.expiredIdRange(expiredBefore)).contains(new CardDataRepository.IdRange(2, 2));
+
+        assertThat(repository.archiveExpired(LocalDate.of(2028, 1, 1), 1, 3)).containsExactly(2);
+
+        assertThat(repository.findAll()).extracting(CardData::getId).containsExactlyInAnyOrder(1, 3);
+        assertThat(jdbcTemplate.queryForMap("SELECT id, card_number, version FROM dbo.card_data_archive"))
+                .containsEntry("ID", 2).containsEntry("CARD_NUMBER", "5555555555554444").containsEntry("VERSION", 1L);
+        assertThat(repository.expiredIdRange(expiredBefore)).isEmpty();
+    }
+
+    private static CardData card(int id, String cardType) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        cd.setClientId(300);
+        cd.setCardBrand("VISA");
+        cd.setCardType(cardType);
+        cd.setCardNumber("4000000000000002");
+        cd.setExpires(LocalDate.of(2030, 1, 31));
+        cd.setHasChip(true);
+        cd.setCreditLimit(new BigDecimal("750.00"));
+        return cd;
+    }
 }
@@ -1,19 +1,27 @@
 package com.example.entitlement.repository;
 
 import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.verify;
@@ -30,9 +38,11 @@ class CardDataRepositoryUnitTest {
     // with a schema value. We'll manually construct it with schema "dbo".
     private CardDataRepository repository;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private CardDataRepository repo() {
         if (repository == null) {
-            repository = new CardDataRepository(jdbcTemplate, "dbo");
+            repository = new CardDataRepository(jdbcTemplate, "dbo", 500, meterRegistry);
         }
         return repository;
     }
@@ -63,6 +73,52 @@ class CardDataRepositoryUnitTest {
         );
     }
 
+    @Test
+    void findByCardType_withFields_narrowsSelect() {
+        given(jdbcTemplate.query(anyString(), any(CardDataRowMapper.class), any()))
+                .willReturn(List.of(new CardData()));
+
+        repo().findByCardType("CREDIT", EnumSet.of(CardDataField.CARD_TYPE, CardDataField.ID));
+
+        verify(jdbcTemplate).query(
+                eq("SELECT id, card_type FROM dbo.card_data WHERE card_type = ?"),
+                any(CardDataRowMapper.class),
+                eq("CREDIT")
+        );
+    }
+
+    @Test
+    void findPage_usesKeysetPredicateAndLimit() {
+        given(jdbcTemplate.query(anyString(), any(CardDataRowMapper.class), any(), any()))
+                .willReturn(List.of(new CardData()));
+
+        List<CardData> result = repo().findPage(CardDataFilter.NONE, 10, 50, CardDataField.ALL);
+
+        assertThat(result).hasSize(1);
+        verify(jdbcTemplate).query(
+                argThat(sql -> sql.contains("WHERE id > ? ORDER BY id LIMIT ?") && !sql.contains("OFFSET")),
+                any(CardDataRowMapper.class),
+                eq(10),
+                eq(50)
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findByIds_usesArrayParameter_onPostgres() {
+        given(jdbcTemplate.execute(any(ConnectionCallback.class))).willReturn(true);
+        CardData one = new CardData(); one.setId(1);
+        CardData two = new CardData(); two.setId(2);
+        given(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(CardDataRowMapper.class)))
+                .willReturn(List.of(one, two));
+
+        List<CardData> result = repo().findByIds(List.of(2, 1), CardDataField.ALL);
+
+        assertThat(result).containsExactly(two, one);
+        verify(jdbcTemplate).query(endsWith("WHERE id = ANY(?)"), any(PreparedStatementSetter.class),
+                any(CardDataRowMapper.class));
+    }
+
     @Test
     void insert_callsUpdateWithAllParams() {
         when(jdbcTemplate.update(
@@ -94,6 +150,32 @@ class CardDataRepositoryUnitTest {
         );
     }
 
+    @Test
+    void findAll_recordsCallTimerAndRowCount() {
+        given(jdbcTemplate.query(anyString(), any(CardDataRowMapper.class)))
+                .willReturn(List.of(new CardData(), new CardData()));
+
+        repo().findAll();
+
+        assertThat(meterRegistry.get("card_data.repository.calls")
+                .tag("method", "findAll").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("card_data.repository.rows")
+                .tag("method", "findAll").summary().totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.get("card_data.repository.mapping").tag("method", "findAll").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("card_data.repository.query").tag("method", "findAll").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void deleteById_recordsErrorOutcome_whenStatementFails() {
+        when(jdbcTemplate.update(anyString(), eq(5))).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThatThrownBy(() -> repo().deleteById(5))
+                .isInstanceOf(QueryTimeoutException.class);
+
+        assertThat(meterRegistry.get("card_data.repository.calls")
+                .tag("method", "deleteById").tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+
     @Test
     void deleteById_executesDelete() {
         when(jdbcTemplate.update(anyString(), eq(5))).thenReturn(1);
@@ -0,0 +1,95 @@
+package com.example.entitlement.repository;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDate;
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CardDataRowMapperTest {
+
+    @Mock
+    ResultSet rs;
+
+    @Mock
+    ResultSetMetaData meta;
+
+    private void columns(String... labels) throws Exception {
+        when(rs.getMetaData()).thenReturn(meta);
+        when(meta.getColumnCount()).thenReturn(labels.length);
+        for (int i = 0; i < labels.length; i++) {
+            when(meta.getColumnLabel(i + 1)).thenReturn(labels[i]);
+        }
+    }
+
+    @Test
+    void mapRow_readsByIndex_andResolvesColumnsOnce() throws Exception {
+        columns("ID", "card_type", "expires", "has_chip", "credit_limit", "card_on_dark_web");
+        when(rs.getInt(1)).thenReturn(7);
+        when(rs.getString(2)).thenReturn("CREDIT");
+        when(rs.getObject(3, LocalDate.class)).thenReturn(LocalDate.of(2027, 12, 31));
+        when(rs.getBoolean(4)).thenReturn(true);
+        when(rs.getBigDecimal(5)).thenReturn(new BigDecimal("10.50"));
+        when(rs.getBoolean(6)).thenReturn(false);
+
+        CardDataRowMapper mapper = new CardDataRowMapper();
+        CardData first = mapper.mapRow(rs, 0);
+        mapper.mapRow(rs, 1);
+
+        assertThat(first.getId()).isEqualTo(7);
+        assertThat(first.getCardType()).isEqualTo("CREDIT");
+        assertThat(first.getExpires()).isEqualTo(LocalDate.of(2027, 12, 31));
+        assertThat(first.getHasChip()).isTrue();
+        assertThat(first.getCreditLimit()).isEqualByComparingTo("10.50");
+        assertThat(first.getCardOnDarkWeb()).isFalse();
+        assertThat(first.getClientId()).isNull();
+        verify(rs, times(1)).getMetaData();
+        verify(rs, never()).getInt(anyString());
+        verify(rs, never()).getString(anyString());
+    }
+
+    @Test
+    void mapRow_keepsSqlNulls() throws Exception {
+        columns("id", "client_id", "has_chip");
+        when(rs.getInt(anyInt())).thenReturn(0);
+        when(rs.getBoolean(3)).thenReturn(false);
+        when(rs.wasNull()).thenReturn(false, true, true);
+
+        CardData cd = new CardDataRowMapper().mapRow(rs, 0);
+
+        assertThat(cd.getId()).isEqualTo(0);
+        assertThat(cd.getClientId()).isNull();
+        assertThat(cd.getHasChip()).isNull();
+    }
+
+    @Test
+    void mapRow_projectionSkipsUnrequestedColumns() throws Exception {
+        columns("id", "client_id", "card_type", "card_number");
+        when(rs.getInt(1)).thenReturn(1);
+        when(rs.getString(3)).thenReturn("DEBIT");
+
+        CardData cd = new CardDataRowMapper(EnumSet.of(CardDataField.ID, CardDataField.CARD_TYPE)).mapRow(rs, 0);
+
+        assertThat(cd.getId()).isEqualTo(1);
+        assertThat(cd.getCardType()).isEqualTo("DEBIT");
+        assertThat(cd.getCardNumber()).isNull();
+        verify(rs, never()).getInt(2);
+        verify(rs, never()).getString(4);
+    }
+}
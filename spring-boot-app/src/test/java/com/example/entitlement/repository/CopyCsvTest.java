@@ -0,0 +1,32 @@
+package com.example.entitlement.repository;
+
+import com.example.entitlement.model.CardData;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CopyCsvTest {
+
+    @Test
+    void writeRow_quotesStrings_andLeavesNullsEmpty() throws Exception {
+        CardData cd = new CardData();
+        cd.setId(7);
+        cd.setClientId(100);
+        cd.setCardBrand("BRAND \"X\", INC");
+        cd.setCardType("");
+        cd.setExpires(LocalDate.of(2027, 12, 31));
+        cd.setHasChip(true);
+        cd.setCreditLimit(new BigDecimal("1E+3"));
+        cd.setCardOnDarkWeb(false);
+
+        StringWriter out = new StringWriter();
+        CopyCsv.writeRow(out, cd);
+
+        assertThat(out.toString())
+                .isEqualTo("7,100,\"BRAND \"\"X\"\", INC\",\"\",,2027-12-31,,true,,1000,,,false\n");
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.entitlement.repository;
+
+import com.example.entitlement.CardDataTestDatabase;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.model.CardDataStats;
+import com.example.entitlement.controller.CardDataUpsertController;
+import com.example.entitlement.service.CardDataChangeFeed;
+import com.example.entitlement.service.CardDataUpsertService;
+import com.example.entitlement.service.CardDataVersion;
+import com.example.entitlement.sharding.ConsistentHashRing;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ShardedCardDataRepositoryTest {
+
+    private final List<DataSource> dataSources = new ArrayList<>();
+    private ShardedCardDataRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            dataSources.add(CardDataTestDatabase.empty().dataSource());
+        }
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2"), 64);
+        repository = new ShardedCardDataRepository(dataSources, ring, "dbo", 500, 4, new CompositeMeterRegistry());
+        List<CardData> cards = new ArrayList<>();
+        for (int id = 1; id <= 60; id++) {
+            cards.add(card(id, 100 + id % 12));
+        }
+        cards.forEach(repository::insert);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void insert_placesEachCardOnItsClientsShard() {
+        int total = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            List<Integer> clients = new JdbcTemplate(dataSources.get(shard))
+                    .queryForList("SELECT client_id FROM dbo.card_data", Integer.class);
+            int owner = shard;
+            assertThat(clients).allSatisfy(clientId -> assertThat(repository.ring().shardOf(clientId)).isEqualTo(owner));
+            total += clients.size();
+        }
+        assertThat(total).isEqualTo(60);
+        assertThat(rowsOn(0)).isLessThan(60);
+    }
+
+    @Test
+    void insert_rejectsAnIdHeldByAnotherShard() {
+        CardData card = card(3, 100);
+        while (repository.ring().shardOf(card.getClientId()) == repository.ring().shardOf(103)) {
+            card.setClientId(card.getClientId() + 1);
+        }
+
+        assertThatThrownBy(() -> repository.insert(card)).isInstanceOf(DuplicateKeyException.class);
+        assertThat(rowsOn(0) + rowsOn(1) + rowsOn(2)).isEqualTo(60);
+    }
+
+    @Test
+    void batchInsert_spanningShards_writesNothing() {
+        CardData first = card(101, 100);
+        CardData second = card(102, 100);
+        while (repository.ring().shardOf(second.getClientId()) == repository.ring().shardOf(100)) {
+            second.setClientId(second.getClientId() + 1);
+        }
+
+        assertThatThrownBy(() -> repository.batchInsert(List.of(first, second)))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+        assertThat(rowsOn(0) + rowsOn(1) + rowsOn(2)).isEqualTo(60);
+
+        CardData sameShard = card(102, 100);
+        assertThat(repository.batchInsert(List.of(first, sameShard))).isEqualTo(2);
+        assertThat(repository.findByIds(List.of(101, 102), CardDataField.ALL)).hasSize(2);
+    }
+
+    @Test
+    void fanOutReads_mergeEveryShardInIdOrder() {
+        assertThat(repository.findAll()).extracting(CardData::getId).containsExactlyElementsOf(ids(1, 60));
+        assertThat(repository.findByCardType("CREDIT")).extracting(CardData::getId)
+                .containsExactlyElementsOf(ids(1, 60).stream().filter(id -> id % 2 == 0).toList());
+        assertThat(repository.findPage(CardDataFilter.NONE, 10, 5, CardDataField.ALL)).extracting(CardData::getId)
+                .containsExactly(11, 12, 13, 14, 15);
+        assertThat(repository.findByIds(List.of(42, 7, 999), CardDataField.ALL)).extracting(CardData::getId)
+                .containsExactly(42, 7);
+
+        // A merge buffer of 4 makes the producers wait on the consumer.
+        List<Integer> streamed = new ArrayList<>();
+        repository.streamAll(CardDataFilter.NONE, EnumSet.of(CardDataField.CARD_TYPE), cd -> streamed.add(cd.getId()));
+        assertThat(streamed).containsExactlyElementsOf(ids(1, 60));
+    }
+
+    @Test
+    void clientScopedReads_useOnlyTheClientsShard() {
+        CardDataFilter client = new CardDataFilter(null, null, 105, null, null, null, null, null);
+
+        assertThat(repository.findMatching(client, CardDataField.ALL)).extracting(CardData::getId)
+                .containsExactly(5, 17, 29, 41, 53);
+
+        // A row for the client on a different shard is not seen unless migrating.
+        int other = (repository.ring().shardOf(105) + 1) % 3;
+        repository.shards().get(other).insert(card(99, 105));
+        assertThat(repository.findMatching(client, CardDataField.ALL)).hasSize(5);
+        repository.setMigrating(true);
+        assertThat(repository.findMatching(client, CardDataField.ALL)).hasSize(6);
+    }
+
+    @Test
+    void stats_addsUpTheShardsBuckets() {
+        List<CardDataStats> byType = repository.stats(CardDataFilter.NONE, EnumSet.of(CardDataField.CARD_TYPE));
+
+        assertThat(byType).extracting(stats -> stats.group().get("cardType")).containsExactly("CREDIT", "DEBIT");
+        assertThat(byType).extracting(CardDataStats::count).containsExactly(30L, 30L);
+        // Credit limits are 100 * id: CREDIT holds the even ids.
+        assertThat(byType.get(0).creditLimitSum()).isEqualByComparingTo("93000");
+        assertThat(byType.get(0).creditLimitAvg()).isEqualByComparingTo("3100.00");
+        assertThat(repository.stats(CardDataFilter.NONE, Set.of()).get(0).count()).isEqualTo(60);
+    }
+
+    @Test
+    void deletes_reachTheShardHoldingTheRow() {
+        assertThat(repository.deleteById(17)).isEqualTo(1);
+        assertThat(repository.deleteById(17)).isZero();
+        assertThat(repository.deleteByIds(List.of(1, 2, 1000))).containsExactly(1, 1, 0);
+
+        assertThat(repository.findAll()).hasSize(57);
+        assertThat(repository.findById(17)).isEmpty();
+        assertThat(repository.idRange()).get().extracting(CardDataRepository.IdRange::first).isEqualTo(3);
+    }
+
+    @Test
+    void archiveExpired_movesExpiredCardsToEachShardsArchive() {
+        List<CardData> expired = new ArrayList<>();
+        for (int id = 200; id < 206; id++) {
+            CardData cd = card(id, 100 + id % 12);
+            cd.setExpires(LocalDate.of(2001, 1, 31));
+            expired.add(cd);
+        }
+        expired.forEach(repository::insert);
+        LocalDate expiredBefore = LocalDate.of(2002, 1, 1);
+
+        assertThat(repository.expiredIdRange(expiredBefore)).contains(new CardDataRepository.IdRange(200, 205));
+        assertThat(repository.archiveExpired(expiredBefore, 0, 1000)).containsExactly(200, 201, 202, 203, 204, 205);
+
+        int archived = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            archived += new JdbcTemplate(dataSources.get(shard))
+                    .queryForObject("SELECT COUNT(*) FROM dbo.card_data_archive", Integer.class);
+        }
+        assertThat(archived).isEqualTo(6);
+        assertThat(repository.findAll()).hasSize(60);
+    }
+
+    @Test
+    void put_changingTheClient_updatesTheCardWhereItIs() throws Exception {
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSources.get(0));
+        CardDataUpsertService service = new CardDataUpsertService(repository, new CardDataVersion(),
+                CardDataTestDatabase.changeFeed(100), transactionManager);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new CardDataUpsertController(service, 5000)).build();
+        int holder = repository.ring().shardOf(105);
+        int client = 200;
+        while (repository.ring().shardOf(client) == holder) {
+            client++;
+        }
+
+        mvc.perform(put("/api/card-data/5").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"clientId\":" + client + ",\"cardType\":\"DEBIT\"}"))
+                .andExpect(status().isOk());
+        CardData moved = card(17, client);
+        moved.setCardType("PREPAID");
+        assertThat(repository.batchUpsert(List.of(moved), null)).containsExactly(1);
+
+        assertThat(rowsOn(0) + rowsOn(1) + rowsOn(2)).isEqualTo(60);
+        assertThat(repository.shards().get(holder).findByIds(List.of(5, 17), CardDataField.ALL))
+                .extracting(CardData::getClientId, CardData::getCardType)
+                .containsExactly(tuple(client, "DEBIT"), tuple(client, "PREPAID"));
+    }
+
+    private int rowsOn(int shard) {
+        return new JdbcTemplate(dataSources.get(shard)).queryForObject("SELECT COUNT(*) FROM dbo.card_data", Integer.class);
+    }
+
+    private static List<Integer> ids(int first, int last) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = first; id <= last; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    static CardData card(int id, int clientId) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        cd.setClientId(clientId);
+        cd.setCardBrand("VISA");
+        cd.setCardType(id % 2 == 0 ? "CREDIT" : "DEBIT");
+        cd.setCreditLimit(BigDecimal.valueOf(100L * id));
+        return cd;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.entitlement.routing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replicaA;
+    private DataSource replicaB;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replicaA = database("replica-a");
+        replicaB = database("replica-b");
+    }
+
+    @Test
+    void readsRoundRobinOverReplicas_whileEverythingElseUsesPrimary() {
+        JdbcTemplate jdbc = new JdbcTemplate(new LazyConnectionDataSourceProxy(routing(List.of(replicaA, replicaB), Duration.ZERO)));
+
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(DataSourceRoute.replica(() -> name(jdbc)));
+        }
+
+        assertThat(reads).containsExactly("replica-a", "replica-b", "replica-a", "replica-b");
+        assertThat(name(jdbc)).isEqualTo("primary");
+        assertThat(DataSourceRoute.primary(() -> DataSourceRoute.replica(() -> name(jdbc)))).isEqualTo("primary");
+    }
+
+    @Test
+    void unavailableReplicaIsSkipped_andReadsFallBackToPrimaryWhenNoneIsLeft() {
+        AtomicInteger attempts = new AtomicInteger();
+        DataSource broken = new DelegatingDataSource(replicaB) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                attempts.incrementAndGet();
+                throw new SQLException("replica down");
+            }
+        };
+        ReplicaRoutingDataSource routing = routing(List.of(broken, replicaA), Duration.ZERO);
+        JdbcTemplate jdbc = new JdbcTemplate(routing);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(DataSourceRoute.replica(() -> name(jdbc))).isEqualTo("replica-a");
+        }
+        assertThat(attempts).hasValue(1);
+        assertThat(routing.healthyReplicas()).isEqualTo(1);
+
+        JdbcTemplate onlyBroken = new JdbcTemplate(routing(List.of(broken), Duration.ZERO));
+        assertThat(DataSourceRoute.replica(() -> name(onlyBroken))).isEqualTo("primary");
+    }
+
+    @Test
+    void readYourWritesWindowKeepsReadsOnPrimary() {
+        AtomicReference<Instant> lastWrite = new AtomicReference<>(Instant.now());
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replicaA), Duration.ofMinutes(1),
+                Duration.ofMinutes(1), lastWrite::get, new SimpleMeterRegistry());
+        JdbcTemplate jdbc = new JdbcTemplate(routing);
+
+        assertThat(DataSourceRoute.replica(() -> name(jdbc))).isEqualTo("primary");
+        lastWrite.set(Instant.now().minus(Duration.ofMinutes(2)));
+        assertThat(DataSourceRoute.replica(() -> name(jdbc))).isEqualTo("replica-a");
+    }
+
+    private ReplicaRoutingDataSource routing(List<DataSource> replicas, Duration readYourWrites) {
+        return new ReplicaRoutingDataSource(primary, replicas, Duration.ofMinutes(1), readYourWrites,
+                () -> Instant.EPOCH, new SimpleMeterRegistry());
+    }
+
+    private static String name(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    // A separate in-memory database that knows its own name.
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbc.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+}
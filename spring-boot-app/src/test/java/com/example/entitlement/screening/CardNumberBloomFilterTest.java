@@ -0,0 +1,29 @@
+package com.example.entitlement.screening;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardNumberBloomFilterTest {
+
+    @Test
+    void neverMissesAnAddedNumber_andStaysNearItsFalsePositiveRate() {
+        CardNumberBloomFilter filter = new CardNumberBloomFilter(20_000, 0.01);
+        for (long i = 0; i < 20_000; i++) {
+            filter.put(String.valueOf(4_000_000_000_000_000L + i * 7));
+        }
+
+        for (long i = 0; i < 20_000; i++) {
+            assertThat(filter.mightContain(String.valueOf(4_000_000_000_000_000L + i * 7))).isTrue();
+        }
+        int falsePositives = 0;
+        for (long i = 0; i < 20_000; i++) {
+            if (filter.mightContain(String.valueOf(5_000_000_000_000_000L + i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(400);
+        assertThat(filter.hashes()).isEqualTo(7);
+        assertThat(filter.bytes()).isLessThan(20_000 * 2);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.CardDataTestDatabase;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataArchiveStatus;
+import com.example.entitlement.model.CardDataChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardDataArchiverTest {
+
+    private final CardDataChangeFeed changes = CardDataTestDatabase.changeFeed(1000);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CardDataTestDatabase db;
+
+    @BeforeEach
+    void setUp() {
+        db = CardDataTestDatabase.withRows();
+        List<CardData> cards = new ArrayList<>();
+        for (int id = 100; id < 150; id++) {
+            // Every other card has expired.
+            cards.add(card(id, id % 2 == 0 ? LocalDate.of(2001, 1, 31) : LocalDate.of(2999, 1, 31)));
+        }
+        db.repository().batchInsert(cards);
+    }
+
+    @Test
+    void sweep_movesExpiredCardsInThrottledChunks_andPublishesThemAsDeleted() {
+        CardDataArchiver archiver = archiver(10, 100);
+
+        long started = System.nanoTime();
+        archiver.sweep();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        List<Integer> archived = db.jdbcTemplate().queryForList(
+                "SELECT id FROM dbo.card_data_archive WHERE id >= 100 ORDER BY id", Integer.class);
+        assertThat(archived).hasSize(25).allMatch(id -> id % 2 == 0);
+        assertThat(db.repository().findAll()).extracting(CardData::getId).contains(1, 3, 101, 149).doesNotContain(100, 148);
+        assertThat(changes.after(0, 1000)).extracting(CardDataChange::id).containsAll(archived)
+                .hasSizeGreaterThanOrEqualTo(25);
+        assertThat(changes.after(0, 1000)).extracting(CardDataChange::type).containsOnly(CardDataChange.Type.DELETED);
+        // 25 rows at 100 rows/s.
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(200);
+        assertThat(meterRegistry.get("card_data.archive.rows").counter().count()).isGreaterThanOrEqualTo(25);
+        assertThat(meterRegistry.get("card_data.archive.chunk").timer().count()).isGreaterThanOrEqualTo(5);
+        assertThat(archiver.status().cursor()).isNull();
+        assertThat(archiver.status().lastSweepFinished()).isNotNull();
+    }
+
+    @Test
+    void pause_stopsTheSweepBetweenChunks_andResumeContinuesIt() {
+        CardDataArchiver archiver = archiver(10, 1_000_000);
+        changes.subscribe(archiver::pause);
+
+        archiver.sweep();
+
+        CardDataArchiveStatus paused = archiver.status();
+        assertThat(paused.paused()).isTrue();
+        assertThat(paused.cursor()).isNotNull().isLessThan(paused.upToId());
+        assertThat(meterRegistry.get("card_data.archive.paused").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("card_data.archive.progress").gauge().value()).isBetween(0.0, 1.0);
+        int movedWhilePausing = db.count("dbo.card_data_archive");
+
+        archiver.sweep();
+        assertThat(db.count("dbo.card_data_archive")).isEqualTo(movedWhilePausing);
+
+        // Not started, so resume() only clears the flag; the sweep is run here instead of on the executor.
+        archiver.resume();
+        while (archiver.status().cursor() != null) {
+            archiver.resume();
+            archiver.sweep();
+        }
+        assertThat(db.jdbcTemplate().queryForObject(
+                "SELECT COUNT(*) FROM dbo.card_data WHERE expires < DATE '2002-01-01'", Integer.class)).isZero();
+        assertThat(archiver.status().expiredBefore()).isNull();
+    }
+
+    @Test
+    void sweep_logsAndGivesUp_whenTheExpiredRangeQueryFails() {
+        CardDataArchiver archiver = archiver(10, 1_000_000);
+        db.jdbcTemplate().execute("DROP TABLE dbo.card_data");
+
+        archiver.sweep();
+
+        assertThat(archiver.status().cursor()).isNull();
+        assertThat(archiver.status().lastSweepFinished()).isNull();
+    }
+
+    private CardDataArchiver archiver(int chunkSize, double rowsPerSecond) {
+        return new CardDataArchiver(db.repository(), new CardDataVersion(), changes, db.transactionManager(),
+                CardDataTestDatabase.none(CacheManager.class), chunkSize, rowsPerSecond, Duration.ofMinutes(1),
+                Duration.ofHours(1), Duration.ZERO, CardDataTestDatabase.of(MeterRegistry.class, meterRegistry));
+    }
+
+    private static CardData card(int id, LocalDate expires) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        cd.setClientId(800);
+        cd.setCardType("DEBIT");
+        cd.setExpires(expires);
+        return cd;
+    }
+}
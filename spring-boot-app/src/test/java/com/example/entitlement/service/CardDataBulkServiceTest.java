@@ -0,0 +1,125 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.model.BulkInsertResult;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.repository.CardDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardDataBulkServiceTest {
+
+    @Mock
+    private CardDataRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final CardDataVersion version = new CardDataVersion();
+
+    private final CardDataChangeFeed changes =
+            new CardDataChangeFeed(100, new StaticListableBeanFactory().getBeanProvider(CardDataChangeRelay.class));
+
+    private CardDataBulkService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CardDataBulkService(repository, version, changes, transactionManager, 2, 10, true);
+    }
+
+    @Test
+    void ingest_splitsInputIntoChunks() {
+        when(repository.copyInsert(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+
+        BulkInsertResult result = service.ingest(cards(5).iterator(), null);
+
+        assertThat(result.receivedRows()).isEqualTo(5);
+        assertThat(result.insertedRows()).isEqualTo(5);
+        assertThat(result.chunks()).extracting(BulkInsertResult.Chunk::rows).containsExactly(2, 2, 1);
+        assertThat(result.chunks()).extracting(BulkInsertResult.Chunk::offset).containsExactly(0, 2, 4);
+        verify(repository, times(3)).copyInsert(anyList());
+    }
+
+    @Test
+    void ingest_reportsFailedChunk_andContinues() {
+        when(repository.copyInsert(anyList()))
+                .thenReturn(2)
+                .thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint"))
+                .thenReturn(1);
+
+        BulkInsertResult result = service.ingest(cards(5).iterator(), null);
+
+        assertThat(result.insertedRows()).isEqualTo(3);
+        assertThat(result.failedRows()).isEqualTo(2);
+        assertThat(result.chunks().get(1).error()).contains("duplicate key");
+        assertThat(result.chunks().get(2).succeeded()).isTrue();
+        // One bump per committed chunk; the failed chunk does not change the version.
+        assertThat(version.current().version()).isEqualTo(2);
+        // Rows of the rolled-back chunk never reach the change feed.
+        assertThat(changes.after(0, 100)).extracting(c -> c.id()).containsExactly(0, 1, 4);
+    }
+
+    @Test
+    void ingest_usesBatchInsert_whenCopyDisabled() {
+        service = new CardDataBulkService(repository, version, changes, transactionManager, 2, 10, false);
+        when(repository.batchInsert(anyList())).thenReturn(1);
+
+        service.ingest(cards(1).iterator(), null);
+
+        verify(repository).batchInsert(anyList());
+        verify(repository, never()).copyInsert(anyList());
+    }
+
+    @Test
+    void ingest_stopsAtUnreadableInput() {
+        when(repository.copyInsert(anyList())).thenReturn(2);
+        Iterator<CardData> rows = new Iterator<>() {
+            int served;
+
+            @Override
+            public boolean hasNext() {
+                if (served == 3) {
+                    throw new IllegalStateException("Unexpected character");
+                }
+                return true;
+            }
+
+            @Override
+            public CardData next() {
+                if (served == 3) {
+                    throw new NoSuchElementException();
+                }
+                served++;
+                return new CardData();
+            }
+        };
+
+        BulkInsertResult result = service.ingest(rows, 2);
+
+        assertThat(result.chunks()).hasSize(2);
+        assertThat(result.insertedRows()).isEqualTo(2);
+        assertThat(result.chunks().get(1).error()).contains("Unexpected character");
+    }
+
+    private static List<CardData> cards(int count) {
+        return java.util.stream.IntStream.range(0, count).mapToObj(i -> {
+            CardData cd = new CardData();
+            cd.setId(i);
+            return cd;
+        }).toList();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.model.CardDataChange;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class CardDataChangeFeedTest {
+
+    private final CardDataChangeFeed feed =
+            new CardDataChangeFeed(3, new StaticListableBeanFactory().getBeanProvider(CardDataChangeRelay.class));
+
+    @Test
+    void after_returnsChangesInSequenceOrder_inBatches() {
+        feed.publish(List.of(CardDataChange.deleted(10), CardDataChange.deleted(11)));
+
+        assertThat(feed.latest()).isEqualTo(2);
+        assertThat(feed.after(0, 1)).extracting(CardDataChange::seq, CardDataChange::id)
+                .containsExactly(tuple(1L, 10));
+        assertThat(feed.after(1, 10)).extracting(CardDataChange::id).containsExactly(11);
+        assertThat(feed.after(2, 10)).isEmpty();
+        assertThat(feed.after(3, 10)).as("ahead of the feed").isNull();
+    }
+
+    @Test
+    void after_reportsGap_onceChangesFallOutOfTheRing() {
+        for (int id = 1; id <= 5; id++) {
+            feed.publish(List.of(CardDataChange.deleted(id)));
+        }
+
+        assertThat(feed.after(1, 10)).isNull();
+        assertThat(feed.after(2, 10)).extracting(CardDataChange::id).containsExactly(3, 4, 5);
+    }
+
+    @Test
+    void reset_invalidatesEveryPosition_andWakesListeners() {
+        AtomicInteger signals = new AtomicInteger();
+        Runnable unsubscribe = feed.subscribe(signals::incrementAndGet);
+        feed.publish(List.of(CardDataChange.deleted(1)));
+
+        feed.reset();
+
+        assertThat(signals).hasValue(2);
+        assertThat(feed.after(1, 10)).isNull();
+        assertThat(feed.after(feed.latest(), 10)).isEmpty();
+
+        unsubscribe.run();
+        feed.publish(List.of(CardDataChange.deleted(2)));
+        assertThat(signals).hasValue(2);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.CardDataTestDatabase;
+import com.example.entitlement.config.CacheConfig;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardDataChangeRelayTest {
+
+    private final CardDataChangeFeed feed = CardDataTestDatabase.changeFeed(100);
+
+    private final CardDataVersion version = new CardDataVersion();
+
+    private final CacheManager caches =
+            new ConcurrentMapCacheManager(CacheConfig.CARD_DATA_BY_TYPE, CacheConfig.CARD_DATA_BY_ID);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CardDataChangeRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        CardDataTestDatabase db = CardDataTestDatabase.withRows();
+        relay = new CardDataChangeRelay(db.dataSource(), db.jdbcTemplate(), db.repository(), feed, version,
+                CardDataTestDatabase.of(CacheManager.class, caches), objectMapper, "card_data_changes", 500);
+    }
+
+    @Test
+    void payload_carriesTheIdAndVersion_butNoCardData() throws Exception {
+        CardData card = new CardData();
+        card.setId(1);
+        card.setCardNumber("4111111111111111");
+        card.setCvv("123");
+        card.setVersion(7L);
+
+        String payload = relay.payload(CardDataChange.updated(card));
+
+        assertThat(payload).contains("\"id\":1", "\"version\":7").doesNotContain("4111", "123", "card");
+    }
+
+    @Test
+    void receive_skipsOwnChanges_andReadsOtherInstancesRowsBack() throws Exception {
+        caches.getCache(CacheConfig.CARD_DATA_BY_ID).put(1, "stale");
+        caches.getCache(CacheConfig.CARD_DATA_BY_ID).put(2, "kept");
+        caches.getCache(CacheConfig.CARD_DATA_BY_TYPE).put("CREDIT", "stale");
+        CardData own = new CardData();
+        own.setId(3);
+
+        relay.receive(List.of(
+                relay.payload(CardDataChange.updated(own)),
+                objectMapper.writeValueAsString(new CardDataChangeRelay.Notice("other", CardDataChange.Type.UPDATED, 1, 2L)),
+                objectMapper.writeValueAsString(new CardDataChangeRelay.Notice("other", CardDataChange.Type.DELETED, 99, null))));
+
+        List<CardDataChange> changes = feed.after(0, 10);
+        assertThat(changes).extracting(CardDataChange::id).containsExactly(1, 99);
+        assertThat(changes.get(0).card().getCardNumber()).isEqualTo("4111111111111111");
+        assertThat(version.current().version()).isEqualTo(1);
+        assertThat(caches.getCache(CacheConfig.CARD_DATA_BY_ID).get(1)).isNull();
+        assertThat(caches.getCache(CacheConfig.CARD_DATA_BY_ID).get(2)).isNotNull();
+        assertThat(caches.getCache(CacheConfig.CARD_DATA_BY_TYPE).get("CREDIT")).isNull();
+    }
+
+    @Test
+    void receive_resetsTheFeedAndClearsTheCaches_onAnUnreadableNotification() {
+        caches.getCache(CacheConfig.CARD_DATA_BY_ID).put(2, "stale");
+
+        relay.receive(List.of("not json"));
+
+        assertThat(feed.after(0, 10)).isNull();
+        assertThat(version.current().version()).isEqualTo(1);
+        assertThat(caches.getCache(CacheConfig.CARD_DATA_BY_ID).get(2)).isNull();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.CardDataTestDatabase;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.repository.CardDataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardDataColumnStoreTest {
+
+    private final CardDataChangeFeed changes = CardDataTestDatabase.changeFeed(100);
+
+    private CardDataRepository repository;
+    private CardDataColumnStore store;
+
+    @BeforeEach
+    void setUp() {
+        CardDataTestDatabase db = CardDataTestDatabase.withRows();
+        repository = db.repository();
+        store = new CardDataColumnStore(repository, changes, db.transactionManager(), 16,
+                CardDataTestDatabase.none(MeterRegistry.class));
+    }
+
+    @Test
+    void load_answersLikeTheDatabase_andAppliesPublishedChangesBeforeTheNextQuery() {
+        assertThat(store.query(CardDataFilter.NONE, 0, 10, CardDataField.ALL)).isNull();
+
+        store.load();
+
+        CardDataFilter credit = CardDataFilter.byCardType("CREDIT");
+        assertThat(store.query(credit, 0, 10, CardDataField.ALL))
+                .usingRecursiveFieldByFieldElementComparator()
+                .isEqualTo(repository.findPage(credit, 0, 10, CardDataField.ALL));
+
+        CardData created = new CardData();
+        created.setId(9);
+        created.setClientId(900);
+        created.setCardType("CREDIT");
+        changes.publish(List.of(CardDataChange.created(created), CardDataChange.deleted(1)));
+
+        assertThat(store.query(credit, 0, 10, CardDataField.ALL)).extracting(CardData::getId).containsExactly(3, 9);
+    }
+
+    @Test
+    void query_fallsBackToTheDatabase_whenTheFeedLostChanges() {
+        store.load();
+
+        changes.reset();
+
+        assertThat(store.query(CardDataFilter.NONE, 0, 10, CardDataField.ALL)).isNull();
+        assertThat(store.isReady()).isFalse();
+        store.load();
+        assertThat(store.query(CardDataFilter.NONE, 0, 10, CardDataField.ALL)).hasSize(3);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.CardDataTestDatabase;
+import com.example.entitlement.model.CardDataExport;
+import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.repository.CopyCsv;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardDataExportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private CardDataExportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = service(CardDataTestDatabase.withRows(), true);
+    }
+
+    private CardDataExportService service(CardDataTestDatabase db, boolean allowUnmasked) {
+        return new CardDataExportService(db.repository(), db.transactionManager(), new ObjectMapper(),
+                directory.toString(), allowUnmasked, 2, 16, 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void export_writesOnePartPerIdRange_maskedAndResumable() throws Exception {
+        CardDataExport started = service.start(2, true);
+        CardDataExport done = await(started.id());
+
+        assertThat(done.state()).isEqualTo(CardDataExport.State.COMPLETED);
+        assertThat(done.partitions()).isEqualTo(2);
+        assertThat(done.rowsWritten()).isEqualTo(3);
+        Path dir = directory.resolve(done.id());
+        List<String> first = Files.readAllLines(dir.resolve("part-00000.csv"));
+        List<String> second = Files.readAllLines(dir.resolve("part-00001.csv"));
+        assertThat(first.get(0) + "\n").isEqualTo(CopyCsv.HEADER);
+        assertThat(first).hasSize(2).element(1).asString()
+                .startsWith("1,100,\"VISA\",\"CREDIT\",\"************1111\",")
+                .contains(",\"***\",");
+        assertThat(second).hasSize(3);
+
+        Files.delete(dir.resolve("part-00001.csv"));
+        assertThat(service.resume(done.id())).isPresent();
+        CardDataExport resumed = await(done.id());
+        assertThat(resumed.state()).isEqualTo(CardDataExport.State.COMPLETED);
+        // Only the missing partition (ids 2 and 3) was read again.
+        assertThat(resumed.rowsWritten()).isEqualTo(5);
+        assertThat(Files.readAllLines(dir.resolve("part-00001.csv"))).isEqualTo(second);
+    }
+
+    @Test
+    void unmaskedExport_keepsCardNumbers_butNeverWritesTheCvv() throws Exception {
+        CardDataExport done = await(service.start(1, false).id());
+
+        assertThat(done.masked()).isFalse();
+        List<String> rows = Files.readAllLines(directory.resolve(done.id()).resolve("part-00000.csv"));
+        assertThat(rows.get(1)).contains("\"4111111111111111\"").contains(",\"***\",");
+    }
+
+    @Test
+    void unmaskedExport_needsTheFlagAndAConfiguredDirectory() {
+        CardDataTestDatabase db = CardDataTestDatabase.empty();
+        CardDataExportService locked = service(db, false);
+        try {
+            assertThatThrownBy(() -> locked.start(1, false)).isInstanceOf(IllegalStateException.class);
+        } finally {
+            locked.destroy();
+        }
+        assertThatThrownBy(() -> new CardDataExportService(db.repository(), db.transactionManager(),
+                new ObjectMapper(), "", true, 2, 16, 1024)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void split_coversTheIdRangeWithoutGaps() {
+        List<CardDataExportService.Range> ranges = CardDataExportService.split(new CardDataRepository.IdRange(1, 10), 3);
+
+        assertThat(ranges).extracting(CardDataExportService.Range::afterId).containsExactly(0L, 3L, 6L);
+        assertThat(ranges).extracting(CardDataExportService.Range::upToId).containsExactly(3L, 6L, 10L);
+        assertThat(CardDataExportService.split(new CardDataRepository.IdRange(5, 6), 8)).hasSize(2);
+    }
+
+    private CardDataExport await(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        CardDataExport status = service.status(id).orElseThrow();
+        while (status.state() == CardDataExport.State.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            status = service.status(id).orElseThrow();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.CardDataTestDatabase;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CardDataScreenResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardDataScreeningServiceTest {
+
+    private final CardDataVersion version = new CardDataVersion();
+
+    private final CardDataChangeFeed changes = CardDataTestDatabase.changeFeed(100);
+
+    private JdbcTemplate jdbc;
+    private CardNumberIndex index;
+    private CardDataScreeningService service;
+
+    @BeforeEach
+    void setUp() {
+        CardDataTestDatabase db = CardDataTestDatabase.withRows();
+        jdbc = db.jdbcTemplate();
+        index = new CardNumberIndex(db.repository(), changes, db.transactionManager(), 1000, 0.001, Duration.ofHours(1),
+                CardDataTestDatabase.none(MeterRegistry.class));
+        service = new CardDataScreeningService(db.repository(), version, changes, db.transactionManager(),
+                CardDataTestDatabase.of(CardNumberIndex.class, index), 2);
+    }
+
+    @Test
+    void screen_confirmsOnlyFilterHits_andFlagsNewMatchesOnce() {
+        index.load();
+        long before = version.current().version();
+
+        CardDataScreenResult result = service.screen(List.of(
+                "4111-1111-1111-1111", "378282246310005", "4000000000000002", "not a number", "4111111111111111").iterator());
+
+        assertThat(result.screened()).isEqualTo(4);
+        assertThat(result.invalid()).isEqualTo(1);
+        // Batches of two: the repeated number falls into a second batch and is looked up again.
+        assertThat(result.candidates()).isEqualTo(3);
+        assertThat(result.matchedIds()).containsExactlyInAnyOrder(1, 3);
+        assertThat(result.flagged()).isEqualTo(1);
+        assertThat(result.error()).isNull();
+        assertThat(jdbc.queryForObject("SELECT card_on_dark_web FROM dbo.card_data WHERE id = 1", Boolean.class)).isTrue();
+        assertThat(version.current().version()).isGreaterThan(before);
+        assertThat(changes.after(0, 10)).singleElement().satisfies(change -> {
+            assertThat(change.type()).isEqualTo(CardDataChange.Type.UPDATED);
+            assertThat(change.card().getCardOnDarkWeb()).isTrue();
+            assertThat(change.card().getVersion()).isEqualTo(2);
+        });
+
+        assertThat(service.screen(List.of("4111111111111111").iterator()).flagged()).isZero();
+    }
+
+    @Test
+    void screen_seesCardsPublishedAfterTheFilterWasBuilt() {
+        index.load();
+        jdbc.update("INSERT INTO dbo.card_data (id, client_id, card_number, card_on_dark_web) VALUES (9, 900, '6011000990139424', FALSE)");
+        CardData created = new CardData();
+        created.setId(9);
+        created.setClientId(900);
+        created.setCardNumber("6011000990139424");
+        changes.publish(List.of(CardDataChange.created(created)));
+
+        assertThat(service.screen(List.of("6011 0009 9013 9424").iterator()).matchedIds()).containsExactly(9);
+    }
+
+    @Test
+    void screen_matchesStoredNumbersWrittenWithSeparators() {
+        jdbc.update("INSERT INTO dbo.card_data (id, client_id, card_number) VALUES (10, 900, '6011-1111-1111-1117')");
+        index.load();
+        jdbc.update("INSERT INTO dbo.card_data (id, client_id, card_number) VALUES (11, 900, '3530 1113 3330 0000')");
+        CardData created = new CardData();
+        created.setId(11);
+        created.setClientId(900);
+        created.setCardNumber("3530 1113 3330 0000");
+        changes.publish(List.of(CardDataChange.created(created)));
+
+        assertThat(index.mightContain("6011111111111117")).isTrue();
+        assertThat(service.screen(List.of("6011111111111117", "3530111333300000").iterator()).matchedIds())
+                .containsExactlyInAnyOrder(10, 11);
+    }
+
+    @Test
+    void normalize_dropsSeparators_andRejectsAnythingElse() {
+        assertThat(CardDataScreeningService.normalize(" 4111 1111-1111 1111 ")).isEqualTo("4111111111111111");
+        assertThat(CardDataScreeningService.normalize("4111x111111111111")).isNull();
+        assertThat(CardDataScreeningService.normalize("41111111111")).isNull();
+        assertThat(CardDataScreeningService.normalize("41111111111111111111")).isNull();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.config.CacheConfig;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.repository.CardDataRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig({CacheConfig.class, CardDataService.class, CardDataVersion.class, CardDataChangeFeed.class})
+class CardDataServiceCachingTest {
+
+    @MockBean
+    private CardDataRepository repository;
+
+    @Autowired
+    private CardDataService service;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void list_byType_isServedFromCache() {
+        when(repository.findByCardType("CREDIT")).thenReturn(List.of(card(1, "CREDIT")));
+
+        service.list("CREDIT");
+        service.list("CREDIT");
+
+        verify(repository, times(1)).findByCardType("CREDIT");
+        assertThat(nativeCache(CacheConfig.CARD_DATA_BY_TYPE).stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void list_unfiltered_isNeverCached() {
+        when(repository.findAll()).thenReturn(List.of());
+
+        service.list(null);
+        service.list(null);
+
+        verify(repository, times(2)).findAll();
+    }
+
+    @Test
+    void create_evictsOnlyItsTypeAndId() {
+        when(repository.findByCardType(anyString())).thenReturn(List.of());
+        when(repository.findById(9)).thenReturn(Optional.empty());
+        service.list("CREDIT");
+        service.list("DEBIT");
+        service.findById(9);
+
+        service.create(card(9, "CREDIT"));
+        service.list("CREDIT");
+        service.list("DEBIT");
+        service.findById(9);
+
+        verify(repository, times(2)).findByCardType("CREDIT");
+        verify(repository, times(1)).findByCardType("DEBIT");
+        verify(repository, times(2)).findById(9);
+    }
+
+    @Test
+    void deleteById_evictsIdAndAllTypeLists() {
+        when(repository.findByCardType(anyString())).thenReturn(List.of());
+        when(repository.findById(1)).thenReturn(Optional.of(card(1, "CREDIT")));
+        service.list("DEBIT");
+        service.findById(1);
+
+        service.deleteById(1);
+        service.list("DEBIT");
+        service.findById(1);
+
+        verify(repository, times(2)).findByCardType("DEBIT");
+        verify(repository, times(2)).findById(1);
+    }
+
+    private Cache<Object, Object> nativeCache(String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+    }
+
+    private static CardData card(int id, String cardType) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        cd.setCardType(cardType);
+        return cd;
+    }
+}
@@ -1,14 +1,22 @@
 package com.example.entitlement.service;
 
+import com.example.entitlement.model.BulkDeleteResult;
 import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
 import com.example.entitlement.repository.CardDataRepository;
+import com.example.entitlement.routing.DataSourceRoute;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -21,6 +29,18 @@ class CardDataServiceTest {
     @Mock
     private CardDataRepository repository;
 
+    @Mock
+    private CardDataVersion version;
+
+    @Mock
+    private CardDataChangeFeed changes;
+
+    @Mock
+    private ObjectProvider<CardDataColumnStore> columnStore;
+
+    @Mock
+    private ObjectProvider<CardDataWriteBehind> writeBehind;
+
     @InjectMocks
     private CardDataService service;
 
@@ -47,11 +67,40 @@ class CardDataServiceTest {
     }
 
     @Test
-    void create_delegatesToRepository() {
+    void cachedReads_goToThePrimary() {
+        List<DataSourceRoute.Target> routes = new ArrayList<>();
+        when(repository.findByCardType("CREDIT")).thenAnswer(call -> {
+            routes.add(DataSourceRoute.current());
+            return List.of();
+        });
+        when(repository.findById(1)).thenAnswer(call -> {
+            routes.add(DataSourceRoute.current());
+            return Optional.empty();
+        });
+
+        service.list("CREDIT");
+        service.findById(1);
+
+        assertThat(routes).containsOnly(DataSourceRoute.Target.PRIMARY).hasSize(2);
+    }
+
+    @Test
+    void page_treatsBlankCardTypeAsUnfiltered() {
+        when(repository.findPage(CardDataFilter.NONE, 5, 10, CardDataField.ALL)).thenReturn(List.of(new CardData()));
+
+        List<CardData> result = service.page(CardDataFilter.byCardType(" "), 5, 10, CardDataField.ALL);
+
+        assertThat(result).hasSize(1);
+        verify(repository).findPage(CardDataFilter.NONE, 5, 10, CardDataField.ALL);
+    }
+
+    @Test
+    void create_delegatesToRepository_andBumpsVersion() {
         when(repository.insert(any())).thenReturn(1);
         int rows = service.create(new CardData());
         assertThat(rows).isEqualTo(1);
         verify(repository).insert(any());
+        verify(version).bump();
     }
 
     @Test
@@ -66,5 +115,21 @@ class CardDataServiceTest {
         when(repository.deleteById(5)).thenReturn(0);
         assertThat(service.deleteById(5)).isFalse();
         verify(repository).deleteById(5);
+        verify(version, never()).bump();
+        verify(changes, never()).publish(any());
+    }
+
+    @Test
+    void deleteByIds_pairsCountsWithIds_andBumpsVersion() {
+        when(repository.deleteByIds(List.of(4, 5))).thenReturn(new int[]{0, 1});
+
+        BulkDeleteResult result = service.deleteByIds(List.of(4, 5));
+
+        assertThat(result.deletedRows()).isEqualTo(1);
+        assertThat(result.outcomes()).extracting(BulkDeleteResult.Outcome::deleted).containsExactly(false, true);
+        verify(version).bump();
+        // Only ids that actually had a row go on the change feed.
+        verify(changes).publish(argThat(published -> published.size() == 1
+                && published.get(0).type() == CardDataChange.Type.DELETED && published.get(0).id() == 5));
     }
 }
@@ -0,0 +1,85 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.repository.CardDataRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardDataSnapshotTest {
+
+    @Mock
+    private CardDataRepository repository;
+
+    private final CardDataVersion version = new CardDataVersion();
+
+    private final CardDataChangeFeed changes =
+            new CardDataChangeFeed(100, new StaticListableBeanFactory().getBeanProvider(CardDataChangeRelay.class));
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void rebuild_serializesFullAndPerTypeLists_andGoesStaleOnWrite() throws IOException {
+        CardData credit = card(1, "CREDIT");
+        CardData debit = card(2, "DEBIT");
+        CardData credit2 = card(3, "CREDIT");
+        when(repository.findAll()).thenReturn(List.of(credit, debit, credit2));
+        CardDataSnapshot snapshot = snapshot(10);
+        long at = version.current().version();
+
+        assertThat(snapshot.get(null, at)).isNull();
+        snapshot.rebuild();
+
+        CardDataSnapshot.Entry all = snapshot.get(null, at);
+        assertThat(all.json()).isEqualTo(objectMapper.writeValueAsBytes(List.of(credit, debit, credit2)));
+        assertThat(gunzip(all.gzip())).isEqualTo(all.json());
+        assertThat(snapshot.get("CREDIT", at).json()).isEqualTo(objectMapper.writeValueAsBytes(List.of(credit, credit2)));
+        assertThat(new String(snapshot.get("PREPAID", at).json())).isEqualTo("[]");
+
+        version.bump();
+        assertThat(snapshot.get(null, version.current().version())).isNull();
+    }
+
+    @Test
+    void rebuild_skipsTablesOverTheRowLimit() {
+        when(repository.findAll()).thenReturn(List.of(card(1, "CREDIT"), card(2, "DEBIT")));
+        CardDataSnapshot snapshot = snapshot(1);
+
+        snapshot.rebuild();
+
+        assertThat(snapshot.get(null, version.current().version())).isNull();
+    }
+
+    private CardDataSnapshot snapshot(int maxRows) {
+        return new CardDataSnapshot(repository, version, changes, objectMapper, Duration.ZERO, maxRows,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    }
+
+    private static CardData card(int id, String type) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        cd.setCardType(type);
+        return cd;
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+}
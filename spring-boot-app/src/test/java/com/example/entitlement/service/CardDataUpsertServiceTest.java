@@ -0,0 +1,87 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.CardDataTestDatabase;
+import com.example.entitlement.model.BulkUpsertResult;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import com.example.entitlement.model.CreditLimitUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardDataUpsertServiceTest {
+
+    private final CardDataVersion version = new CardDataVersion();
+
+    private final CardDataChangeFeed changes = CardDataTestDatabase.changeFeed(100);
+
+    private CardDataUpsertService service;
+
+    @BeforeEach
+    void setUp() {
+        CardDataTestDatabase db = CardDataTestDatabase.withRows();
+        service = new CardDataUpsertService(db.repository(), version, changes, db.transactionManager());
+    }
+
+    @Test
+    void upsert_reportsCreatedUpdatedReplayedAndConflict() {
+        long before = version.current().version();
+
+        assertThat(service.upsert(card(50, null), null, false, "k1"))
+                .isEqualTo(new BulkUpsertResult.Outcome(50, BulkUpsertResult.Status.CREATED, 1L));
+        assertThat(service.upsert(card(50, null), null, false, "k1"))
+                .isEqualTo(new BulkUpsertResult.Outcome(50, BulkUpsertResult.Status.REPLAYED, 1L));
+        assertThat(service.upsert(card(50, null), 1L, false, "k2"))
+                .isEqualTo(new BulkUpsertResult.Outcome(50, BulkUpsertResult.Status.UPDATED, 2L));
+        assertThat(service.upsert(card(50, null), 1L, false, "k3"))
+                .isEqualTo(new BulkUpsertResult.Outcome(50, BulkUpsertResult.Status.CONFLICT, 2L));
+        assertThat(service.upsert(card(51, null), null, true, null))
+                .isEqualTo(new BulkUpsertResult.Outcome(51, BulkUpsertResult.Status.NOT_FOUND, null));
+
+        // Only the two applied writes are published.
+        List<CardDataChange> published = changes.after(0, 10);
+        assertThat(published).extracting(CardDataChange::type).containsOnly(CardDataChange.Type.UPDATED).hasSize(2);
+        assertThat(published.get(1).card().getVersion()).isEqualTo(2L);
+        assertThat(version.current().version()).isEqualTo(before + 2);
+    }
+
+    @Test
+    void batches_reportOutcomePerRow_andPublishTheWrittenRows() {
+        BulkUpsertResult upserted = service.upsertAll(List.of(card(60, null), card(2, 5L), card(3, 1L)), "batch");
+
+        assertThat(upserted.appliedRows()).isEqualTo(2);
+        assertThat(upserted.outcomes()).extracting(BulkUpsertResult.Outcome::status).containsExactly(
+                BulkUpsertResult.Status.CREATED, BulkUpsertResult.Status.CONFLICT, BulkUpsertResult.Status.UPDATED);
+
+        List<CreditLimitUpdate> limits = List.of(
+                new CreditLimitUpdate(1, new BigDecimal("123.45"), null),
+                new CreditLimitUpdate(404, new BigDecimal("1.00"), 1L));
+        BulkUpsertResult first = service.updateCreditLimits(limits, "limits");
+        BulkUpsertResult retried = service.updateCreditLimits(limits, "limits");
+
+        assertThat(first.outcomes()).extracting(BulkUpsertResult.Outcome::status)
+                .containsExactly(BulkUpsertResult.Status.UPDATED, BulkUpsertResult.Status.NOT_FOUND);
+        assertThat(retried.outcomes()).extracting(BulkUpsertResult.Outcome::status)
+                .containsExactly(BulkUpsertResult.Status.REPLAYED, BulkUpsertResult.Status.NOT_FOUND);
+        CardDataChange last = changes.after(0, 10).get(2);
+        assertThat(last.id()).isEqualTo(1);
+        assertThat(last.card().getCreditLimit()).isEqualByComparingTo("123.45");
+        assertThat(last.card().getCardBrand()).isEqualTo("VISA");
+        assertThat(changes.after(0, 10)).hasSize(3);
+    }
+
+    private static CardData card(int id, Long version) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        cd.setClientId(500);
+        cd.setCardBrand("AMEX");
+        cd.setCardType("CREDIT");
+        cd.setCreditLimit(new BigDecimal("2500.00"));
+        cd.setVersion(version);
+        return cd;
+    }
+}
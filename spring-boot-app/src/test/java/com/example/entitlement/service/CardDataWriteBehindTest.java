@@ -0,0 +1,122 @@
+package com.example.entitlement.service;
+
+import com.example.entitlement.CardDataTestDatabase;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardDataWriteBehindTest {
+
+    private final CardDataVersion version = new CardDataVersion();
+
+    private final CardDataChangeFeed changes = CardDataTestDatabase.changeFeed(1000);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CardDataTestDatabase db;
+    private CardDataWriteBehind writer;
+
+    @BeforeEach
+    void setUp() {
+        db = CardDataTestDatabase.withRows();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null && writer.isRunning()) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void submit_groupsConcurrentRowsIntoBatches_andCompletesEachOnCommit() throws Exception {
+        writer = writer(1000, 50, Duration.ofMillis(20));
+        writer.start();
+
+        List<CompletableFuture<Integer>> written = new ArrayList<>();
+        for (int id = 100; id < 200; id++) {
+            written.add(writer.submit(card(id)));
+        }
+        CompletableFuture.allOf(written.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertThat(written).allSatisfy(future -> assertThat(future.join()).isEqualTo(1));
+        assertThat(db.count("dbo.card_data")).isEqualTo(103);
+        long batches = meterRegistry.get("card_data.write_behind.batch.rows").summary().count();
+        assertThat(batches).isBetween(2L, 10L);
+        assertThat(changes.after(0, 1000)).hasSize(100).extracting(CardDataChange::type)
+                .containsOnly(CardDataChange.Type.CREATED);
+    }
+
+    @Test
+    void submit_failsOnlyTheBadRow_andRejectsWhenFull() throws Exception {
+        writer = writer(3, 100, Duration.ofSeconds(30));
+        writer.start();
+
+        CompletableFuture<Integer> good = writer.submit(card(300));
+        CompletableFuture<Integer> duplicate = writer.submit(card(1));
+        CompletableFuture<Integer> other = writer.submit(card(301));
+        assertThatThrownBy(() -> writer.submit(card(302))).isInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.get("card_data.write_behind.rejected").counter().count()).isEqualTo(1);
+
+        // The batch would wait out its 30 s delay; stopping drains it.
+        writer.stop();
+
+        assertThat(good.get(1, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(other.get(1, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(duplicate).isCompletedExceptionally();
+        assertThatThrownBy(duplicate::join).hasCauseInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> writer.submit(card(303))).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void submit_completesCommittedRows_whenPublishingFails() throws Exception {
+        CardDataVersion failing = new CardDataVersion() {
+            @Override
+            public void bump() {
+                throw new IllegalStateException("bump failed");
+            }
+        };
+        writer = writer(failing, 100, 10, Duration.ofMillis(5));
+        writer.start();
+
+        CompletableFuture<Integer> first = writer.submit(card(400));
+        CompletableFuture<Integer> second = writer.submit(card(401));
+
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(db.jdbcTemplate().queryForObject(
+                "SELECT COUNT(*) FROM dbo.card_data WHERE id IN (400, 401)", Integer.class)).isEqualTo(2);
+    }
+
+    private CardDataWriteBehind writer(int capacity, int batchSize, Duration maxDelay) {
+        return writer(version, capacity, batchSize, maxDelay);
+    }
+
+    private CardDataWriteBehind writer(CardDataVersion version, int capacity, int batchSize, Duration maxDelay) {
+        return new CardDataWriteBehind(db.repository(), version, changes, db.transactionManager(),
+                capacity, batchSize, maxDelay, CardDataTestDatabase.of(MeterRegistry.class, meterRegistry));
+    }
+
+    private static CardData card(int id) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        cd.setClientId(700);
+        cd.setCardType("DEBIT");
+        return cd;
+    }
+}
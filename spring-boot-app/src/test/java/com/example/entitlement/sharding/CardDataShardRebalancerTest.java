@@ -0,0 +1,117 @@
+package com.example.entitlement.sharding;
+
+import com.example.entitlement.CardDataTestDatabase;
+import com.example.entitlement.model.CardData;
+import com.example.entitlement.model.CardDataField;
+import com.example.entitlement.model.CardDataFilter;
+import com.example.entitlement.repository.ShardedCardDataRepository;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardDataShardRebalancerTest {
+
+    private final List<DataSource> dataSources = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            dataSources.add(CardDataTestDatabase.empty().dataSource());
+        }
+    }
+
+    @Test
+    void rebalance_movesTheNewShardsClientsOntoIt_keepingVersions() throws Exception {
+        List<CardData> cards = new ArrayList<>();
+        for (int id = 1; id <= 500; id++) {
+            cards.add(card(id, 1000 + id % 50));
+        }
+        try (ShardedCardDataRepository two = repository(dataSources.subList(0, 2))) {
+            cards.forEach(two::insert);
+            two.markOnDarkWeb(List.of(7, 8, 9));
+        }
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (ShardedCardDataRepository three = repository(dataSources)) {
+            CardDataShardRebalancer rebalancer = new CardDataShardRebalancer(three, 64, 3, meterRegistry);
+            long misplaced = cards.stream().filter(cd -> three.ring().shardOf(cd.getClientId()) == 2).count();
+
+            CardDataShardRebalancer.Report report = rebalancer.rebalance();
+
+            assertThat(misplaced).isPositive();
+            assertThat(report.converged()).isTrue();
+            assertThat(report.passes()).isEqualTo(2);
+            assertThat(report.moved()).isEqualTo(misplaced);
+            assertThat(report.kept()).isZero();
+            assertThat(meterRegistry.get("card_data.shards.rebalance.moved").counter().count()).isEqualTo(misplaced);
+            assertThat(rowsOn(2)).isEqualTo((int) misplaced);
+            for (int shard = 0; shard < 3; shard++) {
+                int owner = shard;
+                assertThat(new JdbcTemplate(dataSources.get(shard)).queryForList("SELECT client_id FROM dbo.card_data", Integer.class))
+                        .allSatisfy(clientId -> assertThat(three.ring().shardOf(clientId)).isEqualTo(owner));
+            }
+            List<CardData> all = three.findMatching(CardDataFilter.NONE, CardDataField.ALL);
+            assertThat(all).hasSize(500);
+            assertThat(all).filteredOn(cd -> cd.getId() >= 7 && cd.getId() <= 9)
+                    .extracting(CardData::getVersion).containsOnly(2L);
+
+            assertThat(rebalancer.rebalance().moved()).isZero();
+        }
+    }
+
+    @Test
+    void rebalance_replacesAStaleCopyLeftByAnInterruptedMove() {
+        try (ShardedCardDataRepository three = repository(dataSources)) {
+            int clientId = 1000;
+            while (three.ring().shardOf(clientId) != 2) {
+                clientId++;
+            }
+            CardData moved = card(1, clientId);
+            // The card still lives on shard 0 at version 3; shard 2 holds a copy from before two updates.
+            moved.setVersion(3L);
+            three.shards().get(0).insertCopies(List.of(moved));
+            CardData stale = card(1, clientId);
+            stale.setCardType("STALE");
+            three.shards().get(2).insertCopies(List.of(stale));
+
+            CardDataShardRebalancer.Report report =
+                    new CardDataShardRebalancer(three, 64, 3, new CompositeMeterRegistry()).rebalance();
+
+            assertThat(report.moved()).isEqualTo(1);
+            assertThat(rowsOn(0)).isZero();
+            assertThat(three.findById(1)).get().satisfies(cd -> {
+                assertThat(cd.getVersion()).isEqualTo(3L);
+                assertThat(cd.getCardType()).isEqualTo("DEBIT");
+            });
+        }
+    }
+
+    private ShardedCardDataRepository repository(List<DataSource> shards) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            names.add("shard-" + i);
+        }
+        return new ShardedCardDataRepository(shards, new ConsistentHashRing(names, 64), "dbo", 500, 100,
+                new CompositeMeterRegistry());
+    }
+
+    private int rowsOn(int shard) {
+        return new JdbcTemplate(dataSources.get(shard)).queryForObject("SELECT COUNT(*) FROM dbo.card_data", Integer.class);
+    }
+
+    private static CardData card(int id, int clientId) {
+        CardData cd = new CardData();
+        cd.setId(id);
+        cd.setClientId(clientId);
+        cd.setCardType(id % 2 == 0 ? "CREDIT" : "DEBIT");
+        return cd;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.entitlement.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+    @Test
+    void shardOf_spreadsClientsEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2"), 256);
+
+        int[] clients = new int[3];
+        for (int clientId = 0; clientId < 30_000; clientId++) {
+            clients[ring.shardOf(clientId)]++;
+        }
+
+        for (int count : clients) {
+            assertThat(count).isBetween(8_000, 12_000);
+        }
+    }
+
+    @Test
+    void addingAShard_movesClientsOnlyToTheNewShard() {
+        ConsistentHashRing three = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2"), 256);
+        ConsistentHashRing four = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2", "shard-3"), 256);
+
+        int moved = 0;
+        for (int clientId = 0; clientId < 30_000; clientId++) {
+            int before = three.shardOf(clientId);
+            int after = four.shardOf(clientId);
+            if (before != after) {
+                assertThat(after).isEqualTo(3);
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(6_000, 9_000);
+    }
+}
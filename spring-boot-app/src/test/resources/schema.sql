@@ -13,5 +13,43 @@ CREATE TABLE IF NOT EXISTS dbo.card_data (
     credit_limit NUMERIC(12, 2),
     acct_open_date DATE,
     year_pin_last_changed INT,
-    card_on_dark_web BOOLEAN
+    card_on_dark_web BOOLEAN,
+    -- Optimistic locking: starts at 1 and grows by one with every upsert or update.
+    version BIGINT NOT NULL DEFAULT 1,
+    -- Idempotency-Key of the request that last wrote the row, so a retry of it can be recognised.
+    idempotency_key VARCHAR(64)
 );
+
+-- Filter and /stats access paths. (card_type, id) also serves keyset pages within a type;
+-- (card_brand, credit_limit) covers per-brand credit limit aggregates without touching the table.
+CREATE INDEX IF NOT EXISTS idx_card_data_type_id ON dbo.card_data (card_type, id);
+CREATE INDEX IF NOT EXISTS idx_card_data_brand_limit ON dbo.card_data (card_brand, credit_limit);
+CREATE INDEX IF NOT EXISTS idx_card_data_client ON dbo.card_data (client_id);
+-- Also finds the cards the archiver moves out.
+CREATE INDEX IF NOT EXISTS idx_card_data_expires ON dbo.card_data (expires);
+CREATE INDEX IF NOT EXISTS idx_card_data_dark_web_client ON dbo.card_data (card_on_dark_web, client_id);
+CREATE INDEX IF NOT EXISTS idx_card_data_credit_limit ON dbo.card_data (credit_limit);
+-- Dark-web screening confirms Bloom filter candidates by card number without spaces and dashes. H2 has
+-- no expression indexes, so here that lookup scans; PostgreSQL indexes the expression (see README).
+CREATE INDEX IF NOT EXISTS idx_card_data_card_number ON dbo.card_data (card_number);
+
+-- Expired cards moved out of card_data by the archiver, as they were when they were moved. Not keyed
+-- on id: an id can be reused by a new card and archived again.
+CREATE TABLE IF NOT EXISTS dbo.card_data_archive (
+    id INT NOT NULL,
+    client_id INT NOT NULL,
+    card_brand VARCHAR(50),
+    card_type VARCHAR(50),
+    card_number VARCHAR(20),
+    expires DATE,
+    cvv VARCHAR(4),
+    has_chip BOOLEAN,
+    num_cards_issued INT,
+    credit_limit NUMERIC(12, 2),
+    acct_open_date DATE,
+    year_pin_last_changed INT,
+    card_on_dark_web BOOLEAN,
+    version BIGINT NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_card_data_archive_id ON dbo.card_data_archive (id);